@@ -417,6 +417,18 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactoryForI
 
     @Override
     public AnnotationMirror greatestLowerBoundQualifiers(AnnotationMirror a1, AnnotationMirror a2) {
+      return memoizedGreatestLowerBound(a1, a2, this::computeGreatestLowerBound);
+    }
+
+    /**
+     * Converts a1 and a2 to {@link UBQualifier}s and converts their {@link UBQualifier#glb} back
+     * to an annotation.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @return the greatest lower bound of a1 and a2
+     */
+    private AnnotationMirror computeGreatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
       UBQualifier a1Obj = UBQualifier.createUBQualifier(a1, (IndexChecker) checker);
       UBQualifier a2Obj = UBQualifier.createUBQualifier(a2, (IndexChecker) checker);
       UBQualifier glb = a1Obj.glb(a2Obj);
@@ -432,6 +444,18 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactoryForI
      */
     @Override
     public AnnotationMirror leastUpperBoundQualifiers(AnnotationMirror a1, AnnotationMirror a2) {
+      return memoizedLeastUpperBound(a1, a2, this::computeLeastUpperBound);
+    }
+
+    /**
+     * Converts a1 and a2 to {@link UBQualifier}s and converts their {@link UBQualifier#lub} back
+     * to an annotation.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @return the least upper bound of a1 and a2
+     */
+    private AnnotationMirror computeLeastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
       UBQualifier a1Obj = UBQualifier.createUBQualifier(a1, (IndexChecker) checker);
       UBQualifier a2Obj = UBQualifier.createUBQualifier(a2, (IndexChecker) checker);
       UBQualifier lub = a1Obj.lub(a2Obj);
@@ -461,6 +485,18 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactoryForI
      */
     @Override
     public boolean isSubtypeQualifiers(AnnotationMirror subAnno, AnnotationMirror superAnno) {
+      return memoizedIsSubtype(subAnno, superAnno, this::computeIsSubtype);
+    }
+
+    /**
+     * Converts subAnno and superAnno to {@link UBQualifier}s and compares them with {@link
+     * UBQualifier#isSubtype}.
+     *
+     * @param subAnno possible subqualifier
+     * @param superAnno possible superqualifier
+     * @return true if subAnno is a subtype of superAnno
+     */
+    private boolean computeIsSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
       UBQualifier subtypeQual = UBQualifier.createUBQualifier(subAnno, (IndexChecker) checker);
       UBQualifier supertypeQual = UBQualifier.createUBQualifier(superAnno, (IndexChecker) checker);
       return subtypeQual.isSubtype(supertypeQual);
@@ -18,7 +18,6 @@ import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -164,15 +163,17 @@ public class MustCallConsistencyAnalyzer {
 
   /**
    * A cache for the result of calling {@code RLCCalledMethodsAnnotatedTypeFactory.getStoreAfter()}
-   * on a node. The cache prevents repeatedly computing least upper bounds on stores.
+   * on a node, indexed by {@link Node#getId}. The cache prevents repeatedly computing least upper
+   * bounds on stores. Set by {@link #analyze}.
    */
-  private final IdentityHashMap<Node, AccumulationStore> cmStoreAfter = new IdentityHashMap<>();
+  private @Nullable AccumulationStore[] cmStoreAfter = new AccumulationStore[0];
 
   /**
    * A cache for the result of calling {@code MustCallAnnotatedTypeFactory.getStoreAfter()} on a
-   * node. The cache prevents repeatedly computing least upper bounds on stores.
+   * node, indexed by {@link Node#getId}. The cache prevents repeatedly computing least upper
+   * bounds on stores. Set by {@link #analyze}.
    */
-  private final IdentityHashMap<Node, CFStore> mcStoreAfter = new IdentityHashMap<>();
+  private @Nullable CFStore[] mcStoreAfter = new CFStore[0];
 
   /** The Resource Leak Checker, used to issue errors. */
   private final ResourceLeakChecker checker;
@@ -586,6 +587,9 @@ public class MustCallConsistencyAnalyzer {
   // TODO: This analysis is currently implemented directly using a worklist; in the future, it
   // should be rewritten to use the dataflow framework of the Checker Framework.
   public void analyze(ControlFlowGraph cfg) {
+    cmStoreAfter = new AccumulationStore[cfg.getNodeCount()];
+    mcStoreAfter = new CFStore[cfg.getNodeCount()];
+
     // The `visited` set contains everything that has been added to the worklist, even if it has
     // not yet been removed and analyzed.
     Set<BlockWithObligations> visited = new HashSet<>();
@@ -2112,11 +2116,14 @@ public class MustCallConsistencyAnalyzer {
           // currentBlock.
           Node last = currentBlockNodes.get(currentBlockNodes.size() - 1); // 2. (CM)
 
-          if (cmStoreAfter.containsKey(last)) {
-            cmStore = cmStoreAfter.get(last);
+          // The node is in a reachable block, so it has an ID.
+          int lastId = last.getId();
+          AccumulationStore cachedCmStore = cmStoreAfter[lastId];
+          if (cachedCmStore != null) {
+            cmStore = cachedCmStore;
           } else {
             cmStore = cmAtf.getStoreAfter(last);
-            cmStoreAfter.put(last, cmStore);
+            cmStoreAfter[lastId] = cmStore;
           }
           // If this is an exceptional block, check the MC store beforehand to avoid
           // issuing an error about a call to a CreatesMustCallFor method that might
@@ -2124,11 +2131,12 @@ public class MustCallConsistencyAnalyzer {
           if (exceptionType != null && isInvocationOfCreatesMustCallForMethod(last)) {
             mcStore = mcAtf.getStoreBefore(last); // 2a. (MC)
           } else {
-            if (mcStoreAfter.containsKey(last)) {
-              mcStore = mcStoreAfter.get(last);
+            CFStore cachedMcStore = mcStoreAfter[lastId];
+            if (cachedMcStore != null) {
+              mcStore = cachedMcStore;
             } else {
               mcStore = mcAtf.getStoreAfter(last); // 2b. (MC)
-              mcStoreAfter.put(last, mcStore);
+              mcStoreAfter[lastId] = mcStore;
             }
           }
         }
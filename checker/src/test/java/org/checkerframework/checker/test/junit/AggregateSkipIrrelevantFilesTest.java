@@ -0,0 +1,28 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.checker.testchecker.NestedAggregateChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for an aggregate checker, only some of whose checkers have relevant Java types --
+ * testing {@code -AskipIrrelevantFiles} command-line argument.
+ */
+public class AggregateSkipIrrelevantFilesTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a AggregateSkipIrrelevantFilesTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public AggregateSkipIrrelevantFilesTest(List<File> testFiles) {
+    super(testFiles, NestedAggregateChecker.class, "", "-AskipIrrelevantFiles");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"aggregate-skipirrelevantfiles", "aggregate"};
+  }
+}
@@ -0,0 +1,31 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Nullness Checker -- testing {@code -AflowSkipTrivialMethods} command-line
+ * argument.
+ */
+public class NullnessSkipTrivialMethodsTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a NullnessSkipTrivialMethodsTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public NullnessSkipTrivialMethodsTest(List<File> testFiles) {
+    super(
+        testFiles,
+        org.checkerframework.checker.nullness.NullnessChecker.class,
+        "nullness",
+        "-AflowSkipTrivialMethods");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"nullness-skiptrivialmethods"};
+  }
+}
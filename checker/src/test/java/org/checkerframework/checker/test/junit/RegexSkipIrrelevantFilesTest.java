@@ -0,0 +1,30 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Regex Checker -- testing {@code -AskipIrrelevantFiles} command-line argument.
+ */
+public class RegexSkipIrrelevantFilesTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a RegexSkipIrrelevantFilesTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public RegexSkipIrrelevantFilesTest(List<File> testFiles) {
+    super(
+        testFiles,
+        org.checkerframework.checker.regex.RegexChecker.class,
+        "regex",
+        "-AskipIrrelevantFiles");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"regex-skipirrelevantfiles", "regex"};
+  }
+}
@@ -0,0 +1,28 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.checker.tainting.TaintingChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Tainting Checker -- testing {@code -AflowSkipTrivialMethods} command-line
+ * argument.
+ */
+public class TaintingSkipTrivialMethodsTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a TaintingSkipTrivialMethodsTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public TaintingSkipTrivialMethodsTest(List<File> testFiles) {
+    super(testFiles, TaintingChecker.class, "tainting", "-AflowSkipTrivialMethods");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"tainting-skiptrivialmethods", "tainting", "all-systems"};
+  }
+}
@@ -0,0 +1,21 @@
+// Test case for -AskipIrrelevantFiles with an aggregate checker.  This file uses strings, so none
+// of the checkers skips it, even though it is compiled together with a file that some of them
+// skip.
+
+import org.checkerframework.checker.i18n.qual.Localized;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.checker.regex.qual.Regex;
+
+public class NoCheckerSkips {
+  // :: error: (assignment)
+  @Regex String regex = "De(mo";
+
+  void localized(@Localized String s) {}
+
+  void method(@Nullable OnlySomeCheckersSkip other) {
+    // :: error: (argument)
+    localized("ldskjfldj");
+    // :: error: (dereference.of.nullable)
+    other.nextCount();
+  }
+}
@@ -0,0 +1,16 @@
+// Test case for -AskipIrrelevantFiles with an aggregate checker.  No tree in this file is relevant
+// to the Regex Checker or to the I18n Checker's I18nSubchecker, so they skip it, but the Nullness
+// Checker and the Fenum Checker, which have no relevant Java types, still type-check it.
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+public class OnlySomeCheckersSkip {
+  @Nullable OnlySomeCheckersSkip next;
+
+  int count;
+
+  int nextCount() {
+    // :: error: (dereference.of.nullable)
+    return next.count;
+  }
+}
@@ -0,0 +1,44 @@
+// Test case for -AflowSkipTrivialMethods: the Nullness Checker's transfer function refines the
+// result of Map.get for a @KeyFor key, so a method that only returns it must still be analyzed.
+
+import java.util.HashMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.KeyFor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+public class TrivialKeyForGet<K, V extends Object> {
+
+  private final Map<K, V> map = new HashMap<>();
+
+  @Nullable V value;
+
+  V get(Map<K, V> m, @KeyFor("#1") K k) {
+    return m.get(k);
+  }
+
+  V getFromField(@KeyFor("this.map") K k) {
+    return map.get(k);
+  }
+
+  V getUnchecked(Map<K, V> m, K k) {
+    // :: error: (return)
+    return m.get(k);
+  }
+
+  void set(Map<K, V> m, @KeyFor("#1") K k) {
+    this.value = m.get(k);
+  }
+
+  String stringOf(Object o) {
+    return o.toString();
+  }
+
+  @Nullable V getValue() {
+    return value;
+  }
+
+  V getValueUnchecked() {
+    // :: error: (return)
+    return value;
+  }
+}
@@ -0,0 +1,12 @@
+// Test case for -AskipIrrelevantFiles.  This file uses strings, so the Regex Checker must not skip
+// it, even though it is compiled together with files that it skips.
+
+import org.checkerframework.checker.regex.qual.Regex;
+
+public class RelevantFile {
+  void method(SkippedFile skipped) {
+    skipped.add(skipped);
+    // :: error: (assignment)
+    @Regex String s = "De(mo";
+  }
+}
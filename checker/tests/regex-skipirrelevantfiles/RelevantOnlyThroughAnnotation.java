@@ -0,0 +1,13 @@
+// Test case for -AskipIrrelevantFiles.  The only thing in this file that is relevant to the Regex
+// Checker is a regex annotation on an irrelevant type, so the Regex Checker must not skip it.
+
+import org.checkerframework.checker.regex.qual.Regex;
+
+public class RelevantOnlyThroughAnnotation {
+  // :: error: (anno.on.irrelevant)
+  @Regex int i;
+
+  int twice() {
+    return 2 * i;
+  }
+}
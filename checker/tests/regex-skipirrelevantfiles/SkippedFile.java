@@ -0,0 +1,21 @@
+// Test case for -AskipIrrelevantFiles.  No tree in this file has a type that is relevant to the
+// Regex Checker, and the file contains no regex annotation, so the Regex Checker skips it.
+
+public class SkippedFile {
+  int count;
+
+  long total;
+
+  SkippedFile(int count) {
+    this.count = count;
+  }
+
+  int sum(int a, long b) {
+    return a + (int) b + count;
+  }
+
+  void add(SkippedFile other) {
+    count += other.count;
+    total = total + sum(other.count, other.total);
+  }
+}
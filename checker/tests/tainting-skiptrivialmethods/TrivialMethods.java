@@ -0,0 +1,56 @@
+// Test case for -AflowSkipTrivialMethods: the Tainting Checker uses the default transfer function,
+// so the dataflow analysis of these methods is skipped, and they must be checked as usual.
+
+import org.checkerframework.checker.tainting.qual.Tainted;
+import org.checkerframework.checker.tainting.qual.Untainted;
+
+public class TrivialMethods {
+
+  @Untainted String untainted;
+
+  @Tainted String tainted;
+
+  @Untainted String getUntainted() {
+    return untainted;
+  }
+
+  @Untainted String getTainted() {
+    // :: error: (return)
+    return tainted;
+  }
+
+  void setUntainted(@Untainted String s) {
+    this.untainted = s;
+  }
+
+  void setTainted(@Tainted String s) {
+    // :: error: (assignment)
+    this.untainted = s;
+  }
+
+  @Untainted String delegate(@Untainted String s) {
+    return getUntainted();
+  }
+
+  @Untainted String concat(@Untainted String s) {
+    return s + untainted;
+  }
+
+  @Untainted String concatTainted(@Untainted String s) {
+    // :: error: (return)
+    return s + tainted;
+  }
+
+  void consume(@Untainted String s) {}
+
+  void pass(@Tainted String s) {
+    // :: error: (argument)
+    consume(s);
+  }
+
+  // Not trivial: dataflow analysis refines the local variable.
+  @Untainted String refined(@Untainted String s) {
+    @Tainted String local = s;
+    return local;
+  }
+}
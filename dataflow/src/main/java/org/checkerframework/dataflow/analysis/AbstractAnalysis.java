@@ -3,13 +3,15 @@ package org.checkerframework.dataflow.analysis;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.StringJoiner;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
 import org.checkerframework.checker.interning.qual.FindDistinct;
@@ -64,8 +66,28 @@ public abstract class AbstractAnalysis<
   /** The worklist used for the fix-point iteration. */
   protected final Worklist worklist;
 
-  /** Abstract values of nodes. */
-  protected final IdentityHashMap<Node, V> nodeValues = new IdentityHashMap<>();
+  /**
+   * Abstract values of the nodes of {@link #cfg}, indexed by {@link Node#getId}. The node whose
+   * value is at an index is at the same index of {@link #nodesById}, because a node of another
+   * control flow graph may have the same ID. Use {@link #getValueById} and {@link #putNodeValue} to
+   * access the node values.
+   */
+  private @Nullable Object[] valuesById = new Object[0];
+
+  /** The node whose abstract value is at each index of {@link #valuesById}, or null. */
+  private @Nullable Node[] nodesById = new Node[0];
+
+  /**
+   * Abstract values of nodes that have no slot in {@link #valuesById}, such as the nodes of other
+   * control flow graphs that {@link #setNodeValues} received.
+   */
+  private final IdentityHashMap<Node, V> otherNodeValues = new IdentityHashMap<>();
+
+  /**
+   * The map returned by {@link #getNodeValues}, which {@link #putNodeValue} keeps up to date, or
+   * null if it has not been built since the node values were last cleared.
+   */
+  private @Nullable IdentityHashMap<Node, V> nodeValuesMap;
 
   /** Map from (effectively final) local variable elements to their abstract value. */
   protected final HashMap<VariableElement, V> finalLocalValues = new HashMap<>();
@@ -175,7 +197,7 @@ public abstract class AbstractAnalysis<
     if (getResultCache == null) {
       getResultCache =
           new AnalysisResult<>(
-              nodeValues,
+              getNodeValues(),
               inputs,
               cfg.getTreeLookup(),
               cfg.getPostfixNodeLookup(),
@@ -207,16 +229,91 @@ public abstract class AbstractAnalysis<
       }
       // fall through when the current node is not 'n', and 'n' is not a subnode.
     }
-    return nodeValues.get(n);
+    return getValueById(n);
+  }
+
+  /**
+   * Returns the abstract value of the given node, without regard to whether the analysis is
+   * running.
+   *
+   * @param n a node
+   * @return the abstract value of {@code n}, or null if it has none
+   */
+  @SuppressWarnings("unchecked") // valuesById only holds values of type V
+  private @Nullable V getValueById(Node n) {
+    int id = n.getId();
+    if (id >= 0 && id < nodesById.length && nodesById[id] == n) {
+      return (V) valuesById[id];
+    }
+    return otherNodeValues.get(n);
   }
 
   /**
-   * Returns all current node values.
+   * Sets the abstract value of the given node.
    *
-   * @return {@link #nodeValues}
+   * @param n a node
+   * @param value the new abstract value of {@code n}
+   * @return the previous abstract value of {@code n}, or null if it had none
+   */
+  @SuppressWarnings("unchecked") // valuesById only holds values of type V
+  private @Nullable V putNodeValue(Node n, V value) {
+    if (nodeValuesMap != null) {
+      nodeValuesMap.put(n, value);
+    }
+    int id = n.getId();
+    if (id >= 0 && id < nodesById.length) {
+      Node owner = nodesById[id];
+      if (owner == null || owner == n) {
+        Object oldValue = valuesById[id];
+        nodesById[id] = n;
+        valuesById[id] = value;
+        return (V) oldValue;
+      }
+    }
+    return otherNodeValues.put(n, value);
+  }
+
+  /**
+   * Removes all abstract values of nodes, and makes room for the nodes of the given control flow
+   * graph.
+   *
+   * @param cfg the control flow graph whose nodes will get abstract values, or null
+   */
+  private void clearNodeValues(@Nullable ControlFlowGraph cfg) {
+    int nodeCount = cfg == null ? 0 : cfg.getNodeCount();
+    if (nodesById.length == nodeCount) {
+      Arrays.fill(valuesById, null);
+      Arrays.fill(nodesById, null);
+    } else {
+      valuesById = new Object[nodeCount];
+      nodesById = new Node[nodeCount];
+    }
+    otherNodeValues.clear();
+    nodeValuesMap = null;
+  }
+
+  /**
+   * Returns all current node values. The map is built the first time this method is called for a
+   * control flow graph; afterward, the analysis updates both the map and its arrays, so analyses
+   * that never call this method store node values only in arrays. Clients must not modify the map.
+   *
+   * @return all current node values
    */
   public IdentityHashMap<Node, V> getNodeValues() {
-    return nodeValues;
+    if (nodeValuesMap == null) {
+      IdentityHashMap<Node, V> map = new IdentityHashMap<>(otherNodeValues);
+      for (int i = 0; i < nodesById.length; i++) {
+        Node n = nodesById[i];
+        if (n != null) {
+          @SuppressWarnings("unchecked") // valuesById only holds values of type V
+          V value = (V) valuesById[i];
+          assert value != null : "@AssumeAssertion(nullness): a node's slot holds its value";
+          map.put(n, value);
+        }
+      }
+      nodeValuesMap = map;
+    }
+    return nodeValuesMap;
   }
 
   /**
@@ -227,13 +324,15 @@ public abstract class AbstractAnalysis<
   @SuppressWarnings("interning:not.interned") // see comment about if-check below
   /*package-private*/ void setNodeValues(IdentityHashMap<Node, V> in) {
     assert !isRunning;
-    // The if-check below is not just an optimization.  Without it, this method misbehaves
-    // when `in` and `nodeValues` alias: the call to `clear()` clears BOTH objects.  There
-    // are some places where `this.nodeValues` flows to the `in` argument (through several
-    // other layers of abstraction).
-    if (nodeValues != in) {
-      nodeValues.clear();
-      nodeValues.putAll(in);
+    // There are some places where the map returned by getNodeValues() flows to the `in`
+    // argument (through several other layers of abstraction); then `in` already holds the
+    // current node values.  Otherwise, clearNodeValues() detaches that map rather than clearing
+    // it, so `in` is intact even if it wraps that map.
+    if (nodeValuesMap != in) {
+      clearNodeValues(cfg);
+      for (Map.Entry<Node, V> entry : in.entrySet()) {
+        putNodeValue(entry.getKey(), entry.getValue());
+      }
     }
   }
 
@@ -443,14 +542,14 @@ public abstract class AbstractAnalysis<
   @EnsuresNonNull("this.cfg")
   protected void initFields(ControlFlowGraph cfg) {
     inputs.clear();
-    nodeValues.clear();
+    clearNodeValues(cfg);
     finalLocalValues.clear();
     this.cfg = cfg;
     getResultCache = null;
   }
 
   /**
-   * Updates the value of node {@code node} in {@link #nodeValues} to the value of the {@code
+   * Updates the value of node {@code node} in the node values to the value of the {@code
    * transferResult}. Returns true if the node's value changed, or a store was updated.
    *
    * @param node the node to update
@@ -461,8 +560,7 @@ public abstract class AbstractAnalysis<
     V newVal = transferResult.getResultValue();
     boolean nodeValueChanged = false;
     if (newVal != null) {
-      V oldVal = nodeValues.get(node);
-      nodeValues.put(node, newVal);
+      V oldVal = putNodeValue(node, newVal);
       nodeValueChanged = !Objects.equals(oldVal, newVal);
     }
     return nodeValueChanged || transferResult.storeChanged();
@@ -475,60 +573,27 @@ public abstract class AbstractAnalysis<
    * @param b the block to add to {@link #worklist}
    */
   protected void addToWorklist(Block b) {
-    // TODO: This costs linear (!) time.  Use a more efficient way to check if b is already
-    // present.
-    // Two possibilities:
-    //  * add unconditionally, and detect duplicates when removing from the queue.
-    //  * maintain a HashSet of the elements that are already in the queue.
-    if (!worklist.contains(b)) {
-      worklist.add(b);
-    }
+    worklist.add(b);
   }
 
   /**
    * A worklist is a priority queue of blocks in which the order is given by depth-first ordering to
    * place non-loop predecessors ahead of successors.
+   *
+   * <p>The blocks are identified by their {@link Block#getIndex index}, which is their position in
+   * the depth-first order, so the worklist is a bit set: membership tests and insertions take
+   * constant time, and removal scans for the next set bit.
    */
   protected static class Worklist {
 
-    /** Map all blocks in the CFG to their depth-first order. */
-    protected final IdentityHashMap<Block, Integer> depthFirstOrder = new IdentityHashMap<>();
-
-    /**
-     * Comparators to allow priority queue to order blocks by their depth-first order, using by
-     * forward analysis.
-     */
-    public class ForwardDfoComparator implements Comparator<Block> {
-      /** Creates a new ForwardDfoComparator. */
-      public ForwardDfoComparator() {}
-
-      @SuppressWarnings("nullness:unboxing.of.nullable")
-      @Override
-      public int compare(Block b1, Block b2) {
-        return depthFirstOrder.get(b1) - depthFirstOrder.get(b2);
-      }
-    }
-
-    /**
-     * Comparators to allow priority queue to order blocks by their depth-first order, using by
-     * backward analysis.
-     */
-    public class BackwardDfoComparator implements Comparator<Block> {
-      /** Creates a new BackwardDfoComparator. */
-      public BackwardDfoComparator() {}
-
-      @SuppressWarnings("nullness:unboxing.of.nullable")
-      @Override
-      public int compare(Block b1, Block b2) {
-        return depthFirstOrder.get(b2) - depthFirstOrder.get(b1);
-      }
-    }
+    /** The direction of the analysis. */
+    protected final Direction direction;
 
-    /** The backing priority queue. */
-    protected final PriorityQueue<Block> queue;
+    /** The reachable blocks of the CFG, indexed by {@link Block#getIndex}. */
+    protected Block[] blocks = new Block[0];
 
-    /** Contains the same elements as {@link #queue}, for faster lookup. */
-    protected final Set<Block> queueSet;
+    /** The indexes of the blocks in this worklist. */
+    protected final BitSet members = new BitSet();
 
     /**
      * Create a Worklist.
@@ -536,48 +601,47 @@ public abstract class AbstractAnalysis<
      * @param direction the direction (forward or backward)
      */
     public Worklist(Direction direction) {
-      if (direction == Direction.FORWARD) {
-        queue = new PriorityQueue<>(new ForwardDfoComparator());
-        queueSet = new HashSet<>();
-      } else if (direction == Direction.BACKWARD) {
-        queue = new PriorityQueue<>(new BackwardDfoComparator());
-        queueSet = new HashSet<>();
-      } else {
+      if (direction != Direction.FORWARD && direction != Direction.BACKWARD) {
         throw new BugInCF("Unexpected Direction: " + direction.name());
       }
+      this.direction = direction;
     }
 
     /**
      * Process the control flow graph.
      *
-     * <p>This implementation sets the depth-first order for each block, by adding the blocks to
-     * {@link #depthFirstOrder}.
+     * <p>This implementation gets the blocks of the graph, numbered in depth-first order, and
+     * empties this worklist.
      *
      * @param cfg the control flow graph to process
      */
     public void process(ControlFlowGraph cfg) {
-      depthFirstOrder.clear();
-      int count = 1;
-      for (Block b : cfg.getDepthFirstOrderedBlocks()) {
-        depthFirstOrder.put(b, count++);
-      }
+      blocks = cfg.getNumberedBlocks().toArray(new Block[0]);
+      members.clear();
+    }
 
-      queue.clear();
-      queueSet.clear();
+    /**
+     * Returns true if the given block is reachable in the control flow graph, that is, if it can be
+     * added to this worklist.
+     *
+     * @param block a block
+     * @return true if the given block is reachable in the control flow graph
+     */
+    public boolean isReachable(Block block) {
+      int index = block.getIndex();
+      return index >= 0 && index < blocks.length && blocks[index] == block;
     }
 
     /**
-     * See {@link PriorityQueue#isEmpty}.
+     * Returns true if this Worklist is empty.
      *
-     * @see PriorityQueue#isEmpty
      * @return true if this Worklist is empty
      */
     @Pure
     @EnsuresNonNullIf(result = false, expression = "poll()")
     @SuppressWarnings("nullness:contracts.conditional.postcondition") // forwarded
     public boolean isEmpty() {
-      assert queue.isEmpty() == queueSet.isEmpty();
-      return queue.isEmpty();
+      return members.isEmpty();
     }
 
     /**
@@ -587,50 +651,73 @@ public abstract class AbstractAnalysis<
      * @return true if this Worklist contains the given block
      */
     public boolean contains(Block block) {
-      return queueSet.contains(block);
+      return isReachable(block) && members.get(block.getIndex());
     }
 
     /**
-     * Add the given block to this Worklist. Adds unconditionally: does not check containment first.
+     * Add the given block to this Worklist. Does nothing if the block is already in this Worklist.
      *
      * @param block the block to add to this Worklist
      */
     public void add(Block block) {
-      queue.add(block);
-      queueSet.add(block);
+      if (!isReachable(block)) {
+        throw new BugInCF("Block %s is not a reachable block of the control flow graph", block);
+      }
+      members.set(block.getIndex());
     }
 
     /**
-     * Returns the head of this Worklist.
+     * Returns the index of the head of this Worklist, or -1 if it is empty.
      *
-     * @see PriorityQueue#poll
-     * @return the head of this Worklist
+     * @return the index of the head of this Worklist, or -1 if it is empty
+     */
+    private int headIndex() {
+      return direction == Direction.FORWARD
+          ? members.nextSetBit(0)
+          : members.previousSetBit(blocks.length - 1);
+    }
+
+    /**
+     * Removes and returns the head of this Worklist, or returns null if it is empty.
+     *
+     * @return the head of this Worklist, or null if it is empty
      */
     @Pure
     public @Nullable Block poll() {
-      Block result = queue.poll();
-      if (result != null) {
-        queueSet.remove(result);
+      int index = headIndex();
+      if (index < 0) {
+        return null;
       }
-      return result;
+      members.clear(index);
+      return blocks[index];
     }
 
     /**
-     * Returns the head of this Worklist.
+     * Removes and returns the head of this Worklist.
      *
-     * @see PriorityQueue#remove
      * @return the head of this Worklist
+     * @throws NoSuchElementException if this Worklist is empty
      */
     @Pure
     public Block remove() {
-      Block result = queue.remove();
-      queueSet.remove(result);
+      Block result = poll();
+      if (result == null) {
+        throw new NoSuchElementException();
+      }
       return result;
     }
 
     @Override
     public String toString() {
-      return "Worklist(" + queue + ")";
+      StringJoiner result = new StringJoiner(", ", "Worklist([", "])");
+      for (int i = headIndex(); i >= 0; ) {
+        result.add(blocks[i].toString());
+        i =
+            direction == Direction.FORWARD
+                ? members.nextSetBit(i + 1)
+                : members.previousSetBit(i - 1);
+      }
+      return result.toString();
     }
   }
 }
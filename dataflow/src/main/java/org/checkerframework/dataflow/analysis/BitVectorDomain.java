@@ -0,0 +1,128 @@
+package org.checkerframework.dataflow.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.interning.qual.UsesObjectEquals;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The elements that a gen/kill analysis has seen in one control flow graph, such as the variables
+ * of a live variable analysis, numbered densely so that a {@link BitVectorStore} can represent a
+ * set of them as bits. Elements are numbered in the order in which they are first added; equal
+ * elements get the same number.
+ *
+ * <p>Each element is also associated with the keys that kill it: for example, a definition is
+ * killed by the variable it assigns, and an expression by each variable it reads. {@link
+ * #getKillSet} returns the bits of all elements that a key kills.
+ *
+ * @param <E> the type of the elements
+ * @param <K> the type of the keys that kill elements
+ */
+@UsesObjectEquals
+public final class BitVectorDomain<E, K> {
+
+  /** The empty bit vector. */
+  private static final long[] EMPTY = new long[0];
+
+  /** The number of each element. */
+  private final Map<E, Integer> indexes = new HashMap<>();
+
+  /** The elements, indexed by their numbers. */
+  private final List<E> elements = new ArrayList<>();
+
+  /** For each key, the bits of the elements that it kills. */
+  private final Map<K, long[]> killSets = new HashMap<>();
+
+  /**
+   * The gen and kill sets that {@link GenKillTransfer} has computed for the nodes of the control
+   * flow graph, indexed by {@link org.checkerframework.dataflow.cfg.node.Node#getId}. They are kept
+   * with the domain, rather than in the transfer function, because node numbers are only unique
+   * within one control flow graph, and the transfer function may analyze several.
+   */
+  final List<@Nullable Object> genKillCache = new ArrayList<>();
+
+  /** Creates a new, empty BitVectorDomain. */
+  public BitVectorDomain() {}
+
+  /**
+   * Returns the number of elements.
+   *
+   * @return the number of elements
+   */
+  public int size() {
+    return elements.size();
+  }
+
+  /**
+   * Returns the element with the given number.
+   *
+   * @param index the number of an element
+   * @return the element with number {@code index}
+   */
+  public E getElement(int index) {
+    return elements.get(index);
+  }
+
+  /**
+   * Returns the number of the given element, or -1 if it has not been added.
+   *
+   * @param element an element
+   * @return the number of {@code element}, or -1 if it has not been added
+   */
+  public int getIndex(E element) {
+    Integer index = indexes.get(element);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Adds the given element, if it has not been added yet, and returns its number.
+   *
+   * @param element an element
+   * @param killers the keys that kill {@code element}; ignored if it has already been added
+   * @return the number of {@code element}
+   */
+  public int add(E element, Collection<? extends K> killers) {
+    Integer index = indexes.get(element);
+    if (index != null) {
+      return index;
+    }
+    int newIndex = elements.size();
+    elements.add(element);
+    indexes.put(element, newIndex);
+    for (K key : killers) {
+      long[] killSet = killSets.get(key);
+      if (killSet == null || killSet.length <= (newIndex >>> 6)) {
+        killSet = killSet == null ? new long[(newIndex >>> 6) + 1] : grow(killSet, newIndex);
+        killSets.put(key, killSet);
+      }
+      killSet[newIndex >>> 6] |= 1L << newIndex;
+    }
+    return newIndex;
+  }
+
+  /**
+   * Returns the bits of the elements that the given key kills. The result must not be modified.
+   *
+   * @param key a key
+   * @return the bits of the elements that {@code key} kills
+   */
+  public long[] getKillSet(K key) {
+    long[] killSet = killSets.get(key);
+    return killSet == null ? EMPTY : killSet;
+  }
+
+  /**
+   * Returns a copy of {@code bits} that is long enough to hold bit {@code index}.
+   *
+   * @param bits a bit vector
+   * @param index the number of an element
+   * @return a copy of {@code bits} that has a word for {@code index}
+   */
+  static long[] grow(long[] bits, int index) {
+    return Arrays.copyOf(bits, Math.max((index >>> 6) + 1, bits.length * 2));
+  }
+}
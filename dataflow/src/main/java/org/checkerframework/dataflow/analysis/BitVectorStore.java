@@ -0,0 +1,225 @@
+package org.checkerframework.dataflow.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.expression.JavaExpression;
+import org.checkerframework.javacutil.BugInCF;
+
+/**
+ * A store of a gen/kill analysis: a set of elements of a {@link BitVectorDomain}, represented as a
+ * bit vector. Copying, comparing, and joining stores take one operation per 64 elements of the
+ * domain, and adding or killing an element takes constant time.
+ *
+ * <p>All stores of one analysis of a control flow graph must share the same domain. The bit vector
+ * grows as the domain does; bits beyond its end are zero.
+ *
+ * @param <E> the type of the elements
+ * @param <K> the type of the keys that kill elements
+ * @param <S> the type of the store
+ */
+public abstract class BitVectorStore<E, K, S extends BitVectorStore<E, K, S>>
+    implements Store<S> {
+
+  /** How the least upper bound of two stores combines their elements. */
+  public enum Join {
+    /** The least upper bound contains the elements of either store, as in a "may" analysis. */
+    UNION,
+    /** The least upper bound contains the elements of both stores, as in a "must" analysis. */
+    INTERSECTION
+  }
+
+  /** The domain of the elements. */
+  protected final BitVectorDomain<E, K> domain;
+
+  /** How the least upper bound of two stores combines their elements. */
+  private final Join join;
+
+  /** The bits of the elements in this store, indexed by their numbers in {@link #domain}. */
+  private long[] bits;
+
+  /**
+   * Creates a new BitVectorStore.
+   *
+   * @param domain the domain of the elements
+   * @param join how the least upper bound of two stores combines their elements
+   * @param bits the bits of the elements in the store. The parameter is captured and the caller
+   *     should not retain an alias.
+   */
+  protected BitVectorStore(BitVectorDomain<E, K> domain, Join join, long[] bits) {
+    this.domain = domain;
+    this.join = join;
+    this.bits = bits;
+  }
+
+  /**
+   * Creates a new store of the same class and domain as this one.
+   *
+   * @param bits the bits of the elements in the new store. The parameter is captured and the
+   *     caller should not retain an alias.
+   * @return a new store with the given elements
+   */
+  protected abstract S create(long[] bits);
+
+  /**
+   * Returns true if this store contains the given element.
+   *
+   * @param element an element
+   * @return true if this store contains {@code element}
+   */
+  public boolean contains(E element) {
+    int index = domain.getIndex(element);
+    return index >= 0 && (index >>> 6) < bits.length && (bits[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * Adds the given element to this store.
+   *
+   * @param element an element
+   * @param killers the keys that kill {@code element}
+   */
+  public void gen(E element, Collection<? extends K> killers) {
+    int index = domain.add(element, killers);
+    if ((index >>> 6) >= bits.length) {
+      bits = BitVectorDomain.grow(bits, index);
+    }
+    bits[index >>> 6] |= 1L << index;
+  }
+
+  /**
+   * Adds the elements whose bits are set in {@code genSet} to this store.
+   *
+   * @param genSet the bits of elements of {@link #domain}
+   */
+  void genAll(long[] genSet) {
+    if (genSet.length > bits.length) {
+      bits = Arrays.copyOf(bits, genSet.length);
+    }
+    for (int i = 0; i < genSet.length; i++) {
+      bits[i] |= genSet[i];
+    }
+  }
+
+  /**
+   * Removes the elements that the given key kills from this store.
+   *
+   * @param key a key
+   */
+  public void kill(K key) {
+    long[] killSet = domain.getKillSet(key);
+    int length = Math.min(bits.length, killSet.length);
+    for (int i = 0; i < length; i++) {
+      bits[i] &= ~killSet[i];
+    }
+  }
+
+  /**
+   * Returns the elements of this store, in the order of their numbers.
+   *
+   * @return the elements of this store
+   */
+  public List<E> getElements() {
+    List<E> result = new ArrayList<>();
+    for (int i = 0; i < bits.length; i++) {
+      long word = bits[i];
+      while (word != 0) {
+        result.add(domain.getElement((i << 6) + Long.numberOfTrailingZeros(word)));
+        word &= word - 1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if this store contains no elements.
+   *
+   * @return true if this store contains no elements
+   */
+  public boolean isEmpty() {
+    for (long word : bits) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public S copy() {
+    return create(bits.clone());
+  }
+
+  @Override
+  public S leastUpperBound(S other) {
+    BitVectorStore<E, K, S> that = other;
+    long[] lub;
+    if (join == Join.UNION) {
+      lub = Arrays.copyOf(bits, Math.max(bits.length, that.bits.length));
+      for (int i = 0; i < that.bits.length; i++) {
+        lub[i] |= that.bits[i];
+      }
+    } else {
+      lub = Arrays.copyOf(bits, Math.min(bits.length, that.bits.length));
+      for (int i = 0; i < lub.length; i++) {
+        lub[i] &= that.bits[i];
+      }
+    }
+    return create(lub);
+  }
+
+  /** It should not be called, because a gen/kill analysis reaches a fixed point without it. */
+  @Override
+  public S widenedUpperBound(S previous) {
+    throw new BugInCF(getClass().getSimpleName() + ".widenedUpperBound was called!");
+  }
+
+  @Override
+  public boolean canAlias(JavaExpression a, JavaExpression b) {
+    return true;
+  }
+
+  /**
+   * Returns the number of words of {@link #bits}, not counting trailing zero words.
+   *
+   * @return the number of significant words of {@link #bits}
+   */
+  private int significantLength() {
+    int length = bits.length;
+    while (length > 0 && bits[length - 1] == 0) {
+      length--;
+    }
+    return length;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    if (obj == null || obj.getClass() != getClass()) {
+      return false;
+    }
+    BitVectorStore<?, ?, ?> other = (BitVectorStore<?, ?, ?>) obj;
+    if (other.domain != domain) {
+      return false;
+    }
+    int length = significantLength();
+    if (length != other.significantLength()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (bits[i] != other.bits[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 1;
+    for (int i = 0, length = significantLength(); i < length; i++) {
+      result = 31 * result + Long.hashCode(bits[i]);
+    }
+    return result;
+  }
+}
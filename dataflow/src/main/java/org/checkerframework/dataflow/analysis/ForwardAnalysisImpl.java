@@ -61,6 +61,12 @@ public class ForwardAnalysisImpl<
   /** The stores after every return statement. */
   protected final IdentityHashMap<ReturnNode, TransferResult<V, S>> storesAtReturnStatements;
 
+  /**
+   * How many nodes apart, within a block, are the transfer results that {@link #runAnalysisFor}
+   * caches. See {@link #setCheckpointInterval}.
+   */
+  protected int checkpointInterval = 1;
+
   // `@code`, not `@link`, because dataflow module doesn't depend on framework module.
   /**
    * Construct an object that can perform a org.checkerframework.dataflow forward analysis over a
@@ -89,6 +95,28 @@ public class ForwardAnalysisImpl<
     this.transferFunction = transferFunction;
   }
 
+  /**
+   * Sets how many nodes apart, within a block, are the transfer results that {@link
+   * #runAnalysisFor} caches, if it is given a cache. The results act as checkpoints: a query for
+   * the store before or after a node re-runs the transfer function from the closest cached result
+   * that precedes the node, instead of from the start of its block.
+   *
+   * <p>With the default interval of 1, the result of every node that {@link #runAnalysisFor}
+   * analyzes is cached, and a query for a node that has already been analyzed re-runs nothing.
+   * With an interval of {@code k}, only the result of every {@code k}th node of a block is cached,
+   * which uses {@code k} times less memory, and a query re-runs the transfer function on fewer than
+   * {@code k} nodes once the checkpoints before its node are cached.
+   *
+   * @param checkpointInterval how many nodes apart the cached transfer results are; must be
+   *     positive
+   */
+  public void setCheckpointInterval(int checkpointInterval) {
+    if (checkpointInterval <= 0) {
+      throw new BugInCF("checkpointInterval must be positive: " + checkpointInterval);
+    }
+    this.checkpointInterval = checkpointInterval;
+  }
+
   @Override
   public void performAnalysis(ControlFlowGraph cfg) {
     if (isRunning) {
@@ -258,31 +286,49 @@ public class ForwardAnalysisImpl<
         case REGULAR_BLOCK:
           {
             RegularBlock rb = (RegularBlock) block;
-            // Apply transfer function to contents until we found the node we are
-            // looking for.
+            List<Node> nodes = rb.getNodes();
+            int position = positionInBlock(node, nodes);
+            if (position == -1) {
+              throw new BugInCF("node %s is not in node.getBlock()=%s", node, block);
+            }
+            // The position of the last node whose transfer result is needed.
+            int last = preOrPost == Analysis.BeforeOrAfter.BEFORE ? position - 1 : position;
+
+            // Resume from the closest cached checkpoint at or before `last`, if any.
             TransferInput<V, S> store = blockTransferInput;
-            TransferResult<V, S> transferResult;
-            for (Node n : rb.getNodes()) {
-              setCurrentNode(n);
-              if (n == node && preOrPost == Analysis.BeforeOrAfter.BEFORE) {
-                return store.getRegularStore();
-              }
-              if (cache != null && cache.containsKey(n)) {
-                transferResult = cache.get(n);
-              } else {
-                // Copy the store to avoid changing other blocks' transfer inputs in
-                // {@link #inputs}
-                transferResult = callTransferFunction(n, store.copy());
-                if (cache != null) {
-                  cache.put(n, transferResult);
+            TransferResult<V, S> transferResult = null;
+            int start = 0;
+            if (cache != null) {
+              for (int c = last - (last + 1) % checkpointInterval;
+                  c >= 0;
+                  c -= checkpointInterval) {
+                transferResult = cache.get(nodes.get(c));
+                if (transferResult != null) {
+                  store = new TransferInput<>(nodes.get(c), this, transferResult);
+                  start = c + 1;
+                  break;
                 }
               }
-              if (n == node) {
-                return transferResult.getRegularStore();
+            }
+
+            // Apply transfer function to the following nodes, up to the node we are looking for.
+            for (int i = start; i <= last; i++) {
+              Node n = nodes.get(i);
+              setCurrentNode(n);
+              // Copy the store to avoid changing other blocks' transfer inputs in {@link #inputs}
+              transferResult = callTransferFunction(n, store.copy());
+              if (cache != null && (i + 1) % checkpointInterval == 0) {
+                cache.put(n, transferResult);
               }
               store = new TransferInput<>(n, this, transferResult);
             }
-            throw new BugInCF("node %s is not in node.getBlock()=%s", node, block);
+
+            if (preOrPost == Analysis.BeforeOrAfter.BEFORE) {
+              return store.getRegularStore();
+            }
+            assert transferResult != null
+                : "@AssumeAssertion(nullness): the node itself was looked up or analyzed";
+            return transferResult.getRegularStore();
           }
         case EXCEPTION_BLOCK:
           {
@@ -324,6 +370,29 @@ public class ForwardAnalysisImpl<
     }
   }
 
+  /**
+   * Returns the position of a node in the list of nodes of its block.
+   *
+   * @param node a node
+   * @param nodes the nodes of the block of {@code node}
+   * @return the position of {@code node} in {@code nodes}, or -1 if it is not in the list
+   */
+  private static int positionInBlock(@FindDistinct Node node, List<Node> nodes) {
+    // The nodes of a block have consecutive IDs, if they have been numbered.
+    if (node.getId() >= 0 && !nodes.isEmpty()) {
+      int position = node.getId() - nodes.get(0).getId();
+      if (position >= 0 && position < nodes.size() && nodes.get(position) == node) {
+        return position;
+      }
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      if (nodes.get(i) == node) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   @Override
   protected void initFields(ControlFlowGraph cfg) {
     thenStores.clear();
@@ -0,0 +1,156 @@
+package org.checkerframework.dataflow.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.node.AbstractNodeVisitor;
+import org.checkerframework.dataflow.cfg.node.Node;
+
+/**
+ * A transfer function of a gen/kill analysis, whose stores are {@link BitVectorStore}s. The
+ * transfer function of a node removes the elements that the node kills from the store, and then
+ * adds the elements that the node generates. Subclasses say which elements those are in {@link
+ * #computeGenKill}. The result is computed once per node and cached, so re-analyzing a node during
+ * the fixed-point iteration only takes a few bitwise operations per word of the store.
+ *
+ * <p>A subclass creates the initial stores with {@link #getDomain}, which starts a new numbering
+ * of the elements for each control flow graph. The cached gen and kill sets are kept in the domain
+ * of the store being transformed, so the results of one control flow graph remain usable, for
+ * example by {@link AbstractAnalysis#runAnalysisFor}, after another one has been analyzed.
+ *
+ * @param <E> the type of the elements
+ * @param <K> the type of the keys that kill elements
+ * @param <S> the type of the store
+ */
+public abstract class GenKillTransfer<E, K, S extends BitVectorStore<E, K, S>>
+    extends AbstractNodeVisitor<
+        TransferResult<UnusedAbstractValue, S>, TransferInput<UnusedAbstractValue, S>> {
+
+  /** The domain of the most recently created initial stores, or null before the first one. */
+  private @Nullable BitVectorDomain<E, K> lastDomain = null;
+
+  /** The underlying AST of the control flow graph that {@link #lastDomain} belongs to. */
+  private @Nullable UnderlyingAST lastDomainAST = null;
+
+  /** Creates a new GenKillTransfer. */
+  protected GenKillTransfer() {}
+
+  /**
+   * Returns the domain of the elements of the given control flow graph. Creates a new domain if
+   * the previous initial store was created for a different graph, so that the initial stores of
+   * one analysis share their domain.
+   *
+   * @param underlyingAST the underlying AST of the control flow graph being analyzed
+   * @return the domain of the elements of the control flow graph
+   */
+  @SuppressWarnings("interning:not.interned") // Checking for the same control flow graph
+  protected final BitVectorDomain<E, K> getDomain(UnderlyingAST underlyingAST) {
+    BitVectorDomain<E, K> result = lastDomain;
+    if (result == null || underlyingAST != lastDomainAST) {
+      result = new BitVectorDomain<>();
+      lastDomain = result;
+      lastDomainAST = underlyingAST;
+    }
+    return result;
+  }
+
+  /**
+   * Records in {@code genKill} the elements that {@code node} kills and generates.
+   *
+   * @param node a node of the control flow graph being analyzed
+   * @param genKill where to record the elements that {@code node} kills and generates
+   */
+  protected abstract void computeGenKill(Node node, GenKill genKill);
+
+  @Override
+  public RegularTransferResult<UnusedAbstractValue, S> visitNode(
+      Node n, TransferInput<UnusedAbstractValue, S> p) {
+    S store = p.getRegularStore();
+    GenKill genKill = getGenKill(n, store.domain);
+    for (K key : genKill.killKeys) {
+      store.kill(key);
+    }
+    store.genAll(genKill.genSet);
+    return new RegularTransferResult<>(null, store);
+  }
+
+  /**
+   * Returns the gen and kill sets of the given node, computing them if they are not cached in the
+   * domain.
+   *
+   * @param node a node of the control flow graph being analyzed
+   * @param domain the domain of the stores of the control flow graph that contains {@code node}
+   * @return the gen and kill sets of {@code node}
+   */
+  @SuppressWarnings("unchecked") // only this class writes genKillCache, with GenKills of the domain
+  private GenKill getGenKill(Node node, BitVectorDomain<E, K> domain) {
+    List<@Nullable Object> genKillCache = domain.genKillCache;
+    int id = node.getId();
+    if (id >= 0 && id < genKillCache.size()) {
+      GenKill cached = (GenKill) genKillCache.get(id);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    GenKill result = new GenKill(domain);
+    computeGenKill(node, result);
+    if (id >= 0) {
+      while (genKillCache.size() <= id) {
+        genKillCache.add(null);
+      }
+      genKillCache.set(id, result);
+    }
+    return result;
+  }
+
+  /**
+   * The elements that a node generates, and the keys of the elements that it kills. The kill sets
+   * are looked up in the domain whenever the node is analyzed, because elements that are added to
+   * the domain later may be killed by the same keys.
+   */
+  protected final class GenKill {
+
+    /** The domain of the elements. */
+    private final BitVectorDomain<E, K> genKillDomain;
+
+    /** The keys of the elements that the node kills. */
+    private final List<K> killKeys = new ArrayList<>(1);
+
+    /** The bits of the elements that the node generates. */
+    private long[] genSet = new long[0];
+
+    /**
+     * Creates a new, empty GenKill.
+     *
+     * @param genKillDomain the domain of the elements
+     */
+    private GenKill(BitVectorDomain<E, K> genKillDomain) {
+      this.genKillDomain = genKillDomain;
+    }
+
+    /**
+     * Records that the node generates the given element.
+     *
+     * @param element an element
+     * @param killers the keys that kill {@code element}
+     */
+    public void gen(E element, Collection<? extends K> killers) {
+      int index = genKillDomain.add(element, killers);
+      if ((index >>> 6) >= genSet.length) {
+        genSet = BitVectorDomain.grow(genSet, index);
+      }
+      genSet[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Records that the node kills the elements that the given key kills.
+     *
+     * @param key a key
+     */
+    public void kill(K key) {
+      killKeys.add(key);
+    }
+  }
+}
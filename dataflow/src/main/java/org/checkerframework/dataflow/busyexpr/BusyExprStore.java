@@ -1,35 +1,43 @@
 package org.checkerframework.dataflow.busyexpr;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringJoiner;
-import org.checkerframework.checker.nullness.qual.Nullable;
-import org.checkerframework.dataflow.analysis.Store;
+import org.checkerframework.dataflow.analysis.BitVectorDomain;
+import org.checkerframework.dataflow.analysis.BitVectorStore;
 import org.checkerframework.dataflow.cfg.node.BinaryOperationNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.visualize.CFGVisualizer;
-import org.checkerframework.dataflow.expression.JavaExpression;
-import org.checkerframework.javacutil.BugInCF;
 
-/** A busy expression store contains a set of busy expressions represented by nodes. */
-public class BusyExprStore implements Store<BusyExprStore> {
+/**
+ * A busy expression store contains a set of busy expressions represented by nodes. The set is a bit
+ * vector over the expressions of the control flow graph.
+ */
+public class BusyExprStore extends BitVectorStore<BusyExprValue, Node, BusyExprStore> {
 
-  /** A set of busy expression abstract values. */
-  private final Set<BusyExprValue> busyExprValueSet;
+  /**
+   * Create a new, empty BusyExprStore.
+   *
+   * @param domain the expressions of the control flow graph
+   */
+  public BusyExprStore(BitVectorDomain<BusyExprValue, Node> domain) {
+    this(domain, new long[0]);
+  }
 
   /**
    * Create a new BusyExprStore.
    *
-   * @param busyExprValueSet a set of busy expression abstract values. The parameter is captured and
-   *     the caller should not retain an alias.
+   * @param domain the expressions of the control flow graph
+   * @param bits the bits of the busy expressions. The parameter is captured and the caller should
+   *     not retain an alias.
    */
-  public BusyExprStore(Set<BusyExprValue> busyExprValueSet) {
-    this.busyExprValueSet = busyExprValueSet;
+  private BusyExprStore(BitVectorDomain<BusyExprValue, Node> domain, long[] bits) {
+    super(domain, Join.INTERSECTION, bits);
   }
 
-  /** Create a new BusyExprStore. */
-  public BusyExprStore() {
-    busyExprValueSet = new LinkedHashSet<>();
+  @Override
+  protected BusyExprStore create(long[] bits) {
+    return new BusyExprStore(domain, bits);
   }
 
   /**
@@ -38,8 +46,7 @@ public class BusyExprStore implements Store<BusyExprStore> {
    * @param var a variable
    */
   public void killBusyExpr(Node var) {
-    busyExprValueSet.removeIf(
-        busyExprValue -> exprContainsVariable(busyExprValue.busyExpression, var));
+    kill(var);
   }
 
   /**
@@ -61,13 +68,42 @@ public class BusyExprStore implements Store<BusyExprStore> {
     return expr.equals(var);
   }
 
+  /**
+   * Returns the variables of the expression: its operands that are not binary operations
+   * themselves, recursively. An expression is killed when one of them is re-assigned.
+   *
+   * @param expr a busy expression
+   * @return the variables of {@code expr}
+   */
+  static List<Node> getVariables(BinaryOperationNode expr) {
+    List<Node> variables = new ArrayList<>(2);
+    collectVariables(expr, variables);
+    return variables;
+  }
+
+  /**
+   * Adds the variables of the expression to a list.
+   *
+   * @param expr the expression
+   * @param variables the list to which to add the variables of {@code expr}
+   */
+  private static void collectVariables(Node expr, List<Node> variables) {
+    if (expr instanceof BinaryOperationNode) {
+      BinaryOperationNode binaryNode = (BinaryOperationNode) expr;
+      collectVariables(binaryNode.getLeftOperand(), variables);
+      collectVariables(binaryNode.getRightOperand(), variables);
+    } else {
+      variables.add(expr);
+    }
+  }
+
   /**
    * Add busy expression e to busy expression value set.
    *
    * @param e the busy expression to be added
    */
   public void putBusyExpr(BusyExprValue e) {
-    busyExprValueSet.add(e);
+    gen(e, getVariables(e.busyExpression));
   }
 
   /**
@@ -76,46 +112,37 @@ public class BusyExprStore implements Store<BusyExprStore> {
    * @param e the expression to be added
    */
   public void addUseInExpression(Node e) {
+    List<BinaryOperationNode> uses = new ArrayList<>();
+    collectUsesInExpression(e, uses);
+    for (BinaryOperationNode use : uses) {
+      putBusyExpr(new BusyExprValue(use));
+    }
+  }
+
+  /**
+   * Adds an expression and its sub-expressions that are busy expressions to a list.
+   *
+   * @param e an expression
+   * @param uses the list to which to add the busy expressions in {@code e}
+   */
+  static void collectUsesInExpression(Node e, List<BinaryOperationNode> uses) {
     if (e instanceof BinaryOperationNode) {
       BinaryOperationNode binaryNode = (BinaryOperationNode) e;
-      putBusyExpr(new BusyExprValue(binaryNode));
+      uses.add(binaryNode);
       // recursively add expressions
-      addUseInExpression(binaryNode.getLeftOperand());
-      addUseInExpression(binaryNode.getRightOperand());
+      collectUsesInExpression(binaryNode.getLeftOperand(), uses);
+      collectUsesInExpression(binaryNode.getRightOperand(), uses);
     }
   }
 
-  @Override
-  public BusyExprStore copy() {
-    return new BusyExprStore(new LinkedHashSet<>(busyExprValueSet));
-  }
-
-  @Override
-  public BusyExprStore leastUpperBound(BusyExprStore other) {
-    Set<BusyExprValue> busyExprValueSetLub = new LinkedHashSet<>(this.busyExprValueSet);
-    busyExprValueSetLub.retainAll(other.busyExprValueSet);
-
-    return new BusyExprStore(busyExprValueSetLub);
-  }
-
-  @Override
-  public BusyExprStore widenedUpperBound(BusyExprStore previous) {
-    throw new BugInCF("BusyExprStore.widenedUpperBound was called!");
-  }
-
-  @Override
-  public boolean canAlias(JavaExpression a, JavaExpression b) {
-    return true;
-  }
-
   @Override
   public String visualize(CFGVisualizer<?, BusyExprStore, ?> viz) {
     String key = "busy expressions";
-    if (busyExprValueSet.isEmpty()) {
+    if (isEmpty()) {
       return viz.visualizeStoreKeyVal(key, "none");
     }
     StringJoiner sjStoreVal = new StringJoiner(", ");
-    for (BusyExprValue busyExprValue : busyExprValueSet) {
+    for (BusyExprValue busyExprValue : getElements()) {
       sjStoreVal.add(busyExprValue.toString());
     }
     return viz.visualizeStoreKeyVal(key, sjStoreVal.toString());
@@ -123,20 +150,6 @@ public class BusyExprStore implements Store<BusyExprStore> {
 
   @Override
   public String toString() {
-    return busyExprValueSet.toString();
-  }
-
-  @Override
-  public boolean equals(@Nullable Object obj) {
-    if (!(obj instanceof BusyExprStore)) {
-      return false;
-    }
-    BusyExprStore other = (BusyExprStore) obj;
-    return other.busyExprValueSet.equals(this.busyExprValueSet);
-  }
-
-  @Override
-  public int hashCode() {
-    return this.busyExprValueSet.hashCode();
+    return getElements().toString();
   }
 }
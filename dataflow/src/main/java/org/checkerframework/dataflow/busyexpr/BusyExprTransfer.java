@@ -1,89 +1,62 @@
 package org.checkerframework.dataflow.busyexpr;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.checkerframework.dataflow.analysis.BackwardTransferFunction;
-import org.checkerframework.dataflow.analysis.RegularTransferResult;
-import org.checkerframework.dataflow.analysis.TransferInput;
-import org.checkerframework.dataflow.analysis.TransferResult;
+import org.checkerframework.dataflow.analysis.GenKillTransfer;
 import org.checkerframework.dataflow.analysis.UnusedAbstractValue;
 import org.checkerframework.dataflow.cfg.UnderlyingAST;
-import org.checkerframework.dataflow.cfg.node.AbstractNodeVisitor;
 import org.checkerframework.dataflow.cfg.node.AssignmentNode;
+import org.checkerframework.dataflow.cfg.node.BinaryOperationNode;
 import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.node.ObjectCreationNode;
 import org.checkerframework.dataflow.cfg.node.ReturnNode;
 
-/** A busy expression transfer function. */
-public class BusyExprTransfer
-    extends AbstractNodeVisitor<
-        TransferResult<UnusedAbstractValue, BusyExprStore>,
-        TransferInput<UnusedAbstractValue, BusyExprStore>>
+/**
+ * A busy expression transfer function. An assignment kills the expressions that read the variable
+ * it assigns; an assignment, method invocation, object creation, or return generates the binary
+ * operations in its operands.
+ */
+public class BusyExprTransfer extends GenKillTransfer<BusyExprValue, Node, BusyExprStore>
     implements BackwardTransferFunction<UnusedAbstractValue, BusyExprStore> {
 
   @Override
   public BusyExprStore initialNormalExitStore(
       UnderlyingAST underlyingAST, List<ReturnNode> returnNodes) {
-    return new BusyExprStore();
+    return new BusyExprStore(getDomain(underlyingAST));
   }
 
   @Override
   public BusyExprStore initialExceptionalExitStore(UnderlyingAST underlyingAST) {
-    return new BusyExprStore();
+    return new BusyExprStore(getDomain(underlyingAST));
   }
 
   @Override
-  public RegularTransferResult<UnusedAbstractValue, BusyExprStore> visitNode(
-      Node n, TransferInput<UnusedAbstractValue, BusyExprStore> p) {
-    return new RegularTransferResult<>(null, p.getRegularStore());
-  }
-
-  @Override
-  public RegularTransferResult<UnusedAbstractValue, BusyExprStore> visitAssignment(
-      AssignmentNode n, TransferInput<UnusedAbstractValue, BusyExprStore> p) {
-    RegularTransferResult<UnusedAbstractValue, BusyExprStore> transferResult =
-        (RegularTransferResult<UnusedAbstractValue, BusyExprStore>) super.visitAssignment(n, p);
-    BusyExprStore store = transferResult.getRegularStore();
-    store.killBusyExpr(n.getTarget());
-    store.addUseInExpression(n.getExpression());
-    return transferResult;
-  }
-
-  @Override
-  public RegularTransferResult<UnusedAbstractValue, BusyExprStore> visitMethodInvocation(
-      MethodInvocationNode n, TransferInput<UnusedAbstractValue, BusyExprStore> p) {
-    RegularTransferResult<UnusedAbstractValue, BusyExprStore> transferResult =
-        (RegularTransferResult<UnusedAbstractValue, BusyExprStore>)
-            super.visitMethodInvocation(n, p);
-    BusyExprStore store = transferResult.getRegularStore();
-    for (Node arg : n.getArguments()) {
-      store.addUseInExpression(arg);
+  protected void computeGenKill(Node node, GenKill genKill) {
+    List<Node> usedExpressions;
+    if (node instanceof AssignmentNode) {
+      AssignmentNode assignment = (AssignmentNode) node;
+      genKill.kill(assignment.getTarget());
+      usedExpressions = Collections.singletonList(assignment.getExpression());
+    } else if (node instanceof MethodInvocationNode) {
+      usedExpressions = ((MethodInvocationNode) node).getArguments();
+    } else if (node instanceof ObjectCreationNode) {
+      usedExpressions = ((ObjectCreationNode) node).getArguments();
+    } else if (node instanceof ReturnNode) {
+      Node result = ((ReturnNode) node).getResult();
+      usedExpressions =
+          result == null ? Collections.emptyList() : Collections.singletonList(result);
+    } else {
+      return;
     }
-    return transferResult;
-  }
-
-  @Override
-  public RegularTransferResult<UnusedAbstractValue, BusyExprStore> visitObjectCreation(
-      ObjectCreationNode n, TransferInput<UnusedAbstractValue, BusyExprStore> p) {
-    RegularTransferResult<UnusedAbstractValue, BusyExprStore> transferResult =
-        (RegularTransferResult<UnusedAbstractValue, BusyExprStore>) super.visitObjectCreation(n, p);
-    BusyExprStore store = transferResult.getRegularStore();
-    for (Node arg : n.getArguments()) {
-      store.addUseInExpression(arg);
+    List<BinaryOperationNode> uses = new ArrayList<>();
+    for (Node expression : usedExpressions) {
+      BusyExprStore.collectUsesInExpression(expression, uses);
     }
-    return transferResult;
-  }
-
-  @Override
-  public RegularTransferResult<UnusedAbstractValue, BusyExprStore> visitReturn(
-      ReturnNode n, TransferInput<UnusedAbstractValue, BusyExprStore> p) {
-    RegularTransferResult<UnusedAbstractValue, BusyExprStore> transferResult =
-        (RegularTransferResult<UnusedAbstractValue, BusyExprStore>) super.visitReturn(n, p);
-    Node result = n.getResult();
-    if (result != null) {
-      BusyExprStore store = transferResult.getRegularStore();
-      store.addUseInExpression(result);
+    for (BinaryOperationNode use : uses) {
+      genKill.gen(new BusyExprValue(use), BusyExprStore.getVariables(use));
     }
-    return transferResult;
   }
 }
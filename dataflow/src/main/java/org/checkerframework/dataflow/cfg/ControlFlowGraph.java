@@ -26,6 +26,7 @@ import org.checkerframework.checker.initialization.qual.UnknownInitialization;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.analysis.AnalysisResult;
 import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.BlockImpl;
 import org.checkerframework.dataflow.cfg.block.ConditionalBlock;
 import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
 import org.checkerframework.dataflow.cfg.block.RegularBlock;
@@ -116,6 +117,18 @@ public class ControlFlowGraph implements UniqueId {
    */
   protected final List<LambdaExpressionTree> declaredLambdas;
 
+  /**
+   * The reachable blocks, in depth-first order; the {@link Block#getIndex index} of each block is
+   * its position in this list. Null until {@link #getNumberedBlocks} is first called.
+   */
+  private @Nullable List<Block> numberedBlocks = null;
+
+  /**
+   * The number of nodes in the reachable blocks; the {@link Node#getId ID} of each of them is less
+   * than this. Set by {@link #getNumberedBlocks}.
+   */
+  private int nodeCount = 0;
+
   public ControlFlowGraph(
       SpecialBlock entryBlock,
       SpecialBlockImpl regularExitBlock,
@@ -342,6 +355,57 @@ public class ControlFlowGraph implements UniqueId {
     return result;
   }
 
+  /**
+   * Returns the reachable basic blocks of this control flow graph, in reversed depth-first
+   * postorder, without duplicates. The {@link Block#getIndex index} of each block is its position
+   * in the result, so analyses can keep per-block data in arrays and bit sets. The {@link
+   * Node#getId ID} of each node in these blocks is likewise its position in the concatenation of
+   * their node lists.
+   *
+   * <p>The blocks and nodes are numbered by the first call to this method, which CFG construction
+   * makes once the graph is complete. The graph must not be changed afterward.
+   *
+   * @return the reachable basic blocks of this control flow graph, in reversed depth-first
+   *     postorder, without duplicates
+   */
+  public List<Block> getNumberedBlocks() {
+    if (numberedBlocks == null) {
+      List<Block> depthFirstOrder = getDepthFirstOrderedBlocks();
+      // A block that appears more than once is ordered by its last occurrence, which is its
+      // position in a depth-first postorder traversal.
+      Map<Block, Integer> lastOccurrence = new IdentityHashMap<>(depthFirstOrder.size());
+      for (int i = 0; i < depthFirstOrder.size(); i++) {
+        lastOccurrence.put(depthFirstOrder.get(i), i);
+      }
+      List<Block> result = new ArrayList<>(lastOccurrence.size());
+      for (int i = 0; i < depthFirstOrder.size(); i++) {
+        Block b = depthFirstOrder.get(i);
+        @SuppressWarnings("nullness:unboxing.of.nullable") // every block in the list is a key
+        int last = lastOccurrence.get(b);
+        if (last == i) {
+          ((BlockImpl) b).setIndex(result.size());
+          result.add(b);
+          for (Node n : b.getNodes()) {
+            n.setId(nodeCount++);
+          }
+        }
+      }
+      numberedBlocks = Collections.unmodifiableList(result);
+    }
+    return numberedBlocks;
+  }
+
+  /**
+   * Returns the number of nodes in the reachable blocks of this control flow graph. The {@link
+   * Node#getId ID} of each such node is less than this number.
+   *
+   * @return the number of nodes in the reachable blocks of this control flow graph
+   */
+  public int getNodeCount() {
+    getNumberedBlocks();
+    return nodeCount;
+  }
+
   /**
    * Returns all basic blocks in this control flow graph, in reversed depth-first postorder. Blocks
    * may appear more than once in the sequence.
@@ -33,6 +33,16 @@ public interface Block extends UniqueId {
    */
   BlockType getType();
 
+  /**
+   * Returns the position of this block in the depth-first order of its control flow graph: a number
+   * from 0 to one less than the number of blocks. The numbers are assigned when the graph is
+   * complete; see {@link org.checkerframework.dataflow.cfg.ControlFlowGraph#getNumberedBlocks}.
+   *
+   * @return the position of this block in the depth-first order of its control flow graph, or -1
+   *     if the blocks of the graph have not been numbered or this block is not reachable
+   */
+  int getIndex();
+
   /**
    * Returns the predecessors of this basic block.
    *
@@ -25,6 +25,9 @@ public abstract class BlockImpl implements Block {
     return uid;
   }
 
+  /** The position of this block in the depth-first order of its control flow graph, or -1. */
+  private int index = -1;
+
   /**
    * Create a new BlockImpl.
    *
@@ -41,6 +44,21 @@ public abstract class BlockImpl implements Block {
     return type;
   }
 
+  @Override
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Sets the position of this block in the depth-first order of its control flow graph.
+   *
+   * @param index the position of this block in the depth-first order of its control flow graph
+   * @see org.checkerframework.dataflow.cfg.ControlFlowGraph#getNumberedBlocks
+   */
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
   @Override
   public Set<Block> getPredecessors() {
     // Not "Collections.unmodifiableSet(predecessors)" which has nondeterministic iteration
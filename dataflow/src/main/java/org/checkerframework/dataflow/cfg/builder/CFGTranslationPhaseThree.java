@@ -124,6 +124,9 @@ public class CFGTranslationPhaseThree {
     */
 
     mergeConsecutiveBlocks(cfg);
+
+    // The graph is complete, so number its blocks.
+    cfg.getNumberedBlocks();
     return cfg;
   }
 
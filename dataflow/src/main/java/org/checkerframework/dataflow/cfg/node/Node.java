@@ -82,6 +82,13 @@ public abstract class Node implements UniqueId {
     return uid;
   }
 
+  /**
+   * The dense ID of this node within its control flow graph, or -1. Is set by {@link #setId}.
+   *
+   * @see #getId
+   */
+  private int id = -1;
+
   /**
    * Creates a new Node.
    *
@@ -109,6 +116,31 @@ public abstract class Node implements UniqueId {
     block = b;
   }
 
+  /**
+   * Returns the dense ID of this node within its control flow graph: a number from 0 to one less
+   * than {@link org.checkerframework.dataflow.cfg.ControlFlowGraph#getNodeCount}. Nodes are
+   * numbered in the order of their blocks' {@link Block#getIndex indexes}, and within a block in
+   * execution order. Analyses can use the ID to keep per-node data in arrays. Unlike {@link
+   * #getUid}, the ID is only unique within one control flow graph.
+   *
+   * @return the dense ID of this node within its control flow graph, or -1 if the nodes of the
+   *     graph have not been numbered or this node is not in a reachable block
+   */
+  @Pure
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Sets the dense ID of this node within its control flow graph.
+   *
+   * @param id the dense ID of this node within its control flow graph
+   * @see #getId
+   */
+  public void setId(int id) {
+    this.id = id;
+  }
+
   /**
    * Returns the {@link Tree} in the abstract syntax tree, or {@code null} if no corresponding tree
    * exists. For instance, this is the case for an {@link ImplicitThisNode}.
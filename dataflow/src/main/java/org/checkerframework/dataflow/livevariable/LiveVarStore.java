@@ -1,11 +1,11 @@
 package org.checkerframework.dataflow.livevariable;
 
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.StringJoiner;
-import org.checkerframework.checker.nullness.qual.Nullable;
-import org.checkerframework.dataflow.analysis.Store;
+import org.checkerframework.dataflow.analysis.BitVectorDomain;
+import org.checkerframework.dataflow.analysis.BitVectorStore;
 import org.checkerframework.dataflow.cfg.node.BinaryOperationNode;
 import org.checkerframework.dataflow.cfg.node.FieldAccessNode;
 import org.checkerframework.dataflow.cfg.node.InstanceOfNode;
@@ -15,29 +15,36 @@ import org.checkerframework.dataflow.cfg.node.TernaryExpressionNode;
 import org.checkerframework.dataflow.cfg.node.TypeCastNode;
 import org.checkerframework.dataflow.cfg.node.UnaryOperationNode;
 import org.checkerframework.dataflow.cfg.visualize.CFGVisualizer;
-import org.checkerframework.dataflow.expression.JavaExpression;
-import org.checkerframework.javacutil.BugInCF;
-import org.plumelib.util.ArraySet;
 
-/** A live variable store contains a set of live variables represented by nodes. */
-public class LiveVarStore implements Store<LiveVarStore> {
+/**
+ * A live variable store contains a set of live variables represented by nodes. The set is a bit
+ * vector over the variables of the control flow graph.
+ */
+public class LiveVarStore extends BitVectorStore<LiveVarNode, LiveVarNode, LiveVarStore> {
 
-  /** The set of live variables in this store. */
-  private final Set<LiveVarNode> liveVarNodeSet;
-
-  /** Create a new LiveVarStore. */
-  public LiveVarStore() {
-    liveVarNodeSet = new LinkedHashSet<>();
+  /**
+   * Create a new, empty LiveVarStore.
+   *
+   * @param domain the variables of the control flow graph
+   */
+  public LiveVarStore(BitVectorDomain<LiveVarNode, LiveVarNode> domain) {
+    this(domain, new long[0]);
   }
 
   /**
    * Create a new LiveVarStore.
    *
-   * @param liveVarNodeSet the set of live variable nodes. The parameter is captured and the caller
-   *     should not retain an alias.
+   * @param domain the variables of the control flow graph
+   * @param bits the bits of the live variables. The parameter is captured and the caller should not
+   *     retain an alias.
    */
-  public LiveVarStore(Set<LiveVarNode> liveVarNodeSet) {
-    this.liveVarNodeSet = liveVarNodeSet;
+  private LiveVarStore(BitVectorDomain<LiveVarNode, LiveVarNode> domain, long[] bits) {
+    super(domain, Join.UNION, bits);
+  }
+
+  @Override
+  protected LiveVarStore create(long[] bits) {
+    return new LiveVarStore(domain, bits);
   }
 
   /**
@@ -46,7 +53,7 @@ public class LiveVarStore implements Store<LiveVarStore> {
    * @param variable a live variable
    */
   public void putLiveVar(LiveVarNode variable) {
-    liveVarNodeSet.add(variable);
+    gen(variable, Collections.singletonList(variable));
   }
 
   /**
@@ -55,7 +62,7 @@ public class LiveVarStore implements Store<LiveVarStore> {
    * @param variable a live variable
    */
   public void killLiveVar(LiveVarNode variable) {
-    liveVarNodeSet.remove(variable);
+    kill(variable);
   }
 
   /**
@@ -64,79 +71,52 @@ public class LiveVarStore implements Store<LiveVarStore> {
    * @param expression a node
    */
   public void addUseInExpression(Node expression) {
+    List<LiveVarNode> uses = new ArrayList<>();
+    collectUsesInExpression(expression, uses);
+    for (LiveVarNode use : uses) {
+      putLiveVar(use);
+    }
+  }
+
+  /**
+   * Add the live variables in an expression to a list.
+   *
+   * @param expression a node
+   * @param uses the list to which to add the live variables in {@code expression}
+   */
+  static void collectUsesInExpression(Node expression, List<LiveVarNode> uses) {
     // TODO Do we need a AbstractNodeScanner to do the following job?
     if (expression instanceof LocalVariableNode || expression instanceof FieldAccessNode) {
-      LiveVarNode liveVarValue = new LiveVarNode(expression);
-      putLiveVar(liveVarValue);
+      uses.add(new LiveVarNode(expression));
     } else if (expression instanceof UnaryOperationNode) {
       UnaryOperationNode unaryNode = (UnaryOperationNode) expression;
-      addUseInExpression(unaryNode.getOperand());
+      collectUsesInExpression(unaryNode.getOperand(), uses);
     } else if (expression instanceof TernaryExpressionNode) {
       TernaryExpressionNode ternaryNode = (TernaryExpressionNode) expression;
-      addUseInExpression(ternaryNode.getConditionOperand());
-      addUseInExpression(ternaryNode.getThenOperand());
-      addUseInExpression(ternaryNode.getElseOperand());
+      collectUsesInExpression(ternaryNode.getConditionOperand(), uses);
+      collectUsesInExpression(ternaryNode.getThenOperand(), uses);
+      collectUsesInExpression(ternaryNode.getElseOperand(), uses);
     } else if (expression instanceof TypeCastNode) {
       TypeCastNode typeCastNode = (TypeCastNode) expression;
-      addUseInExpression(typeCastNode.getOperand());
+      collectUsesInExpression(typeCastNode.getOperand(), uses);
     } else if (expression instanceof InstanceOfNode) {
       InstanceOfNode instanceOfNode = (InstanceOfNode) expression;
-      addUseInExpression(instanceOfNode.getOperand());
+      collectUsesInExpression(instanceOfNode.getOperand(), uses);
     } else if (expression instanceof BinaryOperationNode) {
       BinaryOperationNode binaryNode = (BinaryOperationNode) expression;
-      addUseInExpression(binaryNode.getLeftOperand());
-      addUseInExpression(binaryNode.getRightOperand());
+      collectUsesInExpression(binaryNode.getLeftOperand(), uses);
+      collectUsesInExpression(binaryNode.getRightOperand(), uses);
     }
   }
 
-  @Override
-  public boolean equals(@Nullable Object obj) {
-    if (!(obj instanceof LiveVarStore)) {
-      return false;
-    }
-    LiveVarStore other = (LiveVarStore) obj;
-    return other.liveVarNodeSet.equals(this.liveVarNodeSet);
-  }
-
-  @Override
-  public int hashCode() {
-    return this.liveVarNodeSet.hashCode();
-  }
-
-  @Override
-  public LiveVarStore copy() {
-    return new LiveVarStore(new HashSet<>(liveVarNodeSet));
-  }
-
-  @Override
-  public LiveVarStore leastUpperBound(LiveVarStore other) {
-    Set<LiveVarNode> liveVarNodeSetLub =
-        ArraySet.newArraySetOrLinkedHashSet(
-            this.liveVarNodeSet.size() + other.liveVarNodeSet.size());
-    liveVarNodeSetLub.addAll(this.liveVarNodeSet);
-    liveVarNodeSetLub.addAll(other.liveVarNodeSet);
-    return new LiveVarStore(liveVarNodeSetLub);
-  }
-
-  /** It should not be called since it is not used by the backward analysis. */
-  @Override
-  public LiveVarStore widenedUpperBound(LiveVarStore previous) {
-    throw new BugInCF("wub of LiveVarStore get called!");
-  }
-
-  @Override
-  public boolean canAlias(JavaExpression a, JavaExpression b) {
-    return true;
-  }
-
   @Override
   public String visualize(CFGVisualizer<?, LiveVarStore, ?> viz) {
     String key = "live variables";
-    if (liveVarNodeSet.isEmpty()) {
+    if (isEmpty()) {
       return viz.visualizeStoreKeyVal(key, "none");
     }
     StringJoiner sjStoreVal = new StringJoiner(", ");
-    for (LiveVarNode liveVar : liveVarNodeSet) {
+    for (LiveVarNode liveVar : getElements()) {
       sjStoreVal.add(liveVar.toString());
     }
     return viz.visualizeStoreKeyVal(key, sjStoreVal.toString());
@@ -144,6 +124,6 @@ public class LiveVarStore implements Store<LiveVarStore> {
 
   @Override
   public String toString() {
-    return liveVarNodeSet.toString();
+    return getElements().toString();
   }
 }
@@ -1,13 +1,12 @@
 package org.checkerframework.dataflow.livevariable;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.checkerframework.dataflow.analysis.BackwardTransferFunction;
-import org.checkerframework.dataflow.analysis.RegularTransferResult;
-import org.checkerframework.dataflow.analysis.TransferInput;
-import org.checkerframework.dataflow.analysis.TransferResult;
+import org.checkerframework.dataflow.analysis.GenKillTransfer;
 import org.checkerframework.dataflow.analysis.UnusedAbstractValue;
 import org.checkerframework.dataflow.cfg.UnderlyingAST;
-import org.checkerframework.dataflow.cfg.node.AbstractNodeVisitor;
 import org.checkerframework.dataflow.cfg.node.AssignmentNode;
 import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
 import org.checkerframework.dataflow.cfg.node.Node;
@@ -15,11 +14,11 @@ import org.checkerframework.dataflow.cfg.node.ObjectCreationNode;
 import org.checkerframework.dataflow.cfg.node.ReturnNode;
 import org.checkerframework.dataflow.qual.SideEffectFree;
 
-/** A live variable transfer function. */
-public class LiveVarTransfer
-    extends AbstractNodeVisitor<
-        TransferResult<UnusedAbstractValue, LiveVarStore>,
-        TransferInput<UnusedAbstractValue, LiveVarStore>>
+/**
+ * A live variable transfer function. An assignment kills the variable it assigns; an assignment,
+ * method invocation, object creation, or return generates the variables its operands use.
+ */
+public class LiveVarTransfer extends GenKillTransfer<LiveVarNode, LiveVarNode, LiveVarStore>
     implements BackwardTransferFunction<UnusedAbstractValue, LiveVarStore> {
 
   /** Creates a new LiveVarTransfer. */
@@ -29,76 +28,38 @@ public class LiveVarTransfer
   @SideEffectFree
   public LiveVarStore initialNormalExitStore(
       UnderlyingAST underlyingAST, List<ReturnNode> returnNodes) {
-    return new LiveVarStore();
+    return new LiveVarStore(getDomain(underlyingAST));
   }
 
   @Override
   public LiveVarStore initialExceptionalExitStore(UnderlyingAST underlyingAST) {
-    return new LiveVarStore();
+    return new LiveVarStore(getDomain(underlyingAST));
   }
 
   @Override
-  public RegularTransferResult<UnusedAbstractValue, LiveVarStore> visitNode(
-      Node n, TransferInput<UnusedAbstractValue, LiveVarStore> p) {
-    return new RegularTransferResult<>(null, p.getRegularStore());
-  }
-
-  @Override
-  public RegularTransferResult<UnusedAbstractValue, LiveVarStore> visitAssignment(
-      AssignmentNode n, TransferInput<UnusedAbstractValue, LiveVarStore> p) {
-    RegularTransferResult<UnusedAbstractValue, LiveVarStore> transferResult =
-        (RegularTransferResult<UnusedAbstractValue, LiveVarStore>) super.visitAssignment(n, p);
-    processLiveVarInAssignment(n.getTarget(), n.getExpression(), transferResult.getRegularStore());
-    return transferResult;
-  }
-
-  @Override
-  public RegularTransferResult<UnusedAbstractValue, LiveVarStore> visitMethodInvocation(
-      MethodInvocationNode n, TransferInput<UnusedAbstractValue, LiveVarStore> p) {
-    RegularTransferResult<UnusedAbstractValue, LiveVarStore> transferResult =
-        (RegularTransferResult<UnusedAbstractValue, LiveVarStore>)
-            super.visitMethodInvocation(n, p);
-    LiveVarStore store = transferResult.getRegularStore();
-    for (Node arg : n.getArguments()) {
-      store.addUseInExpression(arg);
+  protected void computeGenKill(Node node, GenKill genKill) {
+    List<Node> usedExpressions;
+    if (node instanceof AssignmentNode) {
+      AssignmentNode assignment = (AssignmentNode) node;
+      genKill.kill(new LiveVarNode(assignment.getTarget()));
+      usedExpressions = Collections.singletonList(assignment.getExpression());
+    } else if (node instanceof MethodInvocationNode) {
+      usedExpressions = ((MethodInvocationNode) node).getArguments();
+    } else if (node instanceof ObjectCreationNode) {
+      usedExpressions = ((ObjectCreationNode) node).getArguments();
+    } else if (node instanceof ReturnNode) {
+      Node result = ((ReturnNode) node).getResult();
+      usedExpressions =
+          result == null ? Collections.emptyList() : Collections.singletonList(result);
+    } else {
+      return;
     }
-    return transferResult;
-  }
-
-  @Override
-  public RegularTransferResult<UnusedAbstractValue, LiveVarStore> visitObjectCreation(
-      ObjectCreationNode n, TransferInput<UnusedAbstractValue, LiveVarStore> p) {
-    RegularTransferResult<UnusedAbstractValue, LiveVarStore> transferResult =
-        (RegularTransferResult<UnusedAbstractValue, LiveVarStore>) super.visitObjectCreation(n, p);
-    LiveVarStore store = transferResult.getRegularStore();
-    for (Node arg : n.getArguments()) {
-      store.addUseInExpression(arg);
+    List<LiveVarNode> uses = new ArrayList<>();
+    for (Node expression : usedExpressions) {
+      LiveVarStore.collectUsesInExpression(expression, uses);
     }
-    return transferResult;
-  }
-
-  @Override
-  public RegularTransferResult<UnusedAbstractValue, LiveVarStore> visitReturn(
-      ReturnNode n, TransferInput<UnusedAbstractValue, LiveVarStore> p) {
-    RegularTransferResult<UnusedAbstractValue, LiveVarStore> transferResult =
-        (RegularTransferResult<UnusedAbstractValue, LiveVarStore>) super.visitReturn(n, p);
-    Node result = n.getResult();
-    if (result != null) {
-      LiveVarStore store = transferResult.getRegularStore();
-      store.addUseInExpression(result);
+    for (LiveVarNode use : uses) {
+      genKill.gen(use, Collections.singletonList(use));
     }
-    return transferResult;
-  }
-
-  /**
-   * Update the information of live variables from an assignment statement.
-   *
-   * @param variable the variable that should be killed
-   * @param expression the expression in which the variables should be added
-   * @param store the live variable store
-   */
-  private void processLiveVarInAssignment(Node variable, Node expression, LiveVarStore store) {
-    store.killLiveVar(new LiveVarNode(variable));
-    store.addUseInExpression(expression);
   }
 }
@@ -1,38 +1,43 @@
 package org.checkerframework.dataflow.reachingdef;
 
-import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.Collections;
 import java.util.StringJoiner;
-import org.checkerframework.checker.nullness.qual.Nullable;
-import org.checkerframework.dataflow.analysis.Store;
+import org.checkerframework.dataflow.analysis.BitVectorDomain;
+import org.checkerframework.dataflow.analysis.BitVectorStore;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.visualize.CFGVisualizer;
-import org.checkerframework.dataflow.expression.JavaExpression;
-import org.checkerframework.javacutil.BugInCF;
 
 /**
  * A reaching definition store contains a set of reaching definitions represented by
- * ReachingDefinitionNode
+ * ReachingDefinitionNode. The set is a bit vector over the definitions of the control flow graph.
  */
-public class ReachingDefinitionStore implements Store<ReachingDefinitionStore> {
+public class ReachingDefinitionStore
+    extends BitVectorStore<ReachingDefinitionNode, Node, ReachingDefinitionStore> {
 
-  /** The set of reaching definitions in this store. */
-  private final Set<ReachingDefinitionNode> reachingDefSet;
-
-  /** Create a new ReachDefinitionStore. */
-  public ReachingDefinitionStore() {
-    reachingDefSet = new LinkedHashSet<>();
+  /**
+   * Create a new, empty ReachingDefinitionStore.
+   *
+   * @param domain the definitions of the control flow graph
+   */
+  public ReachingDefinitionStore(BitVectorDomain<ReachingDefinitionNode, Node> domain) {
+    this(domain, new long[0]);
   }
 
   /**
-   * Create a new ReachDefinitionStore.
+   * Create a new ReachingDefinitionStore.
    *
-   * @param reachingDefSet a set of reaching definition nodes. The parameter is captured and the
-   *     caller should not retain an alias.
+   * @param domain the definitions of the control flow graph
+   * @param bits the bits of the reaching definitions. The parameter is captured and the caller
+   *     should not retain an alias.
    */
-  public ReachingDefinitionStore(Set<ReachingDefinitionNode> reachingDefSet) {
-    this.reachingDefSet = reachingDefSet;
+  private ReachingDefinitionStore(
+      BitVectorDomain<ReachingDefinitionNode, Node> domain, long[] bits) {
+    super(domain, Join.UNION, bits);
+  }
+
+  @Override
+  protected ReachingDefinitionStore create(long[] bits) {
+    return new ReachingDefinitionStore(domain, bits);
   }
 
   /**
@@ -41,17 +46,9 @@ public class ReachingDefinitionStore implements Store<ReachingDefinitionStore> {
    * @param defTarget target of a reaching definition
    */
   public void killDef(Node defTarget) {
-    Iterator<ReachingDefinitionNode> it = reachingDefSet.iterator();
-    while (it.hasNext()) {
-      // We use `.equals` instead of `==` here to compare value equality
-      // rather than reference equality, because if two left-hand side node
-      // have same values, we need to kill the old one and replace with the
-      // new one.
-      ReachingDefinitionNode generatedDefNode = it.next();
-      if (generatedDefNode.def.getTarget().equals(defTarget)) {
-        it.remove();
-      }
-    }
+    // Kills every definition whose left-hand side has the same value as defTarget, because
+    // the domain compares nodes with `.equals` rather than `==`.
+    kill(defTarget);
   }
 
   /**
@@ -60,55 +57,17 @@ public class ReachingDefinitionStore implements Store<ReachingDefinitionStore> {
    * @param def a reaching definition
    */
   public void putDef(ReachingDefinitionNode def) {
-    reachingDefSet.add(def);
-  }
-
-  @Override
-  public boolean equals(@Nullable Object obj) {
-    if (!(obj instanceof ReachingDefinitionStore)) {
-      return false;
-    }
-    ReachingDefinitionStore other = (ReachingDefinitionStore) obj;
-    return other.reachingDefSet.equals(this.reachingDefSet);
-  }
-
-  @Override
-  public int hashCode() {
-    return this.reachingDefSet.hashCode();
-  }
-
-  @Override
-  public ReachingDefinitionStore copy() {
-    return new ReachingDefinitionStore(new LinkedHashSet<>(reachingDefSet));
-  }
-
-  @Override
-  public ReachingDefinitionStore leastUpperBound(ReachingDefinitionStore other) {
-    LinkedHashSet<ReachingDefinitionNode> reachingDefSetLub =
-        new LinkedHashSet<>(this.reachingDefSet.size() + other.reachingDefSet.size());
-    reachingDefSetLub.addAll(this.reachingDefSet);
-    reachingDefSetLub.addAll(other.reachingDefSet);
-    return new ReachingDefinitionStore(reachingDefSetLub);
-  }
-
-  @Override
-  public ReachingDefinitionStore widenedUpperBound(ReachingDefinitionStore previous) {
-    throw new BugInCF("ReachingDefinitionStore.widenedUpperBound was called!");
-  }
-
-  @Override
-  public boolean canAlias(JavaExpression a, JavaExpression b) {
-    return true;
+    gen(def, Collections.singletonList(def.def.getTarget()));
   }
 
   @Override
   public String visualize(CFGVisualizer<?, ReachingDefinitionStore, ?> viz) {
     String key = "reaching definitions";
-    if (reachingDefSet.isEmpty()) {
+    if (isEmpty()) {
       return viz.visualizeStoreKeyVal(key, "none");
     }
     StringJoiner sjStoreVal = new StringJoiner(", ", "{ ", " }");
-    for (ReachingDefinitionNode reachDefNode : reachingDefSet) {
+    for (ReachingDefinitionNode reachDefNode : getElements()) {
       sjStoreVal.add(reachDefNode.toString());
     }
     return viz.visualizeStoreKeyVal(key, sjStoreVal.toString());
@@ -116,6 +75,6 @@ public class ReachingDefinitionStore implements Store<ReachingDefinitionStore> {
 
   @Override
   public String toString() {
-    return "ReachingDefinitionStore: " + reachingDefSet.toString();
+    return "ReachingDefinitionStore: " + getElements().toString();
   }
 }
@@ -0,0 +1,77 @@
+package busyexpr;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.checkerframework.dataflow.analysis.AnalysisResult;
+import org.checkerframework.dataflow.analysis.BackwardAnalysis;
+import org.checkerframework.dataflow.analysis.BackwardAnalysisImpl;
+import org.checkerframework.dataflow.analysis.UnusedAbstractValue;
+import org.checkerframework.dataflow.busyexpr.BusyExprStore;
+import org.checkerframework.dataflow.busyexpr.BusyExprTransfer;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.cfg.visualize.CFGVisualizeLauncher;
+
+/**
+ * Used in busyExpressionLoopTest Gradle task to test the BusyExpression analysis of a loop with
+ * more expressions than fit in one word of a store, and of two methods with the same transfer
+ * function.
+ */
+public class BusyExpressionLoop {
+  /**
+   * The main method expects to be run in dataflow/tests/busyexpr-loop directory.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+
+    String inputFile = "Test.java"; // input file name;
+    String clazz = "Test";
+    String outputFile = "Out.txt";
+
+    BusyExprTransfer transfer = new BusyExprTransfer();
+    BackwardAnalysis<UnusedAbstractValue, BusyExprStore, BusyExprTransfer> backwardAnalysis =
+        new BackwardAnalysisImpl<>(transfer);
+    ControlFlowGraph cfg =
+        CFGVisualizeLauncher.generateMethodCFG(inputFile, "test", clazz, backwardAnalysis);
+    CFGVisualizeLauncher.writeStringOfCFG(cfg, outputFile, backwardAnalysis);
+
+    // Re-running the analysis within the blocks of the first method must give the same stores
+    // after the transfer function has analyzed another method.  Each result has its own cache, so
+    // that the second one re-runs the transfer function.
+    AnalysisResult<UnusedAbstractValue, BusyExprStore> result = newResult(backwardAnalysis);
+    AnalysisResult<UnusedAbstractValue, BusyExprStore> laterResult = newResult(backwardAnalysis);
+    Map<Node, String> storesBefore = new IdentityHashMap<>();
+    for (Node node : cfg.getAllNodes()) {
+      storesBefore.put(node, String.valueOf(result.getStoreBefore(node)));
+    }
+    CFGVisualizeLauncher.generateMethodCFG(inputFile, "other", clazz, backwardAnalysis);
+    for (Node node : cfg.getAllNodes()) {
+      String storeBefore = String.valueOf(laterResult.getStoreBefore(node));
+      if (!storeBefore.equals(storesBefore.get(node))) {
+        throw new AssertionError(
+            "Store before "
+                + node
+                + " changed after analyzing another method: "
+                + storesBefore.get(node)
+                + " became "
+                + storeBefore);
+      }
+    }
+  }
+
+  /**
+   * Returns a copy of the result of the given analysis, with its own cache.
+   *
+   * @param analysis an analysis that has been performed
+   * @return a copy of the result of {@code analysis}
+   */
+  private static AnalysisResult<UnusedAbstractValue, BusyExprStore> newResult(
+      BackwardAnalysis<UnusedAbstractValue, BusyExprStore, BusyExprTransfer> analysis) {
+    AnalysisResult<UnusedAbstractValue, BusyExprStore> result =
+        new AnalysisResult<>(new HashMap<>());
+    result.combine(analysis.getResult());
+    return result;
+  }
+}
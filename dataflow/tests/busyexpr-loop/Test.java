@@ -0,0 +1,90 @@
+class Test {
+  // More than 64 expressions are busy in the loop, so a store takes more than one word, and the
+  // stores of the two paths to the loop condition are intersected.
+  public int test(int a, int b, int n) {
+    int r = 0;
+    for (int i = 0; i < n; i++) {
+      r = r + a;
+      r = a + 1;
+      r = a + 2;
+      r = a + 3;
+      r = a + 4;
+      r = a + 5;
+      r = a + 6;
+      r = a + 7;
+      r = a + 8;
+      r = a + 9;
+      r = a + 10;
+      r = a + 11;
+      r = a + 12;
+      r = a + 13;
+      r = a + 14;
+      r = a + 15;
+      r = a + 16;
+      r = a + 17;
+      r = a + 18;
+      r = a + 19;
+      r = a + 20;
+      r = a + 21;
+      r = a + 22;
+      r = a + 23;
+      r = a + 24;
+      r = a + 25;
+      r = a + 26;
+      r = a + 27;
+      r = a + 28;
+      r = a + 29;
+      r = a + 30;
+      r = a + 31;
+      r = a + 32;
+      r = a + 33;
+      r = a + 34;
+      r = a + 35;
+      r = b + 1;
+      r = b + 2;
+      r = b + 3;
+      r = b + 4;
+      r = b + 5;
+      r = b + 6;
+      r = b + 7;
+      r = b + 8;
+      r = b + 9;
+      r = b + 10;
+      r = b + 11;
+      r = b + 12;
+      r = b + 13;
+      r = b + 14;
+      r = b + 15;
+      r = b + 16;
+      r = b + 17;
+      r = b + 18;
+      r = b + 19;
+      r = b + 20;
+      r = b + 21;
+      r = b + 22;
+      r = b + 23;
+      r = b + 24;
+      r = b + 25;
+      r = b + 26;
+      r = b + 27;
+      r = b + 28;
+      r = b + 29;
+      r = b + 30;
+      r = b + 31;
+      r = b + 32;
+      r = b + 33;
+      r = b + 34;
+      r = b + 35;
+      if (r > i) {
+        a = b;
+      }
+    }
+    return r + a;
+  }
+
+  // Analyzed after test(), with the same transfer function.
+  public int other(int c) {
+    int d = c * 2;
+    return d - c;
+  }
+}
@@ -0,0 +1,119 @@
+package corpus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/** A directed graph with searches and a topological sort. */
+public class Graph<N> {
+
+  /** The successors of each node. */
+  private final Map<N, List<N>> successors = new LinkedHashMap<>();
+
+  public void addNode(N node) {
+    if (!successors.containsKey(node)) {
+      successors.put(node, new ArrayList<>());
+    }
+  }
+
+  public void addEdge(N from, N to) {
+    addNode(from);
+    addNode(to);
+    List<N> list = successors.get(from);
+    if (list != null && !list.contains(to)) {
+      list.add(to);
+    }
+  }
+
+  public Set<N> nodes() {
+    return Collections.unmodifiableSet(successors.keySet());
+  }
+
+  public List<N> successors(N node) {
+    List<N> result = successors.get(node);
+    return result == null ? Collections.emptyList() : result;
+  }
+
+  /** Returns a shortest path from {@code from} to {@code to}, or null if there is none. */
+  public @Nullable List<N> shortestPath(N from, N to) {
+    Map<N, @Nullable N> parent = new HashMap<>();
+    Deque<N> queue = new ArrayDeque<>();
+    parent.put(from, null);
+    queue.add(from);
+    while (!queue.isEmpty()) {
+      N node = queue.remove();
+      if (node.equals(to)) {
+        List<N> path = new ArrayList<>();
+        N current = node;
+        while (current != null) {
+          path.add(current);
+          current = parent.get(current);
+        }
+        Collections.reverse(path);
+        return path;
+      }
+      for (N next : successors(node)) {
+        if (!parent.containsKey(next)) {
+          parent.put(next, node);
+          queue.add(next);
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Returns the nodes in topological order, or null if the graph has a cycle. */
+  public @Nullable List<N> topologicalSort() {
+    Map<N, Integer> inDegree = new HashMap<>();
+    for (N node : successors.keySet()) {
+      inDegree.putIfAbsent(node, 0);
+      for (N next : successors(node)) {
+        Integer degree = inDegree.get(next);
+        inDegree.put(next, degree == null ? 1 : degree + 1);
+      }
+    }
+    Deque<N> ready = new ArrayDeque<>();
+    for (Map.Entry<N, Integer> entry : inDegree.entrySet()) {
+      if (entry.getValue() == 0) {
+        ready.add(entry.getKey());
+      }
+    }
+    List<N> result = new ArrayList<>();
+    while (!ready.isEmpty()) {
+      N node = ready.remove();
+      result.add(node);
+      for (N next : successors(node)) {
+        Integer degree = inDegree.get(next);
+        int remaining = degree == null ? 0 : degree - 1;
+        inDegree.put(next, remaining);
+        if (remaining == 0) {
+          ready.add(next);
+        }
+      }
+    }
+    return result.size() == successors.size() ? result : null;
+  }
+
+  /** Returns the number of nodes reachable from {@code start}, including itself. */
+  public int reachableCount(N start) {
+    Set<N> seen = Collections.newSetFromMap(new HashMap<>());
+    Deque<N> stack = new ArrayDeque<>();
+    stack.push(start);
+    while (!stack.isEmpty()) {
+      N node = stack.pop();
+      if (seen.add(node)) {
+        for (N next : successors(node)) {
+          stack.push(next);
+        }
+      }
+    }
+    return seen.size();
+  }
+}
@@ -0,0 +1,102 @@
+package corpus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/** Items in stock, with queries written in the functional style. */
+public class Inventory {
+
+  /** An item in stock. */
+  public static class Item {
+    final String sku;
+    final String category;
+    final int quantity;
+    final long priceCents;
+    @Nullable String supplier;
+
+    Item(String sku, String category, int quantity, long priceCents) {
+      this.sku = sku;
+      this.category = category;
+      this.quantity = quantity;
+      this.priceCents = priceCents;
+    }
+
+    long value() {
+      return quantity * priceCents;
+    }
+  }
+
+  private final Map<String, Item> items = new HashMap<>();
+  private @MonotonicNonNull Item mostValuable;
+
+  public void add(Item item) {
+    items.put(item.sku, item);
+    if (mostValuable == null || item.value() > mostValuable.value()) {
+      mostValuable = item;
+    }
+  }
+
+  public @Nullable Item mostValuable() {
+    return mostValuable;
+  }
+
+  public Optional<String> supplierOf(String sku) {
+    Item item = items.get(sku);
+    return item == null ? Optional.empty() : Optional.ofNullable(item.supplier);
+  }
+
+  public List<Item> select(Predicate<? super Item> predicate) {
+    return items.values().stream()
+        .filter(predicate)
+        .sorted(Comparator.comparing((Item item) -> item.sku))
+        .collect(Collectors.toList());
+  }
+
+  public Map<String, Long> valueByCategory() {
+    return items.values().stream()
+        .collect(Collectors.groupingBy(item -> item.category, Collectors.summingLong(Item::value)));
+  }
+
+  public List<String> lowStock(int threshold) {
+    List<String> result = new ArrayList<>();
+    for (Item item : items.values()) {
+      if (item.quantity < threshold) {
+        String supplier = item.supplier;
+        result.add(supplier == null ? item.sku : item.sku + " from " + supplier);
+      }
+    }
+    result.sort(null);
+    return result;
+  }
+
+  public long totalValue() {
+    long total = 0;
+    for (Item item : items.values()) {
+      total += item.value();
+    }
+    return total;
+  }
+
+  public int restock(Map<String, Integer> deliveries) {
+    int count = 0;
+    for (Map.Entry<String, Integer> delivery : deliveries.entrySet()) {
+      Item old = items.get(delivery.getKey());
+      if (old != null) {
+        Item updated =
+            new Item(old.sku, old.category, old.quantity + delivery.getValue(), old.priceCents);
+        updated.supplier = old.supplier;
+        add(updated);
+        count++;
+      }
+    }
+    return count;
+  }
+}
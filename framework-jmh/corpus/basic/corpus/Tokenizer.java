@@ -0,0 +1,168 @@
+package corpus;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/** Splits arithmetic expressions into tokens and evaluates them. */
+public class Tokenizer {
+
+  /** The kind of a token. */
+  public enum Kind {
+    NUMBER,
+    IDENTIFIER,
+    OPERATOR,
+    LPAREN,
+    RPAREN
+  }
+
+  /** A token. */
+  public static final class Token {
+    public final Kind kind;
+    public final String text;
+    public final int position;
+
+    public Token(Kind kind, String text, int position) {
+      this.kind = kind;
+      this.text = text;
+      this.position = position;
+    }
+
+    @Override
+    public String toString() {
+      return kind + "(" + text + ")@" + position;
+    }
+  }
+
+  private final String input;
+  private int position = 0;
+  private @Nullable Token peeked;
+
+  public Tokenizer(String input) {
+    this.input = input;
+  }
+
+  public List<Token> tokenize() {
+    List<Token> result = new ArrayList<>();
+    Token token;
+    while ((token = next()) != null) {
+      result.add(token);
+    }
+    return result;
+  }
+
+  public @Nullable Token peek() {
+    if (peeked == null) {
+      peeked = next();
+    }
+    return peeked;
+  }
+
+  public @Nullable Token next() {
+    Token result = peeked;
+    if (result != null) {
+      peeked = null;
+      return result;
+    }
+    while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+      position++;
+    }
+    if (position >= input.length()) {
+      return null;
+    }
+    int start = position;
+    char c = input.charAt(position);
+    if (Character.isDigit(c)) {
+      while (position < input.length() && Character.isDigit(input.charAt(position))) {
+        position++;
+      }
+      return new Token(Kind.NUMBER, input.substring(start, position), start);
+    } else if (Character.isLetter(c)) {
+      while (position < input.length() && Character.isLetterOrDigit(input.charAt(position))) {
+        position++;
+      }
+      return new Token(Kind.IDENTIFIER, input.substring(start, position), start);
+    }
+    position++;
+    switch (c) {
+      case '(':
+        return new Token(Kind.LPAREN, "(", start);
+      case ')':
+        return new Token(Kind.RPAREN, ")", start);
+      case '+':
+      case '-':
+      case '*':
+      case '/':
+        return new Token(Kind.OPERATOR, String.valueOf(c), start);
+      default:
+        throw new IllegalArgumentException("Unexpected character " + c + " at " + start);
+    }
+  }
+
+  /** Evaluates the expression, in which every identifier has the value {@code variable}. */
+  public static long evaluate(String expression, long variable) {
+    Tokenizer tokenizer = new Tokenizer(expression);
+    long result = tokenizer.sum(variable);
+    if (tokenizer.peek() != null) {
+      throw new IllegalArgumentException("Trailing input in " + expression);
+    }
+    return result;
+  }
+
+  private long sum(long variable) {
+    long result = product(variable);
+    Token token = peek();
+    while (token != null && (token.text.equals("+") || token.text.equals("-"))) {
+      next();
+      long operand = product(variable);
+      result = token.text.equals("+") ? result + operand : result - operand;
+      token = peek();
+    }
+    return result;
+  }
+
+  private long product(long variable) {
+    long result = atom(variable);
+    Token token = peek();
+    while (token != null && (token.text.equals("*") || token.text.equals("/"))) {
+      next();
+      long operand = atom(variable);
+      if (token.text.equals("*")) {
+        result *= operand;
+      } else if (operand != 0) {
+        result /= operand;
+      } else {
+        throw new ArithmeticException("Division by zero at " + token.position);
+      }
+      token = peek();
+    }
+    return result;
+  }
+
+  private long atom(long variable) {
+    Token token = next();
+    if (token == null) {
+      throw new IllegalArgumentException("Unexpected end of input");
+    }
+    switch (token.kind) {
+      case NUMBER:
+        return Long.parseLong(token.text);
+      case IDENTIFIER:
+        return variable;
+      case LPAREN:
+        long result = sum(variable);
+        Token close = next();
+        if (close == null || close.kind != Kind.RPAREN) {
+          throw new IllegalArgumentException("Missing ) for ( at " + token.position);
+        }
+        return result;
+      case OPERATOR:
+        if (token.text.equals("-")) {
+          return -atom(variable);
+        }
+        // fall through
+      default:
+        throw new IllegalArgumentException("Unexpected " + token);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Benchmarks of {@code AnnotatedTypeFactory.getAnnotatedType} on every expression of a corpus. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnnotatedTypeFactoryBenchmark extends CheckerBenchmark {
+
+  /** The compilation unit with the most expressions. */
+  private @MonotonicNonNull CompilationUnitTree largestUnit;
+
+  @Override
+  protected void prepare() {
+    int largestSize = -1;
+    for (Map.Entry<CompilationUnitTree, List<ExpressionTree>> entry :
+        compiled.expressions.entrySet()) {
+      if (entry.getValue().size() > largestSize) {
+        largestUnit = entry.getKey();
+        largestSize = entry.getValue().size();
+      }
+    }
+  }
+
+  /**
+   * Computes the type of every expression, starting each compilation unit with empty caches. This
+   * includes running dataflow analysis on each class, as the type factory does when the visitor
+   * first asks for the type of an expression in the class.
+   *
+   * @param bh consumes the types
+   */
+  @Benchmark
+  public void getAnnotatedTypeUncached(Blackhole bh) {
+    for (Map.Entry<CompilationUnitTree, List<ExpressionTree>> entry :
+        compiled.expressions.entrySet()) {
+      setRoot(entry.getKey(), true);
+      for (ExpressionTree expression : entry.getValue()) {
+        bh.consume(factory.getAnnotatedType(expression));
+      }
+    }
+  }
+
+  /**
+   * Computes the type of every expression in the largest compilation unit, again and again, so the
+   * types come from the factory's caches.
+   *
+   * @param bh consumes the types
+   */
+  @Benchmark
+  public void getAnnotatedTypeCached(Blackhole bh) {
+    setRoot(largestUnit, false);
+    for (ExpressionTree expression : compiled.expressions.get(largestUnit)) {
+      bh.consume(factory.getAnnotatedType(expression));
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.javacutil.AnnotationMirrorSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@link AnnotationMirrorSet} operations. The inputs are the primary qualifiers of
+ * every expression of a corpus, which are the sets that the framework most often creates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnnotationMirrorSetBenchmark extends CheckerBenchmark {
+
+  /** The qualifiers of each expression, as lists. */
+  private final List<List<AnnotationMirror>> qualifierLists = new ArrayList<>();
+
+  /** The qualifiers of each expression, as sets, in the same order as {@link #qualifierLists}. */
+  private final List<AnnotationMirrorSet> qualifierSets = new ArrayList<>();
+
+  /** Every qualifier that appears in {@link #qualifierSets}. */
+  private final AnnotationMirrorSet allQualifiers = new AnnotationMirrorSet();
+
+  @Override
+  protected void prepare() {
+    for (Map.Entry<CompilationUnitTree, List<ExpressionTree>> entry :
+        compiled.expressions.entrySet()) {
+      setRoot(entry.getKey(), false);
+      for (ExpressionTree expression : entry.getValue()) {
+        AnnotationMirrorSet qualifiers =
+            factory.getAnnotatedType(expression).getPrimaryAnnotations();
+        qualifierLists.add(new ArrayList<>(qualifiers));
+        qualifierSets.add(new AnnotationMirrorSet(qualifiers));
+        allQualifiers.addAll(qualifiers);
+      }
+    }
+  }
+
+  /**
+   * Creates a set from each list of qualifiers.
+   *
+   * @param bh consumes the sets
+   */
+  @Benchmark
+  public void create(Blackhole bh) {
+    for (List<AnnotationMirror> qualifiers : qualifierLists) {
+      bh.consume(new AnnotationMirrorSet(qualifiers));
+    }
+  }
+
+  /**
+   * Looks up every qualifier of the corpus in each set.
+   *
+   * @param bh consumes the results
+   */
+  @Benchmark
+  public void contains(Blackhole bh) {
+    for (AnnotationMirrorSet set : qualifierSets) {
+      for (AnnotationMirror qualifier : allQualifiers) {
+        bh.consume(set.contains(qualifier));
+      }
+    }
+  }
+
+  /**
+   * Adds each set to a new, empty set.
+   *
+   * @param bh consumes the sets
+   */
+  @Benchmark
+  public void addAll(Blackhole bh) {
+    for (AnnotationMirrorSet set : qualifierSets) {
+      AnnotationMirrorSet copy = new AnnotationMirrorSet();
+      copy.addAll(set);
+      bh.consume(copy);
+    }
+  }
+
+  /**
+   * Compares each set to the next one and computes its hash code, as maps keyed by sets do.
+   *
+   * @param bh consumes the results
+   */
+  @Benchmark
+  public void equalsAndHashCode(Blackhole bh) {
+    for (int i = 0; i < qualifierSets.size(); i++) {
+      AnnotationMirrorSet set = qualifierSets.get(i);
+      bh.consume(set.equals(qualifierSets.get((i + 1) % qualifierSets.size())));
+      bh.consume(set.hashCode());
+    }
+  }
+}
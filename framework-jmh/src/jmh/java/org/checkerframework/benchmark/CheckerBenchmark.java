@@ -0,0 +1,77 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The superclass of benchmarks that call into the type factory of a checker. Before the benchmark
+ * runs, the checker type-checks the corpus, so the factory has read the annotated JDK and any stub
+ * files, and the benchmark measures only the work that it does.
+ */
+@State(Scope.Benchmark)
+public abstract class CheckerBenchmark {
+
+  /** The fully-qualified name of the checker. */
+  @Param({
+    "org.checkerframework.checker.nullness.NullnessChecker",
+    "org.checkerframework.common.value.ValueChecker"
+  })
+  public String checker;
+
+  /** The name of the corpus; see {@link Corpus}. */
+  @Param({"synthetic", "basic"})
+  public String corpus;
+
+  /** The corpus, compiled and type-checked by {@link #checker}. */
+  protected @MonotonicNonNull CompiledCorpus compiled;
+
+  /** The type factory of {@link #checker}. */
+  protected @MonotonicNonNull GenericAnnotatedTypeFactory<?, ?, ?, ?> factory;
+
+  /** The compilation unit most recently passed to {@link #setRoot}. */
+  private @MonotonicNonNull CompilationUnitTree root;
+
+  /**
+   * Compiles and type-checks the corpus, then calls {@link #prepare}.
+   *
+   * @throws ReflectiveOperationException if the checker cannot be instantiated
+   */
+  @Setup
+  public void compileCorpus() throws ReflectiveOperationException {
+    BaseTypeChecker instance =
+        Class.forName(checker)
+            .asSubclass(BaseTypeChecker.class)
+            .getDeclaredConstructor()
+            .newInstance();
+    compiled = CompiledCorpus.compile(Corpus.load(corpus), instance);
+    factory = instance.getTypeFactory();
+    prepare();
+  }
+
+  /**
+   * Computes the inputs of the benchmark, after the corpus has been type-checked. Subclasses that
+   * override this should not time it.
+   */
+  protected void prepare() {}
+
+  /**
+   * Makes the type factory work on the given compilation unit. Setting the compilation unit clears
+   * the factory's caches of trees and its dataflow results, so it is skipped if {@code newRoot} is
+   * already the current compilation unit, unless {@code clearCaches} is true.
+   *
+   * @param newRoot a compilation unit of the corpus
+   * @param clearCaches if true, set the compilation unit even if it is already the current one
+   */
+  protected void setRoot(CompilationUnitTree newRoot, boolean clearCaches) {
+    if (clearCaches || newRoot != root) {
+      factory.setRoot(newRoot);
+      root = newRoot;
+    }
+  }
+}
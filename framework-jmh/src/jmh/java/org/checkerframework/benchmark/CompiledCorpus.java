@@ -0,0 +1,306 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreeScanner;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * A corpus that javac has parsed and attributed, optionally while running a checker. The compiler
+ * is kept alive, so benchmarks can call into the checker's type factory, or build control flow
+ * graphs, on the attributed trees.
+ */
+final class CompiledCorpus {
+
+  /** The compilation units, in the order javac analyzed them. */
+  final List<CompilationUnitTree> units = new ArrayList<>();
+
+  /** Every method with a body, in every class of the corpus, including nested and local ones. */
+  final List<MethodInfo> methods = new ArrayList<>();
+
+  /**
+   * For each compilation unit, the expressions in it that have a type: every expression except
+   * annotations, names of types and packages, and names of methods.
+   */
+  final Map<CompilationUnitTree, List<ExpressionTree>> expressions = new LinkedHashMap<>();
+
+  /** For each compilation unit, the declarations of variables that have an initializer. */
+  final Map<CompilationUnitTree, List<VariableTree>> initializedVariables = new LinkedHashMap<>();
+
+  /** The processing environment of the compiler. */
+  final ProcessingEnvironment env;
+
+  /** The checker that ran on the corpus, or null if none did. */
+  final @Nullable SourceChecker checker;
+
+  /** The errors and warnings that javac and the checker issued. */
+  final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+  /** A method of the corpus. */
+  static final class MethodInfo {
+
+    /** The compilation unit that contains the method. */
+    final CompilationUnitTree root;
+
+    /** The class that contains the method. */
+    final ClassTree classTree;
+
+    /** The method. */
+    final MethodTree method;
+
+    /**
+     * Creates a new MethodInfo.
+     *
+     * @param root the compilation unit that contains the method
+     * @param classTree the class that contains the method
+     * @param method the method
+     */
+    MethodInfo(CompilationUnitTree root, ClassTree classTree, MethodTree method) {
+      this.root = root;
+      this.classTree = classTree;
+      this.method = method;
+    }
+  }
+
+  /**
+   * Parses and attributes the given sources, running the given checker if it is non-null. Checker
+   * errors do not cause an exception; compilation errors do.
+   *
+   * @param sources the source files
+   * @param checker the checker to run, or null to only attribute the sources
+   * @param checkerOptions the {@code -A} options to pass to the checker, such as {@code
+   *     "-AassumeSideEffectFree"}
+   * @return the compiled corpus
+   */
+  static CompiledCorpus compile(
+      List<JavaFileObject> sources, @Nullable SourceChecker checker, String... checkerOptions) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    List<String> options = new ArrayList<>();
+    options.add("-classpath");
+    options.add(System.getProperty("java.class.path"));
+    options.add("-Xlint:-options");
+    options.addAll(Arrays.asList(checkerOptions));
+    JavacTask task =
+        (JavacTask) compiler.getTask(null, null, diagnostics, options, null, sources);
+
+    EnvironmentProcessor envProcessor = new EnvironmentProcessor();
+    List<Processor> processors = new ArrayList<>(2);
+    processors.add(envProcessor);
+    if (checker != null) {
+      processors.add(checker);
+    }
+    task.setProcessors(processors);
+
+    List<CompilationUnitTree> analyzed = new ArrayList<>();
+    task.addTaskListener(
+        new TaskListener() {
+          @Override
+          public void finished(TaskEvent e) {
+            if (e.getKind() == TaskEvent.Kind.ANALYZE
+                && !analyzed.contains(e.getCompilationUnit())) {
+              analyzed.add(e.getCompilationUnit());
+            }
+          }
+        });
+
+    try {
+      task.analyze();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot compile corpus", e);
+    }
+    for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+      // Errors issued by the checker have this code; other errors are compilation errors.
+      if (d.getKind() == Diagnostic.Kind.ERROR
+          && !"compiler.err.proc.messager".equals(d.getCode())) {
+        throw new IllegalArgumentException("The corpus does not compile: " + d);
+      }
+    }
+    ProcessingEnvironment env = envProcessor.env;
+    if (env == null) {
+      throw new IllegalStateException("javac did not initialize the annotation processors");
+    }
+    return new CompiledCorpus(analyzed, env, checker, diagnostics.getDiagnostics());
+  }
+
+  /**
+   * Creates a new CompiledCorpus and collects the trees that benchmarks use.
+   *
+   * @param units the compilation units, in the order javac analyzed them
+   * @param env the processing environment of the compiler
+   * @param checker the checker that ran on the corpus, or null if none did
+   * @param diagnostics the errors and warnings that javac and the checker issued
+   */
+  private CompiledCorpus(
+      List<CompilationUnitTree> units,
+      ProcessingEnvironment env,
+      @Nullable SourceChecker checker,
+      List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+    this.env = env;
+    this.checker = checker;
+    this.diagnostics = Collections.unmodifiableList(diagnostics);
+    for (CompilationUnitTree root : units) {
+      this.units.add(root);
+      List<ExpressionTree> unitExpressions = new ArrayList<>();
+      List<VariableTree> unitVariables = new ArrayList<>();
+      expressions.put(root, unitExpressions);
+      initializedVariables.put(root, unitVariables);
+      new Collector(root, unitExpressions, unitVariables).scan(root.getTypeDecls(), null);
+    }
+  }
+
+  /** Collects the methods, expressions, and initialized variables of a compilation unit. */
+  private final class Collector extends TreeScanner<Void, Void> {
+
+    /** The compilation unit. */
+    private final CompilationUnitTree root;
+
+    /** Where to add the expressions. */
+    private final List<ExpressionTree> unitExpressions;
+
+    /** Where to add the variable declarations. */
+    private final List<VariableTree> unitVariables;
+
+    /** The classes that enclose the current tree, innermost first. */
+    private final Deque<ClassTree> classes = new ArrayDeque<>();
+
+    /**
+     * Creates a new Collector.
+     *
+     * @param root the compilation unit
+     * @param unitExpressions where to add the expressions
+     * @param unitVariables where to add the variable declarations
+     */
+    Collector(
+        CompilationUnitTree root,
+        List<ExpressionTree> unitExpressions,
+        List<VariableTree> unitVariables) {
+      this.root = root;
+      this.unitExpressions = unitExpressions;
+      this.unitVariables = unitVariables;
+    }
+
+    @Override
+    public @Nullable Void scan(@Nullable Tree tree, Void p) {
+      if (tree instanceof ExpressionTree && hasType((ExpressionTree) tree)) {
+        unitExpressions.add((ExpressionTree) tree);
+      }
+      return super.scan(tree, p);
+    }
+
+    @Override
+    public @Nullable Void visitClass(ClassTree tree, Void p) {
+      classes.push(tree);
+      try {
+        return super.visitClass(tree, p);
+      } finally {
+        classes.pop();
+      }
+    }
+
+    @Override
+    public @Nullable Void visitMethod(MethodTree tree, Void p) {
+      if (tree.getBody() != null) {
+        methods.add(new MethodInfo(root, classes.element(), tree));
+      }
+      return super.visitMethod(tree, p);
+    }
+
+    @Override
+    public @Nullable Void visitVariable(VariableTree tree, Void p) {
+      if (tree.getInitializer() != null) {
+        unitVariables.add(tree);
+      }
+      return super.visitVariable(tree, p);
+    }
+
+    @Override
+    public @Nullable Void visitAnnotation(AnnotationTree tree, Void p) {
+      // Annotations and their arguments are not expressions of the program.
+      return null;
+    }
+
+    /**
+     * Returns true if the expression has a type: that is, it is not a name of a type, package, or
+     * method.
+     *
+     * @param tree an expression
+     * @return true if the expression has a type
+     */
+    private boolean hasType(ExpressionTree tree) {
+      if (tree instanceof AnnotationTree) {
+        return false;
+      }
+      if (tree instanceof IdentifierTree || tree instanceof MemberSelectTree) {
+        Element element = TreeUtils.elementFromTree(tree);
+        return element instanceof VariableElement;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * An annotation processor that does nothing but remember the processing environment, so that a
+   * corpus can be compiled without a checker.
+   */
+  @SupportedAnnotationTypes("*")
+  private static final class EnvironmentProcessor extends AbstractProcessor {
+
+    /** The processing environment, once javac has initialized this processor. */
+    @MonotonicNonNull ProcessingEnvironment env;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+      super.init(processingEnv);
+      this.env = processingEnv;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      return false;
+    }
+  }
+}
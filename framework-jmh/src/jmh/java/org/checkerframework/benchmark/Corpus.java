@@ -0,0 +1,85 @@
+package org.checkerframework.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * The Java source files that a benchmark compiles. A corpus is named by a string, which is the
+ * value of a benchmark's {@code corpus} parameter:
+ *
+ * <ul>
+ *   <li>{@code synthetic} or {@code synthetic:N} is {@code N} generated classes (default {@value
+ *       #DEFAULT_SYNTHETIC_CLASSES}); see {@link SyntheticCorpus}.
+ *   <li>Any other name is a directory of source files, resolved against the directory in the
+ *       {@code checkerframework.benchmark.corpus} system property. The build sets that property to
+ *       {@code framework-jmh/corpus/}, which contains the checked-in corpora. An absolute path
+ *       benchmarks any code on disk; it must compile against the JDK and checker-qual alone.
+ * </ul>
+ */
+final class Corpus {
+
+  /** Class cannot be instantiated. */
+  private Corpus() {
+    throw new AssertionError("Class Corpus cannot be instantiated.");
+  }
+
+  /** The number of classes in the {@code synthetic} corpus, if none is given. */
+  static final int DEFAULT_SYNTHETIC_CLASSES = 20;
+
+  /**
+   * Returns the source files of the named corpus.
+   *
+   * @param name the name of a corpus
+   * @return the source files of the corpus
+   */
+  static List<JavaFileObject> load(String name) {
+    if (name.equals("synthetic")) {
+      return SyntheticCorpus.generate(DEFAULT_SYNTHETIC_CLASSES);
+    } else if (name.startsWith("synthetic:")) {
+      return SyntheticCorpus.generate(Integer.parseInt(name.substring("synthetic:".length())));
+    }
+    Path dir = Paths.get(System.getProperty("checkerframework.benchmark.corpus", "corpus"), name);
+    List<JavaFileObject> result = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(dir)) {
+      for (Path file : files.sorted().collect(Collectors.toList())) {
+        if (file.toString().endsWith(".java")) {
+          String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+          result.add(source(file.toUri(), content));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read corpus " + dir, e);
+    }
+    if (result.isEmpty()) {
+      throw new IllegalArgumentException("No .java files in corpus " + dir);
+    }
+    return result;
+  }
+
+  /**
+   * Returns an in-memory source file.
+   *
+   * @param uri the URI of the file, which javac uses in diagnostics
+   * @param content the content of the file
+   * @return an in-memory source file
+   */
+  static JavaFileObject source(URI uri, String content) {
+    return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return content;
+      }
+    };
+  }
+}
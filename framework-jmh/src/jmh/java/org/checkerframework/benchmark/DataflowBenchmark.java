@@ -0,0 +1,84 @@
+package org.checkerframework.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.dataflow.analysis.ForwardAnalysisImpl;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.builder.CFGBuilder;
+import org.checkerframework.dataflow.constantpropagation.Constant;
+import org.checkerframework.dataflow.constantpropagation.ConstantPropagationStore;
+import org.checkerframework.dataflow.constantpropagation.ConstantPropagationTransfer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@code CFGBuilder.build} and {@code ForwardAnalysisImpl.performAnalysis}, on every
+ * method of a corpus. The analysis is constant propagation, which has a cheap transfer function, so
+ * the benchmark mostly measures the dataflow framework itself. No checker runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DataflowBenchmark {
+
+  /** The name of the corpus; see {@link Corpus}. */
+  @Param({"synthetic", "basic"})
+  public String corpus;
+
+  /** The compiled corpus. */
+  private @MonotonicNonNull CompiledCorpus compiled;
+
+  /** The control flow graph of each method of the corpus. */
+  private final List<ControlFlowGraph> cfgs = new ArrayList<>();
+
+  /** Compiles the corpus and builds the control flow graphs that {@link #analyze} uses. */
+  @Setup
+  public void compileCorpus() {
+    compiled = CompiledCorpus.compile(Corpus.load(corpus), null);
+    for (CompiledCorpus.MethodInfo m : compiled.methods) {
+      cfgs.add(CFGBuilder.build(m.root, m.method, m.classTree, compiled.env));
+    }
+  }
+
+  /**
+   * Builds the control flow graph of each method.
+   *
+   * @param bh consumes the control flow graphs
+   */
+  @Benchmark
+  public void buildCfg(Blackhole bh) {
+    for (CompiledCorpus.MethodInfo m : compiled.methods) {
+      bh.consume(CFGBuilder.build(m.root, m.method, m.classTree, compiled.env));
+    }
+  }
+
+  /**
+   * Runs constant propagation on each control flow graph.
+   *
+   * @param bh consumes the analysis results
+   */
+  @Benchmark
+  public void analyze(Blackhole bh) {
+    for (ControlFlowGraph cfg : cfgs) {
+      ForwardAnalysisImpl<Constant, ConstantPropagationStore, ConstantPropagationTransfer>
+          analysis = new ForwardAnalysisImpl<>(new ConstantPropagationTransfer());
+      analysis.performAnalysis(cfg);
+      bh.consume(analysis.getResult());
+    }
+  }
+}
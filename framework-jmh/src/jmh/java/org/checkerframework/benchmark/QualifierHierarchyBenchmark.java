@@ -0,0 +1,103 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.javacutil.AnnotationMirrorSet;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the least upper bound, greatest lower bound, and subtype tests of {@link
+ * QualifierHierarchy}. The inputs are every pair of qualifiers in the same hierarchy, among the
+ * top and bottom qualifiers and the qualifiers of the expressions of a corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QualifierHierarchyBenchmark extends CheckerBenchmark {
+
+  /** The first qualifier of each pair. */
+  private final List<AnnotationMirror> firsts = new ArrayList<>();
+
+  /** The second qualifier of each pair, in the same order as {@link #firsts}. */
+  private final List<AnnotationMirror> seconds = new ArrayList<>();
+
+  @Override
+  protected void prepare() {
+    QualifierHierarchy qualifierHierarchy = factory.getQualifierHierarchy();
+    AnnotationMirrorSet qualifiers = new AnnotationMirrorSet();
+    qualifiers.addAll(qualifierHierarchy.getTopAnnotations());
+    qualifiers.addAll(qualifierHierarchy.getBottomAnnotations());
+    for (Map.Entry<CompilationUnitTree, List<ExpressionTree>> entry :
+        compiled.expressions.entrySet()) {
+      setRoot(entry.getKey(), false);
+      for (ExpressionTree expression : entry.getValue()) {
+        qualifiers.addAll(factory.getAnnotatedType(expression).getPrimaryAnnotations());
+      }
+    }
+    for (AnnotationMirror first : qualifiers) {
+      AnnotationMirror top = qualifierHierarchy.getTopAnnotation(first);
+      for (AnnotationMirror second : qualifiers) {
+        if (AnnotationUtils.areSame(top, qualifierHierarchy.getTopAnnotation(second))) {
+          firsts.add(first);
+          seconds.add(second);
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the least upper bound of each pair.
+   *
+   * @param bh consumes the results
+   */
+  @Benchmark
+  public void leastUpperBound(Blackhole bh) {
+    QualifierHierarchy qualifierHierarchy = factory.getQualifierHierarchy();
+    for (int i = 0; i < firsts.size(); i++) {
+      bh.consume(qualifierHierarchy.leastUpperBoundQualifiersOnly(firsts.get(i), seconds.get(i)));
+    }
+  }
+
+  /**
+   * Computes the greatest lower bound of each pair.
+   *
+   * @param bh consumes the results
+   */
+  @Benchmark
+  public void greatestLowerBound(Blackhole bh) {
+    QualifierHierarchy qualifierHierarchy = factory.getQualifierHierarchy();
+    for (int i = 0; i < firsts.size(); i++) {
+      bh.consume(
+          qualifierHierarchy.greatestLowerBoundQualifiersOnly(firsts.get(i), seconds.get(i)));
+    }
+  }
+
+  /**
+   * Checks whether the first qualifier of each pair is a subqualifier of the second.
+   *
+   * @param bh consumes the results
+   */
+  @Benchmark
+  public void isSubtype(Blackhole bh) {
+    QualifierHierarchy qualifierHierarchy = factory.getQualifierHierarchy();
+    for (int i = 0; i < firsts.size(); i++) {
+      bh.consume(qualifierHierarchy.isSubtypeQualifiersOnly(firsts.get(i), seconds.get(i)));
+    }
+  }
+}
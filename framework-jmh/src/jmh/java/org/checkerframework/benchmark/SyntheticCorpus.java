@@ -0,0 +1,163 @@
+package org.checkerframework.benchmark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a corpus of classes that exercise the common constructs of Java code: generic
+ * collections, nullable fields and null checks, arithmetic on constants, loops, switches,
+ * exceptions, lambdas, and calls between classes. The generated code is the same on every run, so
+ * results of different runs are comparable.
+ */
+final class SyntheticCorpus {
+
+  /** Class cannot be instantiated. */
+  private SyntheticCorpus() {
+    throw new AssertionError("Class SyntheticCorpus cannot be instantiated.");
+  }
+
+  /**
+   * The body of each class. {@code %1$d} is the number of the class, and {@code %2$d} is the
+   * number of the class that it calls.
+   */
+  private static final String TEMPLATE =
+      String.join(
+          "\n",
+          "package synthetic;",
+          "",
+          "import java.util.ArrayList;",
+          "import java.util.Collections;",
+          "import java.util.HashMap;",
+          "import java.util.List;",
+          "import java.util.Map;",
+          "import org.checkerframework.checker.nullness.qual.Nullable;",
+          "",
+          "public class Class%1$d {",
+          "  private @Nullable String name;",
+          "  private final List<Integer> values = new ArrayList<>();",
+          "  private final Map<String, List<Class%2$d>> index = new HashMap<>();",
+          "  private @Nullable Class%2$d next;",
+          "",
+          "  public Class%1$d(@Nullable String name) {",
+          "    this.name = name;",
+          "  }",
+          "",
+          "  public int constants(int n) {",
+          "    int a = 3;",
+          "    int b = a * 7 + %1$d;",
+          "    int c = 0;",
+          "    for (int i = 0; i < n; i++) {",
+          "      if (i %% 2 == 0) {",
+          "        c += a;",
+          "      } else {",
+          "        c -= b;",
+          "      }",
+          "      a = 3;",
+          "    }",
+          "    while (c > b) {",
+          "      c = c / 2;",
+          "    }",
+          "    return a + b + c;",
+          "  }",
+          "",
+          "  public int nameLength() {",
+          "    String n = name;",
+          "    if (n == null) {",
+          "      return 0;",
+          "    }",
+          "    return n.trim().length();",
+          "  }",
+          "",
+          "  public @Nullable Class%2$d find(String key, int position) {",
+          "    List<Class%2$d> candidates = index.get(key);",
+          "    if (candidates == null || position >= candidates.size()) {",
+          "      return next;",
+          "    }",
+          "    return candidates.get(position);",
+          "  }",
+          "",
+          "  public void add(String key, Class%2$d value) {",
+          "    List<Class%2$d> list = index.get(key);",
+          "    if (list == null) {",
+          "      list = new ArrayList<>();",
+          "      index.put(key, list);",
+          "    }",
+          "    list.add(value);",
+          "    values.add(list.size());",
+          "    if (next == null) {",
+          "      next = value;",
+          "    }",
+          "  }",
+          "",
+          "  public List<String> sortedKeys() {",
+          "    List<String> keys = new ArrayList<>(index.keySet());",
+          "    Collections.sort(keys, (x, y) -> y.length() - x.length());",
+          "    return keys;",
+          "  }",
+          "",
+          "  public String describe(int kind) {",
+          "    StringBuilder sb = new StringBuilder();",
+          "    switch (kind) {",
+          "      case 0:",
+          "        sb.append(\"none\");",
+          "        break;",
+          "      case 1:",
+          "        sb.append(name != null ? name : \"anonymous\");",
+          "        break;",
+          "      default:",
+          "        for (Integer v : values) {",
+          "          sb.append(v).append(',');",
+          "        }",
+          "    }",
+          "    Class%2$d n = next;",
+          "    if (n != null) {",
+          "      sb.append(n.nameLength());",
+          "    }",
+          "    return sb.toString();",
+          "  }",
+          "",
+          "  public int parse(String s) {",
+          "    try {",
+          "      return Integer.parseInt(s) + constants(s.length());",
+          "    } catch (NumberFormatException e) {",
+          "      String message = e.getMessage();",
+          "      return message == null ? -1 : message.length();",
+          "    } finally {",
+          "      values.clear();",
+          "    }",
+          "  }",
+          "",
+          "  public static <T extends Comparable<T>> @Nullable T max(List<? extends T> list) {",
+          "    T result = null;",
+          "    for (T element : list) {",
+          "      if (result == null || element.compareTo(result) > 0) {",
+          "        result = element;",
+          "      }",
+          "    }",
+          "    return result;",
+          "  }",
+          "",
+          "  public @Nullable String maxKey() {",
+          "    return max(sortedKeys());",
+          "  }",
+          "}",
+          "");
+
+  /**
+   * Returns the given number of generated classes. Each class calls the next one, and the last
+   * calls the first.
+   *
+   * @param count the number of classes; must be positive
+   * @return the given number of generated classes
+   */
+  static List<JavaFileObject> generate(int count) {
+    List<JavaFileObject> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String content = String.format(TEMPLATE, i, (i + 1) % count);
+      result.add(Corpus.source(URI.create("string:///synthetic/Class" + i + ".java"), content));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,67 @@
+package org.checkerframework.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.tools.JavaFileObject;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Type-checks a whole corpus, from parsing to the last warning. This puts the other benchmarks in
+ * context: it shows how much a change to one of them matters to users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TypeCheckBenchmark {
+
+  /** The fully-qualified name of the checker. */
+  @Param({
+    "org.checkerframework.checker.nullness.NullnessChecker",
+    "org.checkerframework.common.value.ValueChecker"
+  })
+  public String checker;
+
+  /** The name of the corpus; see {@link Corpus}. */
+  @Param({"synthetic", "basic"})
+  public String corpus;
+
+  /** The source files of the corpus. */
+  private @MonotonicNonNull List<JavaFileObject> sources;
+
+  /** Loads the corpus. */
+  @Setup
+  public void loadCorpus() {
+    sources = Corpus.load(corpus);
+  }
+
+  /**
+   * Compiles the corpus with a new instance of the checker.
+   *
+   * @return the number of diagnostics
+   * @throws ReflectiveOperationException if the checker cannot be instantiated
+   */
+  @Benchmark
+  public int typeCheck() throws ReflectiveOperationException {
+    BaseTypeChecker instance =
+        Class.forName(checker)
+            .asSubclass(BaseTypeChecker.class)
+            .getDeclaredConstructor()
+            .newInstance();
+    return CompiledCorpus.compile(sources, instance).diagnostics.size();
+  }
+}
@@ -0,0 +1,77 @@
+package org.checkerframework.benchmark;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.VariableTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.TypeHierarchy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@code TypeHierarchy.isSubtype}, which is {@code DefaultTypeHierarchy} for most
+ * checkers. The inputs are the types of the initializers and declared types of every initialized
+ * variable of a corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TypeHierarchyBenchmark extends CheckerBenchmark {
+
+  /** The types of the initializers. */
+  private final List<AnnotatedTypeMirror> initializerTypes = new ArrayList<>();
+
+  /** The declared types of the variables, in the same order as {@link #initializerTypes}. */
+  private final List<AnnotatedTypeMirror> variableTypes = new ArrayList<>();
+
+  @Override
+  protected void prepare() {
+    for (Map.Entry<CompilationUnitTree, List<VariableTree>> entry :
+        compiled.initializedVariables.entrySet()) {
+      setRoot(entry.getKey(), false);
+      for (VariableTree variable : entry.getValue()) {
+        initializerTypes.add(factory.getAnnotatedType(variable.getInitializer()));
+        variableTypes.add(factory.getAnnotatedType(variable));
+      }
+    }
+  }
+
+  /**
+   * Checks that the type of each initializer is a subtype of the variable's type, as the visitor
+   * does for assignments. Most of the checks succeed.
+   *
+   * @param bh consumes the results
+   */
+  @Benchmark
+  public void isSubtypeAssignment(Blackhole bh) {
+    TypeHierarchy typeHierarchy = factory.getTypeHierarchy();
+    for (int i = 0; i < initializerTypes.size(); i++) {
+      bh.consume(typeHierarchy.isSubtype(initializerTypes.get(i), variableTypes.get(i)));
+    }
+  }
+
+  /**
+   * Checks whether the type of each variable is a subtype of the type of its initializer. Many of
+   * the checks fail, which often takes a different path through the type hierarchy.
+   *
+   * @param bh consumes the results
+   */
+  @Benchmark
+  public void isSubtypeReversed(Blackhole bh) {
+    TypeHierarchy typeHierarchy = factory.getTypeHierarchy();
+    for (int i = 0; i < initializerTypes.size(); i++) {
+      bh.consume(typeHierarchy.isSubtype(variableTypes.get(i), initializerTypes.get(i)));
+    }
+  }
+}
@@ -163,6 +163,10 @@ public abstract class CheckerFrameworkPerDirectoryTest extends CheckerFrameworkR
     TypecheckResult testResult = new TypecheckExecutor().runTest(config);
     TypecheckResult adjustedTestResult = adjustTypecheckResult(testResult);
     checkResult(adjustedTestResult);
+    if (TestPerformance.isEnabled()) {
+      TestPerformance.checkAgainstBaseline(
+          getClass().getSimpleName() + ":" + testDir, testResult.getCompilationResult());
+    }
   }
 
   /**
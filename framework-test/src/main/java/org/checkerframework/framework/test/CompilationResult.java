@@ -11,16 +11,25 @@ public class CompilationResult {
   private final String javacOutput;
   private final Iterable<? extends JavaFileObject> javaFileObjects;
   private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+  private final long wallTimeNanos;
+  private final long cpuTimeNanos;
+  private final long allocatedBytes;
 
   CompilationResult(
       boolean compiledWithoutError,
       String javacOutput,
       Iterable<? extends JavaFileObject> javaFileObjects,
-      List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+      List<Diagnostic<? extends JavaFileObject>> diagnostics,
+      long wallTimeNanos,
+      long cpuTimeNanos,
+      long allocatedBytes) {
     this.compiledWithoutError = compiledWithoutError;
     this.javacOutput = javacOutput;
     this.javaFileObjects = javaFileObjects;
     this.diagnostics = Collections.unmodifiableList(diagnostics);
+    this.wallTimeNanos = wallTimeNanos;
+    this.cpuTimeNanos = cpuTimeNanos;
+    this.allocatedBytes = allocatedBytes;
   }
 
   /**
@@ -58,4 +67,32 @@ public class CompilationResult {
   public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
     return diagnostics;
   }
+
+  /**
+   * Returns the elapsed time of the compilation, in nanoseconds.
+   *
+   * @return the elapsed time of the compilation, in nanoseconds
+   */
+  public long getWallTimeNanos() {
+    return wallTimeNanos;
+  }
+
+  /**
+   * Returns the CPU time that the compilation used, in nanoseconds, or -1 if the JVM cannot measure
+   * it.
+   *
+   * @return the CPU time that the compilation used, in nanoseconds, or -1
+   */
+  public long getCpuTimeNanos() {
+    return cpuTimeNanos;
+  }
+
+  /**
+   * Returns the number of bytes that the compilation allocated, or -1 if the JVM cannot measure it.
+   *
+   * @return the number of bytes that the compilation allocated, or -1
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
 }
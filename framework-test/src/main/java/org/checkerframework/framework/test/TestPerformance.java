@@ -0,0 +1,333 @@
+package org.checkerframework.framework.test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Assert;
+import org.plumelib.util.SystemPlume;
+
+/**
+ * Compares the cost of type-checking each test directory to a baseline, so that a change that
+ * makes a checker slower shows up in its test suite. {@link TypecheckExecutor} measures the wall
+ * time, CPU time, and allocation of every compilation; {@link CheckerFrameworkPerDirectoryTest}
+ * passes them to {@link #checkAgainstBaseline} if the following system property is set:
+ *
+ * <dl>
+ *   <dt>{@code test.perf.baseline}
+ *   <dd>The baseline file. A test directory that is not in the file is added to it; one that is in
+ *       it is compared to it. Several test suites, even in different JVMs, may share one file.
+ * </dl>
+ *
+ * These system properties customize the comparison:
+ *
+ * <dl>
+ *   <dt>{@code test.perf.ratio}
+ *   <dd>A test directory regresses if its CPU time or its allocation is more than this many times
+ *       its baseline. The default is {@value #DEFAULT_RATIO}.
+ *   <dt>{@code test.perf.minMillis}
+ *   <dd>The CPU time of a test directory is not compared if its baseline is less than this many
+ *       milliseconds, because short times are too noisy. The default is {@value
+ *       #DEFAULT_MIN_MILLIS}.
+ *   <dt>{@code test.perf.fail}
+ *   <dd>If true, a regression fails the test. Otherwise, it is printed as a warning.
+ *   <dt>{@code test.perf.update}
+ *   <dd>If true, the measurements replace the baseline instead of being compared to it.
+ * </dl>
+ *
+ * The wall time is recorded in the baseline for reference, but is not compared, because it depends
+ * on the load of the machine. Measurements are only comparable on the same machine and JDK.
+ */
+public final class TestPerformance {
+
+  /** Class cannot be instantiated. */
+  private TestPerformance() {
+    throw new AssertionError("Class TestPerformance cannot be instantiated.");
+  }
+
+  /** The default value of the {@code test.perf.ratio} system property. */
+  private static final double DEFAULT_RATIO = 1.5;
+
+  /** The default value of the {@code test.perf.minMillis} system property. */
+  private static final long DEFAULT_MIN_MILLIS = 1000;
+
+  /** The first line of a baseline file. */
+  private static final String HEADER =
+      "# test directory\twall time (ms)\tCPU time (ms)\tallocated bytes";
+
+  /** The bean that measures CPU time, or null if the JVM cannot measure it. */
+  private static final @Nullable ThreadMXBean threadBean = getThreadBean();
+
+  /**
+   * The bean that measures the memory allocated by a thread, or null if the JVM cannot measure it.
+   */
+  private static final com.sun.management.@Nullable ThreadMXBean allocationBean =
+      getAllocationBean();
+
+  /**
+   * Returns true if the {@code test.perf.baseline} system property is set.
+   *
+   * @return true if performance should be compared to a baseline
+   */
+  public static boolean isEnabled() {
+    String baseline = System.getProperty("test.perf.baseline");
+    return baseline != null && !baseline.isEmpty();
+  }
+
+  /**
+   * Returns the CPU time of the current thread, in nanoseconds, or -1 if the JVM cannot measure it.
+   *
+   * @return the CPU time of the current thread, in nanoseconds, or -1
+   */
+  static long currentThreadCpuTime() {
+    return threadBean == null ? -1 : threadBean.getCurrentThreadCpuTime();
+  }
+
+  /**
+   * Returns the number of bytes that the current thread has allocated, or -1 if the JVM cannot
+   * measure it.
+   *
+   * @return the number of bytes that the current thread has allocated, or -1
+   */
+  static long currentThreadAllocatedBytes() {
+    return allocationBean == null
+        ? -1
+        : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Returns {@code end - start}, or -1 if either is -1.
+   *
+   * @param start a measurement, or -1 if unknown
+   * @param end a later measurement, or -1 if unknown
+   * @return {@code end - start}, or -1 if either is -1
+   */
+  static long difference(long start, long end) {
+    return (start < 0 || end < 0) ? -1 : end - start;
+  }
+
+  /**
+   * Compares the measurements of a compilation to the baseline, or adds them to the baseline if it
+   * has none for {@code key}. Does nothing if {@link #isEnabled} is false.
+   *
+   * @param key the name of the test directory, unique among all test suites that share the
+   *     baseline file; it must not contain a tab or a line break
+   * @param result the result of compiling the test directory
+   */
+  public static synchronized void checkAgainstBaseline(String key, CompilationResult result) {
+    String baselineFile = System.getProperty("test.perf.baseline");
+    if (baselineFile == null || baselineFile.isEmpty()) {
+      return;
+    }
+    Measurement current =
+        new Measurement(
+            result.getWallTimeNanos() / 1_000_000,
+            result.getCpuTimeNanos() < 0 ? -1 : result.getCpuTimeNanos() / 1_000_000,
+            result.getAllocatedBytes());
+    Measurement baseline;
+    try {
+      baseline = updateBaseline(Paths.get(baselineFile), key, current);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot update performance baseline " + baselineFile, e);
+    }
+    if (baseline == null) {
+      return;
+    }
+
+    double ratio = getDoubleProperty("test.perf.ratio", DEFAULT_RATIO);
+    long minMillis = (long) getDoubleProperty("test.perf.minMillis", DEFAULT_MIN_MILLIS);
+    List<String> regressions = new ArrayList<>(2);
+    if (baseline.cpuMillis >= minMillis
+        && current.cpuMillis >= 0
+        && current.cpuMillis > baseline.cpuMillis * ratio) {
+      regressions.add(
+          String.format(
+              "CPU time %d ms, baseline %d ms", current.cpuMillis, baseline.cpuMillis));
+    }
+    if (baseline.allocatedBytes > 0
+        && current.allocatedBytes >= 0
+        && current.allocatedBytes > baseline.allocatedBytes * ratio) {
+      regressions.add(
+          String.format(
+              "allocated %d MB, baseline %d MB",
+              current.allocatedBytes >> 20, baseline.allocatedBytes >> 20));
+    }
+    if (regressions.isEmpty()) {
+      return;
+    }
+    String message =
+        String.format(
+            "Performance regression in %s (more than %.2f times the baseline in %s): %s",
+            key, ratio, baselineFile, String.join("; ", regressions));
+    if (SystemPlume.getBooleanSystemProperty("test.perf.fail")) {
+      Assert.fail(message);
+    } else {
+      System.out.println("warning: " + message);
+    }
+  }
+
+  /**
+   * Reads the baseline for {@code key} and, if there is none or if {@code test.perf.update} is
+   * true, writes {@code current} as the baseline. Locks the file while doing so, because test
+   * suites in other JVMs may be updating it.
+   *
+   * @param file the baseline file
+   * @param key the name of the test directory
+   * @param current the measurements of the test directory
+   * @return the baseline to compare {@code current} to, or null if {@code current} was written as
+   *     the baseline
+   * @throws IOException if the file cannot be read or written
+   */
+  private static @Nullable Measurement updateBaseline(Path file, String key, Measurement current)
+      throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    try (FileChannel channel =
+            FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock = channel.lock()) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        // Keep reading.
+      }
+      Map<String, Measurement> entries =
+          parse(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+      Measurement baseline = entries.get(key);
+      if (baseline != null && !SystemPlume.getBooleanSystemProperty("test.perf.update")) {
+        return baseline;
+      }
+
+      entries.put(key, current);
+      StringBuilder content = new StringBuilder(HEADER).append('\n');
+      for (Map.Entry<String, Measurement> entry : entries.entrySet()) {
+        Measurement m = entry.getValue();
+        content.append(
+            String.format(
+                "%s\t%d\t%d\t%d%n", entry.getKey(), m.wallMillis, m.cpuMillis, m.allocatedBytes));
+      }
+      channel.truncate(0);
+      channel.write(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)), 0);
+      return null;
+    }
+  }
+
+  /**
+   * Parses the content of a baseline file. Ignores lines that are blank, comments, or malformed.
+   *
+   * @param content the content of a baseline file
+   * @return the measurements for each test directory, sorted by name
+   */
+  private static Map<String, Measurement> parse(String content) {
+    Map<String, Measurement> result = new TreeMap<>();
+    for (String line : content.split("\r?\n")) {
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] fields = line.split("\t");
+      if (fields.length != 4) {
+        continue;
+      }
+      try {
+        result.put(
+            fields[0],
+            new Measurement(
+                Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+      } catch (NumberFormatException e) {
+        // Ignore the malformed line; it is dropped when the file is next written.
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the value of a system property as a double.
+   *
+   * @param name the name of the system property
+   * @param defaultValue the value to return if the property is not set
+   * @return the value of the system property, or {@code defaultValue} if it is not set
+   */
+  private static double getDoubleProperty(String name, double defaultValue) {
+    String value = System.getProperty(name);
+    if (value == null || value.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          String.format("System property %s should be a number, but is \"%s\"", name, value), e);
+    }
+  }
+
+  /**
+   * Returns the bean that measures CPU time, or null if the JVM cannot measure it.
+   *
+   * @return the bean that measures CPU time, or null
+   */
+  private static @Nullable ThreadMXBean getThreadBean() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    return bean.isCurrentThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled() ? bean : null;
+  }
+
+  /**
+   * Returns the bean that measures the memory allocated by a thread, or null if the JVM cannot
+   * measure it.
+   *
+   * @return the bean that measures the memory allocated by a thread, or null
+   */
+  private static com.sun.management.@Nullable ThreadMXBean getAllocationBean() {
+    try {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) bean;
+        if (result.isThreadAllocatedMemorySupported() && result.isThreadAllocatedMemoryEnabled()) {
+          return result;
+        }
+      }
+    } catch (LinkageError | UnsupportedOperationException e) {
+      // The JVM cannot measure allocation.
+    }
+    return null;
+  }
+
+  /** The cost of compiling one test directory. */
+  private static class Measurement {
+
+    /** The wall time, in milliseconds. */
+    final long wallMillis;
+
+    /** The CPU time, in milliseconds, or -1 if unknown. */
+    final long cpuMillis;
+
+    /** The number of bytes allocated, or -1 if unknown. */
+    final long allocatedBytes;
+
+    /**
+     * Creates a new Measurement.
+     *
+     * @param wallMillis the wall time, in milliseconds
+     * @param cpuMillis the CPU time, in milliseconds, or -1 if unknown
+     * @param allocatedBytes the number of bytes allocated, or -1 if unknown
+     */
+    Measurement(long wallMillis, long cpuMillis, long allocatedBytes) {
+      this.wallMillis = wallMillis;
+      this.cpuMillis = cpuMillis;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+}
@@ -113,10 +113,23 @@ public class TypecheckExecutor {
        * expected/unexpected messages, but not the std out/err messages from
        * that particular test. Can we improve this somehow?
        */
+      long startCpu = TestPerformance.currentThreadCpuTime();
+      long startBytes = TestPerformance.currentThreadAllocatedBytes();
+      long startWall = System.nanoTime();
       Boolean compiledWithoutError = task.call();
+      long wallTime = System.nanoTime() - startWall;
+      long cpuTime = TestPerformance.difference(startCpu, TestPerformance.currentThreadCpuTime());
+      long allocatedBytes =
+          TestPerformance.difference(startBytes, TestPerformance.currentThreadAllocatedBytes());
       javacOutput.flush();
       return new CompilationResult(
-          compiledWithoutError, javacOutput.toString(), javaFiles, diagnostics.getDiagnostics());
+          compiledWithoutError,
+          javacOutput.toString(),
+          javaFiles,
+          diagnostics.getDiagnostics(),
+          wallTime,
+          cpuTime,
+          allocatedBytes);
     } catch (IOException e) {
       throw new Error(e);
     }
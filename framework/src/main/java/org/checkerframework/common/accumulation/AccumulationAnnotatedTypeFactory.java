@@ -423,6 +423,19 @@ public abstract class AccumulationAnnotatedTypeFactory
      */
     @Override
     public AnnotationMirror greatestLowerBoundQualifiers(AnnotationMirror a1, AnnotationMirror a2) {
+      return memoizedGreatestLowerBound(a1, a2, this::computeGreatestLowerBound);
+    }
+
+    /**
+     * Returns the union of the accumulated values of a1 and a2, or the conjunction of their
+     * predicates if either is a predicate. The result is bottom if either argument is bottom, or if
+     * exactly one is polymorphic. Returns a1 or a2 itself when it already contains the union.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @return the greatest lower bound of a1 and a2
+     */
+    private AnnotationMirror computeGreatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
       if (AnnotationUtils.areSame(a1, bottom) || AnnotationUtils.areSame(a2, bottom)) {
         return bottom;
       }
@@ -466,6 +479,20 @@ public abstract class AccumulationAnnotatedTypeFactory
      */
     @Override
     public AnnotationMirror leastUpperBoundQualifiers(AnnotationMirror a1, AnnotationMirror a2) {
+      return memoizedLeastUpperBound(a1, a2, this::computeLeastUpperBound);
+    }
+
+    /**
+     * Returns the intersection of the accumulated values of a1 and a2, or the disjunction of their
+     * predicates if either is a predicate. If one argument is bottom, the result is the other; if
+     * exactly one is polymorphic, the result is top. Returns a1 or a2 itself when it already
+     * equals the intersection.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @return the least upper bound of a1 and a2
+     */
+    private AnnotationMirror computeLeastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
       if (AnnotationUtils.areSame(a1, bottom)) {
         return a2;
       } else if (AnnotationUtils.areSame(a2, bottom)) {
@@ -512,6 +539,20 @@ public abstract class AccumulationAnnotatedTypeFactory
      */
     @Override
     public boolean isSubtypeQualifiers(AnnotationMirror subAnno, AnnotationMirror superAnno) {
+      return memoizedIsSubtype(subAnno, superAnno, this::computeIsSubtype);
+    }
+
+    /**
+     * Returns true if the accumulated values of subAnno include those of superAnno. Bottom is a
+     * subtype of everything, a polymorphic qualifier is a subtype only of itself and top, and a
+     * predicate is compared using {@link AccumulationAnnotatedTypeFactory#isPredicateSubtype} or
+     * {@link AccumulationAnnotatedTypeFactory#evaluatePredicate(AnnotationMirror, String)}.
+     *
+     * @param subAnno possible subqualifier
+     * @param superAnno possible superqualifier
+     * @return true if subAnno is a subtype of superAnno
+     */
+    private boolean computeIsSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
       if (AnnotationUtils.areSame(subAnno, bottom)) {
         return true;
       } else if (AnnotationUtils.areSame(superAnno, bottom)) {
@@ -1,5 +1,6 @@
 package org.checkerframework.common.basetype;
 
+import com.sun.source.tree.CompilationUnitTree;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
@@ -158,6 +159,15 @@ public abstract class BaseTypeChecker extends SourceChecker {
     return getTypeFactory().getTypeFactoryOfSubcheckerOrNull(subCheckerClass);
   }
 
+  @Override
+  protected boolean canSkipCompilationUnit(CompilationUnitTree root) {
+    // Purity checking and whole-program inference do not depend on the relevant Java types.
+    if (visitor == null || hasOption("checkPurityAnnotations") || hasOption("infer")) {
+      return false;
+    }
+    return !getTypeFactory().mayBeRelevantTo(root);
+  }
+
   @Override
   protected Object processErrorMessageArg(Object arg) {
     if (arg instanceof Collection) {
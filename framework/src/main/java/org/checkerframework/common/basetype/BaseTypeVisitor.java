@@ -130,6 +130,7 @@ import org.checkerframework.framework.util.Contract.Precondition;
 import org.checkerframework.framework.util.ContractsFromMethod;
 import org.checkerframework.framework.util.FieldInvariants;
 import org.checkerframework.framework.util.JavaParserUtil;
+import org.checkerframework.framework.util.PhaseEvents;
 import org.checkerframework.framework.util.StringToJavaExpression;
 import org.checkerframework.framework.util.typeinference8.InferenceResult;
 import org.checkerframework.javacutil.AnnotationBuilder;
@@ -1024,29 +1025,30 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
     // boilerplate
     long startMillis = System.currentTimeMillis();
     Tree startSlowTypeCheckingTree = slowTypecheckingTree;
-
-    // We copy the result from getAnnotatedType to ensure that circular types (e.g. K extends
-    // Comparable<K>) are represented by circular AnnotatedTypeMirrors, which avoids problems
-    // with later checks.
-    // TODO: Find a cleaner way to ensure circular AnnotatedTypeMirrors.
-    AnnotatedExecutableType methodType = atypeFactory.getAnnotatedType(tree).deepCopy();
     MethodTree preMT = methodTree;
-    methodTree = tree;
     ExecutableElement methodElement = TreeUtils.elementFromDeclaration(tree);
 
-    warnAboutTypeAnnotationsTooEarly(tree, tree.getModifiers());
-
-    if (tree.getReturnType() != null) {
-      visitAnnotatedType(tree.getModifiers().getAnnotations(), tree.getReturnType());
-      warnRedundantAnnotations(tree.getReturnType(), methodType.getReturnType());
-    } else if (TreeUtils.isConstructor(tree)) {
-      maybeReportAnnoOnIrrelevant(
-          tree.getModifiers(),
-          methodType.getReturnType().getUnderlyingType(),
-          tree.getModifiers().getAnnotations());
-    }
-
+    PhaseEvents.Timer timer = PhaseEvents.begin(PhaseEvents.Phase.METHOD_TYPE_CHECKING, checker);
     try {
+      // We copy the result from getAnnotatedType to ensure that circular types (e.g. K extends
+      // Comparable<K>) are represented by circular AnnotatedTypeMirrors, which avoids problems
+      // with later checks.
+      // TODO: Find a cleaner way to ensure circular AnnotatedTypeMirrors.
+      AnnotatedExecutableType methodType = atypeFactory.getAnnotatedType(tree).deepCopy();
+      methodTree = tree;
+
+      warnAboutTypeAnnotationsTooEarly(tree, tree.getModifiers());
+
+      if (tree.getReturnType() != null) {
+        visitAnnotatedType(tree.getModifiers().getAnnotations(), tree.getReturnType());
+        warnRedundantAnnotations(tree.getReturnType(), methodType.getReturnType());
+      } else if (TreeUtils.isConstructor(tree)) {
+        maybeReportAnnoOnIrrelevant(
+            tree.getModifiers(),
+            methodType.getReturnType().getUnderlyingType(),
+            tree.getModifiers().getAnnotations());
+      }
+
       if (TreeUtils.isAnonymousConstructor(tree)) {
         // We shouldn't dig deeper
         return;
@@ -1120,6 +1122,7 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
       super.visitMethod(tree, null);
     } finally {
       methodTree = preMT;
+      timer.end(methodElement);
     }
 
     checkSlowTypechecking(tree, startSlowTypeCheckingTree, startMillis);
@@ -113,6 +113,19 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
 
   @Override
   public AnnotationMirror greatestLowerBoundQualifiers(AnnotationMirror a1, AnnotationMirror a2) {
+    return memoizedGreatestLowerBound(a1, a2, this::computeGreatestLowerBound);
+  }
+
+  /**
+   * Returns a1 or a2 if one is a subtype of the other. Otherwise, if one is a {@code @StringVal},
+   * returns the {@code @StringVal} of its strings that the other permits; in all other cases,
+   * returns {@code @BottomVal}.
+   *
+   * @param a1 the first qualifier
+   * @param a2 the second qualifier
+   * @return the greatest lower bound of a1 and a2
+   */
+  private AnnotationMirror computeGreatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
     if (isSubtypeQualifiers(a1, a2)) {
       return a1;
     } else if (isSubtypeQualifiers(a2, a1)) {
@@ -227,6 +240,21 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
   @Override
   public @Nullable AnnotationMirror leastUpperBoundQualifiers(
       AnnotationMirror a1, AnnotationMirror a2) {
+    return memoizedLeastUpperBound(a1, a2, this::computeLeastUpperBound);
+  }
+
+  /**
+   * Returns a1 or a2 if one is a subtype of the other, after converting special {@code @IntRange}
+   * annotations to standard ones. Otherwise, merges the values of two annotations of the same kind,
+   * or converts annotations of different kinds, such as {@code @IntVal} and {@code @IntRange}, to a
+   * common kind before merging them; returns {@code @UnknownVal} if there is no common kind.
+   *
+   * @param a1 the first qualifier
+   * @param a2 the second qualifier
+   * @return the least upper bound of a1 and a2, or null if they are in different hierarchies
+   */
+  private @Nullable AnnotationMirror computeLeastUpperBound(
+      AnnotationMirror a1, AnnotationMirror a2) {
     if (!AnnotationUtils.areSameByName(getTopAnnotation(a1), getTopAnnotation(a2))) {
       // The annotations are in different hierarchies
       return null;
@@ -450,6 +478,21 @@ final class ValueQualifierHierarchy extends ElementQualifierHierarchy {
    */
   @Override
   public boolean isSubtypeQualifiers(AnnotationMirror subAnno, AnnotationMirror superAnno) {
+    return memoizedIsSubtype(subAnno, superAnno, this::computeIsSubtype);
+  }
+
+  /**
+   * Returns true if every value that subAnno permits is permitted by superAnno, after converting
+   * special {@code @IntRange} annotations to standard ones. The top, bottom, and polymorphic
+   * qualifiers are compared by their position in the hierarchy. Otherwise, compares the values of
+   * two annotations of the same kind, or converts the values of subAnno when superAnno is of a
+   * different kind that can represent them, such as {@code @IntVal} to {@code @DoubleVal}.
+   *
+   * @param subAnno possible subqualifier
+   * @param superAnno possible superqualifier
+   * @return true if subAnno is a subtype of superAnno, false otherwise
+   */
+  private boolean computeIsSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
     subAnno = atypeFactory.convertSpecialIntRangeToStandardIntRange(subAnno);
     superAnno = atypeFactory.convertSpecialIntRangeToStandardIntRange(superAnno);
     String subQualName = AnnotationUtils.annotationName(subAnno);
@@ -2,7 +2,6 @@ package org.checkerframework.framework.flow;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -142,12 +141,12 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    */
   protected CFAbstractStore(CFAbstractAnalysis<V, S, ?> analysis, boolean sequentialSemantics) {
     this.analysis = analysis;
-    this.localVariableValues = new HashMap<>();
+    this.localVariableValues = new CopyOnWriteMap<>();
     this.thisValue = null;
-    this.fieldValues = new HashMap<>();
-    this.methodCallExpressions = new HashMap<>();
-    this.arrayValues = new HashMap<>();
-    this.classValues = new HashMap<>();
+    this.fieldValues = new CopyOnWriteMap<>();
+    this.methodCallExpressions = new CopyOnWriteMap<>();
+    this.arrayValues = new CopyOnWriteMap<>();
+    this.classValues = new CopyOnWriteMap<>();
     this.sequentialSemantics = sequentialSemantics;
     this.assumeSideEffectFree =
         analysis.checker.hasOption("assumeSideEffectFree")
@@ -162,12 +161,12 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    */
   protected CFAbstractStore(CFAbstractStore<V, S> other) {
     this.analysis = other.analysis;
-    this.localVariableValues = new HashMap<>(other.localVariableValues);
+    this.localVariableValues = CopyOnWriteMap.copyOf(other.localVariableValues);
     this.thisValue = other.thisValue;
-    this.fieldValues = new HashMap<>(other.fieldValues);
-    this.methodCallExpressions = new HashMap<>(other.methodCallExpressions);
-    this.arrayValues = new HashMap<>(other.arrayValues);
-    this.classValues = new HashMap<>(other.classValues);
+    this.fieldValues = CopyOnWriteMap.copyOf(other.fieldValues);
+    this.methodCallExpressions = CopyOnWriteMap.copyOf(other.methodCallExpressions);
+    this.arrayValues = CopyOnWriteMap.copyOf(other.arrayValues);
+    this.classValues = CopyOnWriteMap.copyOf(other.classValues);
     this.sequentialSemantics = other.sequentialSemantics;
     this.assumeSideEffectFree = other.assumeSideEffectFree;
     this.assumePureGetters = other.assumePureGetters;
@@ -377,7 +376,7 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    */
   private void updateFieldValuesForMethodCall(
       GenericAnnotatedTypeFactory<V, S, ?, ?> atypeFactory) {
-    Map<FieldAccess, V> newFieldValues = new HashMap<>(MapsP.mapCapacity(fieldValues));
+    Map<FieldAccess, V> newFieldValues = new CopyOnWriteMap<>(MapsP.mapCapacity(fieldValues));
     for (Map.Entry<FieldAccess, V> e : fieldValues.entrySet()) {
       FieldAccess fieldAccess = e.getKey();
       V previousValue = e.getValue();
@@ -1180,20 +1179,10 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
   private S upperBound(S other, boolean shouldWiden) {
     S newStore = analysis.createEmptyStore(sequentialSemantics);
 
-    for (Map.Entry<LocalVariable, V> e : other.localVariableValues.entrySet()) {
-      // local variables that are only part of one store, but not the other are discarded, as
-      // one of store implicitly contains 'top' for that variable.
-      LocalVariable localVar = e.getKey();
-      V thisVal = localVariableValues.get(localVar);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-
-        if (mergedVal != null) {
-          newStore.localVariableValues.put(localVar, mergedVal);
-        }
-      }
-    }
+    // Local variables, fields, array accesses, and method calls that are only part of one store,
+    // but not the other, are discarded, as one store implicitly contains 'top' for them.
+    upperBoundOfMaps(
+        localVariableValues, other.localVariableValues, newStore.localVariableValues, shouldWiden);
 
     // information about the current object
     {
@@ -1206,60 +1195,56 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
       }
     }
 
-    for (Map.Entry<FieldAccess, V> e : other.fieldValues.entrySet()) {
-      // information about fields that are only part of one store, but not the other are
-      // discarded, as one store implicitly contains 'top' for that field.
-      FieldAccess el = e.getKey();
-      V thisVal = fieldValues.get(el);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-        if (mergedVal != null) {
-          newStore.fieldValues.put(el, mergedVal);
-        }
-      }
-    }
-    for (Map.Entry<ArrayAccess, V> e : other.arrayValues.entrySet()) {
-      // information about arrays that are only part of one store, but not the other are
-      // discarded, as one store implicitly contains 'top' for that array access.
-      ArrayAccess el = e.getKey();
-      V thisVal = arrayValues.get(el);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-        if (mergedVal != null) {
-          newStore.arrayValues.put(el, mergedVal);
-        }
-      }
-    }
-    for (Map.Entry<MethodCall, V> e : other.methodCallExpressions.entrySet()) {
-      // information about methods that are only part of one store, but not the other are
-      // discarded, as one store implicitly contains 'top' for that field.
-      MethodCall el = e.getKey();
-      V thisVal = methodCallExpressions.get(el);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-        if (mergedVal != null) {
-          newStore.methodCallExpressions.put(el, mergedVal);
-        }
-      }
+    upperBoundOfMaps(fieldValues, other.fieldValues, newStore.fieldValues, shouldWiden);
+    upperBoundOfMaps(arrayValues, other.arrayValues, newStore.arrayValues, shouldWiden);
+    upperBoundOfMaps(
+        methodCallExpressions,
+        other.methodCallExpressions,
+        newStore.methodCallExpressions,
+        shouldWiden);
+    upperBoundOfMaps(classValues, other.classValues, newStore.classValues, shouldWiden);
+    return newStore;
+  }
+
+  /**
+   * Puts into {@code result} an upper bound of the values of each key that is in both {@code
+   * thisMap} and {@code otherMap}. If {@code thisMap} and {@code otherMap} still share their
+   * entries, because neither has been modified since one was copied from the other, their least
+   * upper bound is either of them, and this method makes {@code result} a copy of {@code thisMap}
+   * without visiting its entries.
+   *
+   * @param <K> the type of the keys
+   * @param thisMap a map of this store
+   * @param otherMap the corresponding map of the other store
+   * @param result the corresponding map of the new store, which is empty
+   * @param shouldWiden true if the method should perform widening
+   */
+  private <K> void upperBoundOfMaps(
+      Map<K, V> thisMap, Map<K, V> otherMap, Map<K, V> result, boolean shouldWiden) {
+    if (!shouldWiden
+        && CopyOnWriteMap.haveSameEntries(thisMap, otherMap)
+        && CopyOnWriteMap.copyInto(thisMap, result)) {
+      return;
     }
-    for (Map.Entry<ClassName, V> e : other.classValues.entrySet()) {
-      ClassName el = e.getKey();
-      V thisVal = classValues.get(el);
+    for (Map.Entry<K, V> e : otherMap.entrySet()) {
+      K key = e.getKey();
+      V thisVal = thisMap.get(key);
       if (thisVal != null) {
         V otherVal = e.getValue();
         V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
         if (mergedVal != null) {
-          newStore.classValues.put(el, mergedVal);
+          result.put(key, mergedVal);
         }
       }
     }
-    return newStore;
   }
 
+  @SuppressWarnings("interning:not.interned") // efficiency pre-test
   private V upperBoundOfValues(V otherVal, V thisVal, boolean shouldWiden) {
+    if (!shouldWiden && otherVal == thisVal) {
+      // The least upper bound of a value and itself is the value.
+      return thisVal;
+    }
     return shouldWiden ? thisVal.widenUpperBound(otherVal) : thisVal.leastUpperBound(otherVal);
   }
 
@@ -1270,40 +1255,29 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    * predicate.
    */
   protected boolean supersetOf(CFAbstractStore<V, S> other) {
-    for (Map.Entry<LocalVariable, V> e : other.localVariableValues.entrySet()) {
-      LocalVariable key = e.getKey();
-      V value = localVariableValues.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
-    }
-    if (!Objects.equals(thisValue, other.thisValue)) {
-      return false;
-    }
-    for (Map.Entry<FieldAccess, V> e : other.fieldValues.entrySet()) {
-      FieldAccess key = e.getKey();
-      V value = fieldValues.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
-    }
-    for (Map.Entry<ArrayAccess, V> e : other.arrayValues.entrySet()) {
-      ArrayAccess key = e.getKey();
-      V value = arrayValues.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
-    }
-    for (Map.Entry<MethodCall, V> e : other.methodCallExpressions.entrySet()) {
-      MethodCall key = e.getKey();
-      V value = methodCallExpressions.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
+    return mapSupersetOf(localVariableValues, other.localVariableValues)
+        && Objects.equals(thisValue, other.thisValue)
+        && mapSupersetOf(fieldValues, other.fieldValues)
+        && mapSupersetOf(arrayValues, other.arrayValues)
+        && mapSupersetOf(methodCallExpressions, other.methodCallExpressions)
+        && mapSupersetOf(classValues, other.classValues);
+  }
+
+  /**
+   * Returns true iff {@code thisMap} contains a superset of the entries of {@code otherMap}, by
+   * Java equality. Does not visit the entries if the maps still share them.
+   *
+   * @param <K> the type of the keys
+   * @param thisMap a map of this store
+   * @param otherMap the corresponding map of the other store
+   * @return true iff {@code thisMap} contains a superset of the entries of {@code otherMap}
+   */
+  private static <K, V> boolean mapSupersetOf(Map<K, V> thisMap, Map<K, V> otherMap) {
+    if (CopyOnWriteMap.haveSameEntries(thisMap, otherMap)) {
+      return true;
     }
-    for (Map.Entry<ClassName, V> e : other.classValues.entrySet()) {
-      ClassName key = e.getKey();
-      V value = classValues.get(key);
+    for (Map.Entry<K, V> e : otherMap.entrySet()) {
+      V value = thisMap.get(e.getKey());
       if (value == null || !value.equals(e.getValue())) {
         return false;
       }
@@ -0,0 +1,467 @@
+package org.checkerframework.framework.flow;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A hash map whose copies share their entries until one of them is modified. Copying takes
+ * constant time; the first modification of a copy, or of the map it was copied from, copies the
+ * entries.
+ *
+ * <p>{@link CFAbstractStore} keeps its information in maps of this class, because a store is
+ * copied at every block boundary and conditional branch, but most of its maps are not modified
+ * before the next copy. Two maps whose entries are still shared are known to be equal without
+ * comparing them; see {@link #haveSameEntries}.
+ *
+ * <p>Like {@link HashMap}, this class permits null values and is not thread-safe. The views
+ * returned by {@link #keySet}, {@link #values}, and {@link #entrySet} support removal, and the
+ * entries support {@link Map.Entry#setValue}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class CopyOnWriteMap<K, V> implements Map<K, V> {
+
+  /**
+   * The entries. If {@link #shared} is true, other maps may also refer to this hash map, and it
+   * must not be modified.
+   */
+  private HashMap<K, V> map;
+
+  /** True if other maps may refer to {@link #map}. Once true for a hash map, it stays true. */
+  private boolean shared;
+
+  /** Creates a new, empty CopyOnWriteMap. */
+  CopyOnWriteMap() {
+    this.map = new HashMap<>();
+    this.shared = false;
+  }
+
+  /**
+   * Creates a new, empty CopyOnWriteMap with the given initial capacity.
+   *
+   * @param initialCapacity the initial capacity
+   */
+  CopyOnWriteMap(int initialCapacity) {
+    this.map = new HashMap<>(initialCapacity);
+    this.shared = false;
+  }
+
+  /**
+   * Creates a new CopyOnWriteMap that shares the given entries.
+   *
+   * @param map the entries, which must not be modified
+   */
+  private CopyOnWriteMap(HashMap<K, V> map) {
+    this.map = map;
+    this.shared = true;
+  }
+
+  /**
+   * Returns a copy of the given map. Takes constant time if {@code m} is a CopyOnWriteMap.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param m a map
+   * @return a copy of {@code m}
+   */
+  static <K, V> CopyOnWriteMap<K, V> copyOf(Map<K, V> m) {
+    if (m instanceof CopyOnWriteMap) {
+      return ((CopyOnWriteMap<K, V>) m).copy();
+    }
+    CopyOnWriteMap<K, V> result = new CopyOnWriteMap<>();
+    result.map.putAll(m);
+    return result;
+  }
+
+  /**
+   * Returns a copy of this map, in constant time.
+   *
+   * @return a copy of this map
+   */
+  CopyOnWriteMap<K, V> copy() {
+    shared = true;
+    return new CopyOnWriteMap<>(map);
+  }
+
+  /**
+   * Returns true if both maps are CopyOnWriteMaps that still share their entries. Such maps are
+   * equal. Maps that do not share their entries may be equal too.
+   *
+   * @param m1 a map
+   * @param m2 a map
+   * @return true if {@code m1} and {@code m2} are CopyOnWriteMaps that share their entries
+   */
+  @SuppressWarnings("interning:not.interned") // comparing the backing hash maps
+  static boolean haveSameEntries(Map<?, ?> m1, Map<?, ?> m2) {
+    return m1 instanceof CopyOnWriteMap
+        && m2 instanceof CopyOnWriteMap
+        && ((CopyOnWriteMap<?, ?>) m1).map == ((CopyOnWriteMap<?, ?>) m2).map;
+  }
+
+  /**
+   * If {@code to} is an empty CopyOnWriteMap and {@code from} is a CopyOnWriteMap, makes {@code to}
+   * a copy of {@code from} in constant time.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param from the map to copy
+   * @param to the map to make a copy of {@code from}
+   * @return true if {@code to} is now a copy of {@code from}, false if neither map was changed
+   */
+  static <K, V> boolean copyInto(Map<K, V> from, Map<K, V> to) {
+    if (!(from instanceof CopyOnWriteMap) || !(to instanceof CopyOnWriteMap) || !to.isEmpty()) {
+      return false;
+    }
+    CopyOnWriteMap<K, V> source = (CopyOnWriteMap<K, V>) from;
+    CopyOnWriteMap<K, V> target = (CopyOnWriteMap<K, V>) to;
+    source.shared = true;
+    target.map = source.map;
+    target.shared = true;
+    return true;
+  }
+
+  /** Ensures that this map does not share its entries with another one, so it may modify them. */
+  private void prepareToWrite() {
+    if (shared) {
+      map = new HashMap<>(map);
+      shared = false;
+    }
+  }
+
+  /**
+   * Returns true if {@code entries}, which a view of this map is iterating over, may be modified
+   * directly through the iterator.
+   *
+   * @param entries the hash map that an iterator was created on
+   * @return true if {@code entries} is the current, unshared entries of this map
+   */
+  @SuppressWarnings("interning:not.interned") // comparing the backing hash maps
+  private boolean isWritable(HashMap<K, V> entries) {
+    return entries == map && !shared;
+  }
+
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return map.containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    return map.containsValue(value);
+  }
+
+  @Override
+  public @Nullable V get(Object key) {
+    return map.get(key);
+  }
+
+  @Override
+  public @Nullable V put(K key, V value) {
+    prepareToWrite();
+    return map.put(key, value);
+  }
+
+  @Override
+  public @Nullable V remove(Object key) {
+    if (!map.containsKey(key)) {
+      return null;
+    }
+    prepareToWrite();
+    return map.remove(key);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> m) {
+    if (m.isEmpty()) {
+      return;
+    }
+    prepareToWrite();
+    map.putAll(m);
+  }
+
+  @Override
+  public void clear() {
+    if (map.isEmpty()) {
+      return;
+    }
+    if (shared) {
+      map = new HashMap<>();
+      shared = false;
+    } else {
+      map.clear();
+    }
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    map.forEach(action);
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return new AbstractSet<K>() {
+      @Override
+      public int size() {
+        return map.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return map.containsKey(o);
+      }
+
+      @Override
+      public boolean remove(Object o) {
+        if (!map.containsKey(o)) {
+          return false;
+        }
+        CopyOnWriteMap.this.remove(o);
+        return true;
+      }
+
+      @Override
+      public void clear() {
+        CopyOnWriteMap.this.clear();
+      }
+
+      @Override
+      public Iterator<K> iterator() {
+        return new ViewIterator<K>() {
+          @Override
+          K element(Map.Entry<K, V> entry) {
+            return entry.getKey();
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public Collection<V> values() {
+    return new AbstractCollection<V>() {
+      @Override
+      public int size() {
+        return map.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return map.containsValue(o);
+      }
+
+      @Override
+      public void clear() {
+        CopyOnWriteMap.this.clear();
+      }
+
+      @Override
+      public Iterator<V> iterator() {
+        return new ViewIterator<V>() {
+          @Override
+          V element(Map.Entry<K, V> entry) {
+            return entry.getValue();
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public int size() {
+        return map.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return map.entrySet().contains(o);
+      }
+
+      @Override
+      public boolean remove(Object o) {
+        if (!map.entrySet().contains(o)) {
+          return false;
+        }
+        CopyOnWriteMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+        return true;
+      }
+
+      @Override
+      public void clear() {
+        CopyOnWriteMap.this.clear();
+      }
+
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new ViewIterator<Map.Entry<K, V>>() {
+          @Override
+          Map.Entry<K, V> element(Map.Entry<K, V> entry) {
+            return new Entry(entries, entry);
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (o instanceof CopyOnWriteMap && haveSameEntries(this, (CopyOnWriteMap<?, ?>) o)) {
+      return true;
+    }
+    return map.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    return map.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return map.toString();
+  }
+
+  /**
+   * An iterator over a view of this map. It iterates over the entries that the map had when the
+   * iterator was created. If those entries are shared with another map, removing an element
+   * through the iterator first copies them, and then removes the element from the copy.
+   *
+   * @param <T> the type of the elements of the view
+   */
+  private abstract class ViewIterator<T> implements Iterator<T> {
+
+    /** The hash map that this iterates over. */
+    final HashMap<K, V> entries = map;
+
+    /** The iterator over {@link #entries}. */
+    private final Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+
+    /** The entry that was last returned, or null if there is none or it was removed. */
+    private Map.@Nullable Entry<K, V> last = null;
+
+    /**
+     * Returns the element of the view that corresponds to the given entry.
+     *
+     * @param entry an entry of {@link #entries}
+     * @return the element of the view that corresponds to {@code entry}
+     */
+    abstract T element(Map.Entry<K, V> entry);
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+      last = iterator.next();
+      return element(last);
+    }
+
+    @Override
+    public void remove() {
+      Map.Entry<K, V> entry = last;
+      if (entry == null) {
+        throw new IllegalStateException();
+      }
+      if (isWritable(entries)) {
+        iterator.remove();
+      } else {
+        prepareToWrite();
+        map.remove(entry.getKey());
+      }
+      last = null;
+    }
+  }
+
+  /**
+   * An entry of this map. If the entries of the map are shared with another map, setting the value
+   * of an entry first copies them, and then sets the value in the copy.
+   */
+  private final class Entry implements Map.Entry<K, V> {
+
+    /** The hash map that contains {@link #entry}. */
+    private final HashMap<K, V> entries;
+
+    /** The entry of {@link #entries} that this represents. */
+    private final Map.Entry<K, V> entry;
+
+    /** The value of this entry. */
+    private V value;
+
+    /**
+     * Creates a new Entry.
+     *
+     * @param entries the hash map that contains {@code entry}
+     * @param entry the entry of {@code entries} that this represents
+     */
+    Entry(HashMap<K, V> entries, Map.Entry<K, V> entry) {
+      this.entries = entries;
+      this.entry = entry;
+      this.value = entry.getValue();
+    }
+
+    @Override
+    public K getKey() {
+      return entry.getKey();
+    }
+
+    @Override
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      if (isWritable(entries)) {
+        entry.setValue(value);
+      } else {
+        prepareToWrite();
+        map.put(entry.getKey(), value);
+      }
+      V result = this.value;
+      this.value = value;
+      return result;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      return Objects.equals(getKey(), other.getKey()) && Objects.equals(value, other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + value;
+    }
+  }
+}
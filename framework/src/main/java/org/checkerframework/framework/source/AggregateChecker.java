@@ -43,6 +43,12 @@ public abstract class AggregateChecker extends SourceChecker {
     return new LinkedHashSet<>(getSupportedCheckers());
   }
 
+  @Override
+  protected boolean canSkipSubchecker(SourceChecker subchecker, CompilationUnitTree root) {
+    // The subcheckers are independent, so each one can be skipped on its own.
+    return subchecker.canSkipCompilationUnitWithSubcheckers(root);
+  }
+
   @Override
   protected SourceVisitor<?, ?> createSourceVisitor() {
     return new SourceVisitor<Void, Void>(this) {
@@ -77,7 +77,10 @@ import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.reflection.MethodValChecker;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.util.CacheBudget;
+import org.checkerframework.framework.util.CacheStatistics;
 import org.checkerframework.framework.util.CheckerMain;
+import org.checkerframework.framework.util.HotspotReport;
 import org.checkerframework.framework.util.OptionConfiguration;
 import org.checkerframework.framework.util.TreePathCacher;
 import org.checkerframework.javacutil.AbstractTypeProcessor;
@@ -297,6 +300,14 @@ import org.plumelib.util.UtilPlume;
   // Warn about trees that take a long time to typecheck
   "slowTypecheckingSeconds",
 
+  // Write a JSON report of the time and allocation of each phase, per checker, class, and method.
+  // -AhotspotReport writes to standard output; -AhotspotReport=FILE writes to FILE.
+  // org.checkerframework.framework.util.HotspotReport
+  "hotspotReport",
+
+  // The number of classes and of methods listed by -AhotspotReport; the default is 50.
+  "hotspotReportSize",
+
   // Print the version of the Checker Framework
   "version",
   // Print info about git repository from which the Checker Framework was compiled
@@ -408,6 +419,24 @@ import org.plumelib.util.UtilPlume;
   // Sets AnnotatedTypeFactory shouldCache to false
   "atfDoNotCache",
 
+  // How many nodes apart, within a block, are the transfer results cached for store queries.
+  // -AflowCheckpointInterval=8 caches every 8th result, re-running at most 7 nodes per query.
+  // org.checkerframework.framework.type.GenericAnnotatedTypeFactory.getFlowCheckpointInterval()
+  "flowCheckpointInterval",
+
+  // Skip dataflow analysis of methods in which it could not refine any type.
+  // org.checkerframework.framework.type.GenericAnnotatedTypeFactory.canSkipFlowAnalysis()
+  "flowSkipTrivialMethods",
+
+  // Skip type-checking a file with a checker whose type system cannot apply to it.
+  // org.checkerframework.framework.source.SourceChecker.canSkipCompilationUnit()
+  "skipIrrelevantFiles",
+
+  // Print hit, miss, and eviction counts for each cache at the end of type processing.
+  // -AcacheStats prints text; -AcacheStats=json prints one JSON object per checker.
+  // org.checkerframework.framework.source.SourceChecker.typeProcessingOver()
+  "cacheStats",
+
   // Language Server Protocol (LSP) Support
 
   // TODO: document `-AlspTypeInfo` in manual, as a debugging option.
@@ -663,6 +692,24 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
    */
   protected TreePathCacher treePathCacher = null;
 
+  /**
+   * CacheBudget to share between subcheckers. Initialized either in {@link #getCacheBudget()} or
+   * {@link #instantiateSubcheckers(Map)}.
+   */
+  protected @Nullable CacheBudget cacheBudget = null;
+
+  /**
+   * Statistics for the caches registered with {@link #registerCache}. Null if the {@code
+   * -AcacheStats} command-line option was not passed.
+   */
+  private @MonotonicNonNull CacheStatistics cacheStatistics = null;
+
+  /**
+   * The report written if the {@code -AhotspotReport} command-line option is passed. Null in
+   * subcheckers, which use their ultimate parent's report, and if the option was not passed.
+   */
+  private @MonotonicNonNull HotspotReport hotspotReport = null;
+
   /** Creates a source checker. */
   protected SourceChecker() {}
 
@@ -746,8 +793,12 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     currentRoot = newRoot;
     visitor.setRoot(currentRoot);
     if (parentChecker == null) {
-      // Only clear the path cache if this is the main checker.
+      // Only clear the path cache, and adapt the caches to the free heap, if this is the main
+      // checker.
       treePathCacher.clear();
+      if (cacheBudget != null) {
+        cacheBudget.adjust();
+      }
     }
   }
 
@@ -1057,6 +1108,19 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
       checker.typeProcessingOver();
     }
 
+    if (cacheStatistics != null) {
+      String checkerName = getClass().getSimpleName();
+      if ("json".equals(getOption("cacheStats"))) {
+        System.out.println(cacheStatistics.toJson(checkerName));
+      } else {
+        System.out.println(cacheStatistics.toText(checkerName));
+      }
+    }
+
+    if (hotspotReport != null) {
+      hotspotReport.write(getOption("hotspotReport"));
+    }
+
     super.typeProcessingOver();
   }
 
@@ -1078,6 +1142,10 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     // Set the active options for this checker and all subcheckers.
     getOptions();
 
+    if (parentChecker == null && hasOption("hotspotReport")) {
+      hotspotReport = new HotspotReport(getHotspotReportSize());
+    }
+
     // Initialize all checkers and share supported lint options.
     for (SourceChecker checker : getSubcheckers()) {
       // Each checker should "support" all possible lint options - otherwise
@@ -1194,6 +1262,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
       immediateSubcheckers.add(instance);
       instance.setProcessingEnvironment(this.processingEnv);
       instance.treePathCacher = this.getTreePathCacher();
+      instance.cacheBudget = this.getCacheBudget();
       // Prevent the new checker from storing non-immediate subcheckers
       instance.subcheckers = Collections.emptyList();
       instance.immediateSubcheckers =
@@ -1233,14 +1302,150 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
   public TreePathCacher getTreePathCacher() {
     if (treePathCacher == null) {
       // In case it wasn't already set in instantiateSubcheckers.
-      treePathCacher = new TreePathCacher();
+      treePathCacher = new TreePathCacher(registerCache("TreePathCacher", new HashMap<>(32)));
     }
     return treePathCacher;
   }
 
+  /**
+   * Returns the shared CacheBudget instance, which limits the size of the LRU caches of the type
+   * factories of this checker and its subcheckers.
+   *
+   * @return the shared CacheBudget instance
+   */
+  public CacheBudget getCacheBudget() {
+    if (cacheBudget == null) {
+      // In case it wasn't already set in instantiateSubcheckers.
+      cacheBudget = new CacheBudget();
+    }
+    return cacheBudget;
+  }
+
+  /**
+   * Returns the report to which phases of type-checking are recorded, or null if the {@code
+   * -AhotspotReport} command-line option was not passed. All the subcheckers of a checker share its
+   * report.
+   *
+   * @return the report to which phases of type-checking are recorded, or null
+   */
+  public @Nullable HotspotReport getHotspotReport() {
+    return parentChecker == null ? hotspotReport : parentChecker.getHotspotReport();
+  }
+
+  /**
+   * Returns the number of classes and of methods that the hotspot report lists. It is either the
+   * value supplied via the {@code -AhotspotReportSize} option or 50.
+   *
+   * @return the number of classes and of methods that the hotspot report lists
+   */
+  private int getHotspotReportSize() {
+    String option = getOption("hotspotReportSize");
+    if (option == null) {
+      return 50;
+    }
+    try {
+      int parsed = Integer.parseInt(option);
+      if (parsed < 0) {
+        throw new UserError("hotspotReportSize must be a non-negative integer: " + option);
+      }
+      return parsed;
+    } catch (NumberFormatException ex) {
+      throw new UserError("hotspotReportSize must be a non-negative integer: " + option);
+    }
+  }
+
+  /**
+   * Registers a cache whose hits, misses, and evictions are reported if the {@code -AcacheStats}
+   * command-line option is passed. Clients should make all reads and writes through the returned
+   * map.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param name the name under which to report the cache
+   * @param cache the cache
+   * @return {@code cache}, or a view of it that counts lookups and evictions if {@code
+   *     -AcacheStats} was passed
+   */
+  public <K, V> Map<K, V> registerCache(String name, Map<K, V> cache) {
+    if (cacheStatistics == null) {
+      if (!hasOption("cacheStats")) {
+        return cache;
+      }
+      cacheStatistics = new CacheStatistics();
+    }
+    return cacheStatistics.register(name, cache);
+  }
+
+  /** The compilation unit for which {@link #canSkipLastRoot} was computed, or null. */
+  private @Nullable CompilationUnitTree lastSkipRoot = null;
+
+  /** True if this checker and its subcheckers can skip {@link #lastSkipRoot}. */
+  private boolean canSkipLastRoot = false;
+
+  /**
+   * Returns true if this checker, not counting its subcheckers, cannot issue any diagnostic about
+   * the given compilation unit. If it and all its subcheckers return true, then {@code
+   * -AskipIrrelevantFiles} skips type-checking the unit with them.
+   *
+   * <p>The default implementation returns false.
+   *
+   * @param root a compilation unit
+   * @return true if this checker cannot issue any diagnostic about {@code root}
+   */
+  protected boolean canSkipCompilationUnit(CompilationUnitTree root) {
+    return false;
+  }
+
+  /**
+   * Returns true if {@code -AskipIrrelevantFiles} was passed and neither this checker nor any of
+   * its subcheckers can issue a diagnostic about the given compilation unit. The result is cached
+   * for the most recent compilation unit, because {@link #typeProcess} runs once per top-level
+   * class.
+   *
+   * @param root a compilation unit
+   * @return true if this checker and its subcheckers can skip {@code root}
+   */
+  final boolean canSkipCompilationUnitWithSubcheckers(CompilationUnitTree root) {
+    if (root != lastSkipRoot) {
+      lastSkipRoot = root;
+      canSkipLastRoot = hasOption("skipIrrelevantFiles") && !warnUnneededSuppressions;
+      if (canSkipLastRoot) {
+        canSkipLastRoot = canSkipCompilationUnit(root);
+      }
+      for (SourceChecker subchecker : getSubcheckers()) {
+        if (!canSkipLastRoot) {
+          break;
+        }
+        canSkipLastRoot = subchecker.canSkipCompilationUnitWithSubcheckers(root);
+      }
+    }
+    return canSkipLastRoot;
+  }
+
+  /**
+   * Returns true if the given subchecker need not run on the given compilation unit. The default
+   * implementation returns false, because a checker generally uses the types that its subcheckers
+   * compute, even where they issue no diagnostic; the whole hierarchy of checkers is skipped
+   * instead, if possible.
+   *
+   * @param subchecker an immediate subchecker of this checker
+   * @param root a compilation unit
+   * @return true if {@code subchecker} need not run on {@code root}
+   */
+  protected boolean canSkipSubchecker(SourceChecker subchecker, CompilationUnitTree root) {
+    return false;
+  }
+
   /**
    * Type-check the code using this checker's visitor.
    *
+   * <p>This method is invoked on the javac thread, from the task listener in {@link
+   * AbstractTypeProcessor}, interleaved with javac's own processing of previously-analyzed classes.
+   * Type-checking must stay on that thread: javac completes symbols lazily and its {@code Types},
+   * {@code Log}, and symbol tables are not thread-safe, nor are the caches of the type factories.
+   * Compilation units are therefore checked one at a time. To use more cores, compile independent
+   * modules in parallel in the build system.
+   *
    * @see Processor#process(Set, RoundEnvironment)
    */
   @Override
@@ -1261,8 +1466,23 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
     Log log = Log.instance(context);
 
+    // If this checker and its subcheckers skip the compilation unit, the error-count bookkeeping
+    // below still runs, so that an error issued by javac in the unit is noticed.
+    boolean skipCompilationUnit =
+        parentChecker == null
+            && p != null
+            && canSkipCompilationUnitWithSubcheckers(p.getCompilationUnit());
+
     int numErrorsOfAllPreviousCheckers = this.errsOnLastExit;
+    // Run the subcheckers one at a time, in the order computed by getSubcheckers().  Sibling
+    // subcheckers are not run concurrently:  besides the thread-safety constraints described in
+    // this method's Javadoc, the error-count bookkeeping below relies on each subchecker's
+    // messages being issued before the next subchecker starts.
     for (SourceChecker subchecker : getSubcheckers()) {
+      if (skipCompilationUnit
+          || (p != null && canSkipSubchecker(subchecker, p.getCompilationUnit()))) {
+        continue;
+      }
       subchecker.errsOnLastExit = numErrorsOfAllPreviousCheckers;
       subchecker.messageStore = messageStore;
       int errorsBeforeTypeChecking = log.nerrors;
@@ -1319,6 +1539,10 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
       return;
     }
 
+    if (skipCompilationUnit) {
+      return;
+    }
+
     if (visitor == null) {
       // typeProcessingStart invokes initChecker, which should have set the visitor. If the
       // field is still null, an exception occurred during initialization, which was already
@@ -1985,6 +2209,10 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
    * being printed. (See {@link #printOrStoreMessage(Diagnostic.Kind, String, Tree,
    * CompilationUnitTree)}.)
    *
+   * <p>Subcheckers are run sequentially, in dependency order, even if two of them do not depend on
+   * one another. They run on the javac thread, share the {@link TreePathCacher} and the message
+   * store, and a checker's type factory may query the type factory of any subchecker it depends on.
+   *
    * <p>WARNING: Circular dependencies are not supported. (In other words, if checker A depends on
    * checker B, checker B cannot depend on checker A.) The Checker Framework does not check for
    * circularity. Make sure no circular dependencies are created when overriding this method.
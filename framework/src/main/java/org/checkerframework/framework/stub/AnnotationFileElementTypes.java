@@ -18,8 +18,10 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
@@ -35,6 +37,7 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.CanonicalNameOrEmpty;
 import org.checkerframework.common.basetype.BaseTypeChecker;
@@ -87,6 +90,20 @@ public class AnnotationFileElementTypes {
    */
   private final Map<String, String> remainingJdkStubFilesJar = new HashMap<>();
 
+  /**
+   * Maps the path of a jar file to the annotated JDK files it contains. Thus, checker.jar is opened
+   * and enumerated once per JVM rather than once per type factory and compilation. This matters
+   * when the JVM runs many compilations, as a build daemon does. If the jar file is modified, its
+   * index is replaced. The old index is not closed, because type factories that are still running
+   * may read from it; its jar file is closed when the old index becomes unreachable.
+   *
+   * <p>Access to this map is synchronized on the map itself.
+   */
+  private static final Map<String, JdkJarIndex> jdkJarIndexes = new HashMap<>();
+
+  /** The annotated JDK files in checker.jar. Set by {@link #prepJdkFromJar}. */
+  private @MonotonicNonNull JdkJarIndex jdkJarIndex;
+
   /** Which version number of the annotated JDK should be used? */
   private final String annotatedJdkVersion;
 
@@ -231,8 +248,10 @@ public class AnnotationFileElementTypes {
               stubFileName,
               jdkVersionStubIn);
         }
+        URL stubFileURL = checkerClass.getResource(stubFileName);
         AnnotationFileParser.parseStubFile(
-            checkerClass.getResource(stubFileName).toString(),
+            stubFileURL.toString(),
+            getSharingKey(stubFileURL),
             jdkVersionStubIn,
             factory,
             processingEnv,
@@ -361,8 +380,14 @@ public class AnnotationFileElementTypes {
         }
         try (InputStream in = checker.getClass().getResourceAsStream(path)) {
           if (in != null) {
+            // Only built-in stub files are shared. Other files might change between
+            // compilations.
+            String sharingKey =
+                (fileType == AnnotationFileType.BUILTIN_STUB)
+                    ? getSharingKey(checker.getClass().getResource(path))
+                    : null;
             AnnotationFileParser.parseStubFile(
-                path, in, factory, processingEnv, annotationFileAnnos, fileType);
+                path, sharingKey, in, factory, processingEnv, annotationFileAnnos, fileType);
           } else {
             // Didn't find the file.  Issue a warning.
 
@@ -740,6 +765,7 @@ public class AnnotationFileElementTypes {
     try (FileInputStream jdkStub = new FileInputStream(path.toFile())) {
       AnnotationFileParser.parseJdkFileAsStub(
           path.toFile().getName(),
+          path.toUri() + File.pathSeparator + path.toFile().lastModified(),
           jdkStub,
           factory,
           factory.getProcessingEnv(),
@@ -761,17 +787,18 @@ public class AnnotationFileElementTypes {
       System.out.printf("entered parseJdkJarEntry(%s)%n", jarEntryName);
     }
 
-    JarURLConnection connection = getJarURLConnectionToJdk();
+    assert jdkJarIndex != null : "@AssumeAssertion(nullness): set by prepJdkFromJar";
     parsing = true;
-    try (JarFile jarFile = connection.getJarFile()) {
-      try (InputStream jdkStub = jarFile.getInputStream(jarFile.getJarEntry(jarEntryName))) {
-        AnnotationFileParser.parseJdkFileAsStub(
-            jarEntryName, jdkStub, factory, factory.getProcessingEnv(), annotationFileAnnos);
-      } catch (IOException e) {
-        throw new BugInCF("cannot open the jdk stub file " + jarEntryName, e);
-      }
+    try (InputStream jdkStub = jdkJarIndex.getInputStream(jarEntryName)) {
+      AnnotationFileParser.parseJdkFileAsStub(
+          jarEntryName,
+          jdkJarIndex.key + "!/" + jarEntryName,
+          jdkStub,
+          factory,
+          factory.getProcessingEnv(),
+          annotationFileAnnos);
     } catch (IOException e) {
-      throw new BugInCF("cannot open the Jar file " + connection.getEntryName(), e);
+      throw new BugInCF("cannot open the jdk stub file " + jarEntryName, e);
     } catch (BugInCF e) {
       throw new BugInCF("Exception while parsing " + jarEntryName + ": " + e.getMessage(), e);
     } finally {
@@ -783,28 +810,6 @@ public class AnnotationFileElementTypes {
     }
   }
 
-  /**
-   * Returns a JarURLConnection to "/jdk*".
-   *
-   * @return a JarURLConnection to "/jdk*"
-   */
-  private JarURLConnection getJarURLConnectionToJdk() {
-    URL resourceURL = factory.getClass().getResource("/annotated-jdk");
-    JarURLConnection connection;
-    try {
-      connection = (JarURLConnection) resourceURL.openConnection();
-
-      // disable caching / connection sharing of the low level URLConnection to the Jarfile
-      connection.setDefaultUseCaches(false);
-      connection.setUseCaches(false);
-
-      connection.connect();
-    } catch (IOException e) {
-      throw new BugInCF("cannot open a connection to the Jar file " + resourceURL.getFile(), e);
-    }
-    return connection;
-  }
-
   /**
    * Walk through the JDK directory and create a mapping, {@link #remainingJdkStubFiles}, from file
    * name to the class contained with in it. Also, parses all package-info.java files.
@@ -896,12 +901,140 @@ public class AnnotationFileElementTypes {
    *
    * @param jdkJarfile the URL pointing to the JDK jarfile
    */
-  private void prepJdkFromJar(@SuppressWarnings("UnusedVariable") URL jdkJarfile) {
-    JarURLConnection connection = getJarURLConnectionToJdk();
+  private void prepJdkFromJar(URL jdkJarfile) {
+    JdkJarIndex index = getJdkJarIndex(jdkJarfile);
+    jdkJarIndex = index;
+    if (parseAllJdkFiles) {
+      for (String jarEntryName : index.entryNames) {
+        parseJdkJarEntry(jarEntryName);
+      }
+    } else {
+      for (String jarEntryName : index.packageInfoEntryNames) {
+        parseJdkJarEntry(jarEntryName);
+      }
+      remainingJdkStubFilesJar.putAll(index.classEntries);
+    }
+    if (stubDebug) {
+      String factoryClass = factory.getClass().getSimpleName().toString();
+      String jarFileURL = index.jarFileURL.toString();
+      System.out.printf(
+          "Contents of remainingJdkStubFilesJar for %s from %s:%n", factoryClass, jarFileURL);
+      printSortedIndented(remainingJdkStubFilesJar.keySet());
+      System.out.printf(
+          "End of remainingJdkStubFilesJar for %s from %s.%n", factoryClass, jarFileURL);
+
+      System.out.printf("Contents of %s:%n", jarFileURL);
+      assert jarFileURL.startsWith("file:");
+      ProcessBuilder pb =
+          new ProcessBuilder(
+              "/bin/sh", "-c", "jar tf '" + jarFileURL.substring(5) + "' | LC_ALL=C sort");
+      pb.redirectOutput(Redirect.INHERIT);
+      pb.redirectError(Redirect.INHERIT);
+      try {
+        Process p = pb.start();
+        p.waitFor();
+      } catch (IOException | InterruptedException e) {
+        // do nothing
+      }
+      System.out.flush();
+      SystemPlume.sleep(1);
+      System.out.printf("End of %s.%n", jarFileURL);
+    }
+  }
+
+  /**
+   * Returns the annotated JDK files in the jar file that contains the given resource, computing
+   * them if they have not already been computed in this JVM.
+   *
+   * @param jdkJarfile the URL pointing to the JDK jarfile
+   * @return the annotated JDK files in the jar file that contains {@code jdkJarfile}
+   */
+  private static JdkJarIndex getJdkJarIndex(URL jdkJarfile) {
+    URL jarFileURL;
+    File jar;
+    try {
+      // Opening the connection does not read the jar file; only connect() does.
+      jarFileURL = ((JarURLConnection) jdkJarfile.openConnection()).getJarFileURL();
+      jar = new File(jarFileURL.toURI());
+    } catch (IOException | URISyntaxException e) {
+      throw new BugInCF("cannot open a connection to the Jar file " + jdkJarfile.getFile(), e);
+    }
+    String path = jar.getPath();
+    // The jar file may be replaced while a long-lived JVM is running.
+    long lastModified = jar.lastModified();
+    synchronized (jdkJarIndexes) {
+      JdkJarIndex result = jdkJarIndexes.get(path);
+      if (result == null || result.lastModified != lastModified) {
+        try {
+          result = new JdkJarIndex(path, lastModified, jarFileURL, jar);
+        } catch (IOException e) {
+          throw new BugInCF("Cannot open the jar file " + jarFileURL, e);
+        }
+        jdkJarIndexes.put(path, result);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The annotated JDK files in a jar file, and an open handle for reading them.
+   *
+   * <p>The jar file is opened once and is kept open as long as the index is reachable, just as a
+   * class loader keeps its jar files open; {@link JarFile} closes itself when it is reclaimed.
+   * Reading each annotated JDK file through its own {@code JarFile} would re-read the jar's central
+   * directory, which lists every class in checker.jar, each time a JDK class is parsed. {@link
+   * JarFile#getInputStream} may be called concurrently, so an index may be shared by all type
+   * factories in the JVM.
+   */
+  private static class JdkJarIndex {
+
+    /**
+     * Identifies the contents of the jar file: its path and modification time. Used in the names
+     * of the annotated JDK files that are passed to {@link AnnotationFileParser}.
+     */
+    final String key;
+
+    /** The modification time of the jar file when it was opened. */
+    final long lastModified;
+
+    /** The URL of the jar file. */
+    final URL jarFileURL;
+
+    /** The open jar file. */
+    private final JarFile jarFile;
 
-    try (JarFile jarFile = connection.getJarFile()) {
+    /** The names of the jar entries for all annotated JDK files, in order. */
+    final List<String> entryNames;
+
+    /** The names of the jar entries for package-info.java files, in order. */
+    final List<String> packageInfoEntryNames;
+
+    /**
+     * Mapping from fully-qualified class name to the name of the jar entry that defines it, for all
+     * other annotated JDK files. Iteration order is the order of the jar entry names.
+     */
+    final Map<String, String> classEntries;
+
+    /**
+     * Opens the given jar file and enumerates the annotated JDK files in it.
+     *
+     * @param path the path of the jar file
+     * @param lastModified the modification time of the jar file
+     * @param jarFileURL the URL of the jar file
+     * @param jar the jar file containing the annotated JDK
+     * @throws IOException if the jar file cannot be read
+     */
+    @SuppressWarnings("builder:required.method.not.called") // closed when unreachable
+    JdkJarIndex(String path, long lastModified, URL jarFileURL, File jar) throws IOException {
+      this.key = path + File.pathSeparator + lastModified;
+      this.lastModified = lastModified;
+      this.jarFileURL = jarFileURL;
+      this.jarFile = new JarFile(jar);
       ArrayList<JarEntry> entries = CollectionsPlume.makeArrayList(jarFile.entries());
       entries.sort(Comparator.comparing(Object::toString));
+      List<String> entryNames = new ArrayList<>();
+      List<String> packageInfoEntryNames = new ArrayList<>();
+      Map<String, String> classEntries = new LinkedHashMap<>();
       for (JarEntry jarEntry : entries) {
         // filter out directories and non-Java files
         if (jarEntry.isDirectory()) {
@@ -913,44 +1046,62 @@ public class AnnotationFileElementTypes {
             || jarEntryName.endsWith("module-info.java")) {
           continue;
         }
-        if (parseAllJdkFiles || jarEntryName.endsWith("package-info.java")) {
-          parseJdkJarEntry(jarEntryName);
+        entryNames.add(jarEntryName);
+        if (jarEntryName.endsWith("package-info.java")) {
+          packageInfoEntryNames.add(jarEntryName);
           continue;
         }
         int index = jarEntryName.indexOf("/share/classes/") + "/share/classes/".length();
         // "-5" is to remove ".java" from end of file name
         String fqClassName =
             jarEntryName.substring(index, jarEntryName.length() - 5).replace('/', '.');
-        remainingJdkStubFilesJar.put(fqClassName, jarEntryName);
+        classEntries.put(fqClassName, jarEntryName);
       }
-      if (stubDebug) {
-        String factoryClass = factory.getClass().getSimpleName().toString();
-        String jarFileURL = connection.getJarFileURL().toString();
-        System.out.printf(
-            "Contents of remainingJdkStubFilesJar for %s from %s:%n", factoryClass, jarFileURL);
-        printSortedIndented(remainingJdkStubFilesJar.keySet());
-        System.out.printf(
-            "End of remainingJdkStubFilesJar for %s from %s.%n", factoryClass, jarFileURL);
-
-        System.out.printf("Contents of %s:%n", jarFileURL);
-        assert jarFileURL.startsWith("file:");
-        ProcessBuilder pb =
-            new ProcessBuilder(
-                "/bin/sh", "-c", "jar tf '" + jarFileURL.substring(5) + "' | LC_ALL=C sort");
-        pb.redirectOutput(Redirect.INHERIT);
-        pb.redirectError(Redirect.INHERIT);
-        Process p = pb.start();
-        try {
-          p.waitFor();
-        } catch (InterruptedException e) {
-          // do nothing
-        }
-        System.out.flush();
-        SystemPlume.sleep(1);
-        System.out.printf("End of %s.%n", jarFileURL);
+      this.entryNames = Collections.unmodifiableList(entryNames);
+      this.packageInfoEntryNames = Collections.unmodifiableList(packageInfoEntryNames);
+      this.classEntries = Collections.unmodifiableMap(classEntries);
+    }
+
+    /**
+     * Returns an input stream for reading the given jar entry.
+     *
+     * @param jarEntryName the name of a jar entry in {@link #entryNames}
+     * @return an input stream for reading the jar entry
+     * @throws IOException if the jar entry cannot be read
+     */
+    InputStream getInputStream(String jarEntryName) throws IOException {
+      return jarFile.getInputStream(jarFile.getJarEntry(jarEntryName));
+    }
+  }
+
+  /**
+   * Returns a string that identifies the contents of the given resource, for use as the sharing key
+   * of a built-in annotation file that is passed to {@link AnnotationFileParser}. The string
+   * includes the modification time of the file or jar file that contains the resource.
+   *
+   * @param resource a resource in a file or jar file, or null
+   * @return a string that identifies the contents of {@code resource}, or null if the resource is
+   *     null or is neither in a file nor in a jar file
+   */
+  private static @Nullable String getSharingKey(@Nullable URL resource) {
+    if (resource == null) {
+      return null;
+    }
+    try {
+      File file;
+      switch (resource.getProtocol()) {
+        case "file":
+          file = new File(resource.toURI());
+          break;
+        case "jar":
+          file = new File(((JarURLConnection) resource.openConnection()).getJarFileURL().toURI());
+          break;
+        default:
+          return null;
       }
-    } catch (IOException e) {
-      throw new BugInCF("Cannot open the jar file " + connection.getJarFileURL(), e);
+      return resource + File.pathSeparator + file.lastModified();
+    } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+      return null;
     }
   }
 
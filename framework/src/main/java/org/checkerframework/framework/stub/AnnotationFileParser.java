@@ -59,6 +59,9 @@ import com.sun.source.tree.VariableTree;
 import java.io.File;
 import java.io.InputStream;
 import java.lang.annotation.Target;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -103,6 +106,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutab
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVariable;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcardType;
 import org.checkerframework.framework.util.JavaParserUtil;
+import org.checkerframework.framework.util.PhaseEvents;
 import org.checkerframework.framework.util.element.ElementAnnotationUtil.ErrorTypeKindException;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationMirrorSet;
@@ -262,6 +266,49 @@ public class AnnotationFileParser {
   /** True if the {@code -AmergeStubsWithSource} command-line argument was passed. */
   private final boolean mergeStubsWithSource;
 
+  /**
+   * The ASTs of built-in annotation files, such as the annotated JDK and the stub files in
+   * checker.jar, keyed by a string that identifies the file's contents. A compound or aggregate
+   * checker has one type factory per subchecker, and every factory reads the same built-in files;
+   * sharing the ASTs means that each file is parsed by JavaParser once rather than once per
+   * factory. The ASTs do not depend on the compilation, so they are shared by every compilation in
+   * the JVM.
+   *
+   * <p>Only the AST is shared, not the result of processing it: processing builds annotated types
+   * from the qualifiers of one type factory and the elements of the current compilation, so each
+   * factory still processes the shared AST itself. Processing a file only reads its AST, so an AST
+   * can be shared.
+   *
+   * <p>The values are soft references: the garbage collector may reclaim an AST, which is then
+   * re-parsed when it is next needed. The entries of reclaimed ASTs are removed on the next lookup.
+   * Access to this map is synchronized on the map itself.
+   */
+  private static final Map<String, SharedStubUnit> sharedStubUnits = new HashMap<>();
+
+  /**
+   * The references in {@link #sharedStubUnits} whose AST has been reclaimed by the garbage
+   * collector.
+   */
+  private static final ReferenceQueue<StubUnit> reclaimedStubUnits = new ReferenceQueue<>();
+
+  /** A soft reference to a shared AST, which knows its key in {@link #sharedStubUnits}. */
+  private static class SharedStubUnit extends SoftReference<StubUnit> {
+
+    /** The key of this reference in {@link #sharedStubUnits}. */
+    final String sharingKey;
+
+    /**
+     * Creates a new SharedStubUnit.
+     *
+     * @param sharingKey the key of this reference in {@link #sharedStubUnits}
+     * @param stubUnit the shared AST
+     */
+    SharedStubUnit(String sharingKey, StubUnit stubUnit) {
+      super(stubUnit, reclaimedStubUnits);
+      this.sharingKey = sharingKey;
+    }
+  }
+
   /**
    * The result of calling AnnotationFileParser.parse: the annotated types and declaration
    * annotations from the file.
@@ -669,15 +716,52 @@ public class AnnotationFileParser {
       ProcessingEnvironment processingEnv,
       AnnotationFileAnnotations annotationFileAnnos,
       AnnotationFileType fileType) {
+    parseStubFile(
+        filename,
+        null,
+        inputStream,
+        atypeFactory,
+        processingEnv,
+        annotationFileAnnos,
+        fileType);
+  }
+
+  /**
+   * Like {@link #parseStubFile(String, InputStream, AnnotatedTypeFactory, ProcessingEnvironment,
+   * AnnotationFileAnnotations, AnnotationFileType)}, but if {@code sharingKey} is non-null, the AST
+   * of the file is shared with every other call that passes the same key. In that case, {@code
+   * inputStream} is not read if the file has already been parsed.
+   *
+   * @param filename name of stub file, used only for diagnostic messages
+   * @param sharingKey a string that uniquely identifies the contents of the file, or null if the
+   *     file should not be shared
+   * @param inputStream of stub file to parse
+   * @param atypeFactory the type factory
+   * @param processingEnv the processing environment
+   * @param annotationFileAnnos annotations from the annotation file; side-effected by this method
+   * @param fileType the annotation file type and source
+   */
+  public static void parseStubFile(
+      String filename,
+      @Nullable String sharingKey,
+      InputStream inputStream,
+      AnnotatedTypeFactory atypeFactory,
+      ProcessingEnvironment processingEnv,
+      AnnotationFileAnnotations annotationFileAnnos,
+      AnnotationFileType fileType) {
     AnnotationFileParser afp =
         new AnnotationFileParser(filename, atypeFactory, processingEnv, fileType);
+    PhaseEvents.Timer timer =
+        PhaseEvents.begin(PhaseEvents.Phase.ANNOTATION_FILE_PARSING, atypeFactory.getChecker());
     try {
-      afp.parseStubUnit(inputStream);
+      afp.parseStubUnit(inputStream, sharingKey);
       afp.process(annotationFileAnnos);
     } catch (ParseProblemException e) {
       for (Problem p : e.getProblems()) {
         afp.warn(null, p.getVerboseMessage());
       }
+    } finally {
+      timer.end(filename);
     }
   }
 
@@ -701,8 +785,11 @@ public class AnnotationFileParser {
       AnnotationFileAnnotations ajavaAnnos) {
     AnnotationFileParser afp =
         new AnnotationFileParser(filename, atypeFactory, processingEnv, AnnotationFileType.AJAVA);
+    PhaseEvents.Timer timer =
+        PhaseEvents.begin(PhaseEvents.Phase.ANNOTATION_FILE_PARSING, atypeFactory.getChecker());
     try {
-      afp.parseStubUnit(inputStream);
+      // The AST of an ajava file is side-effected, so it must not be shared.
+      afp.parseStubUnit(inputStream, null);
       JavaParserUtil.concatenateAddedStringLiterals(afp.stubUnit);
       afp.setRoot(root);
       afp.process(ajavaAnnos);
@@ -710,6 +797,8 @@ public class AnnotationFileParser {
       for (Problem p : e.getProblems()) {
         afp.warn(null, filename + ": " + p.getVerboseMessage());
       }
+    } finally {
+      timer.end(filename);
     }
   }
 
@@ -729,6 +818,30 @@ public class AnnotationFileParser {
       AnnotatedTypeFactory atypeFactory,
       ProcessingEnvironment processingEnv,
       AnnotationFileAnnotations stubAnnos) {
+    parseJdkFileAsStub(filename, null, inputStream, atypeFactory, processingEnv, stubAnnos);
+  }
+
+  /**
+   * Like {@link #parseJdkFileAsStub(String, InputStream, AnnotatedTypeFactory,
+   * ProcessingEnvironment, AnnotationFileAnnotations)}, but if {@code sharingKey} is non-null, the
+   * AST of the file is shared with every other call that passes the same key. In that case, {@code
+   * inputStream} is not read if the file has already been parsed.
+   *
+   * @param filename name of stub file, used only for diagnostic messages
+   * @param sharingKey a string that uniquely identifies the contents of the file, or null if the
+   *     file should not be shared
+   * @param inputStream of stub file to parse
+   * @param atypeFactory the type factory
+   * @param processingEnv the processing environment
+   * @param stubAnnos annotations from the stub file; side-effected by this method
+   */
+  public static void parseJdkFileAsStub(
+      String filename,
+      @Nullable String sharingKey,
+      InputStream inputStream,
+      AnnotatedTypeFactory atypeFactory,
+      ProcessingEnvironment processingEnv,
+      AnnotationFileAnnotations stubAnnos) {
     Map<String, String> options = processingEnv.getOptions();
     boolean debugAnnotationFileParser = options.containsKey("stubDebug");
     if (debugAnnotationFileParser) {
@@ -739,7 +852,13 @@ public class AnnotationFileParser {
           atypeFactory.getClass().getSimpleName());
     }
     parseStubFile(
-        filename, inputStream, atypeFactory, processingEnv, stubAnnos, AnnotationFileType.JDK_STUB);
+        filename,
+        sharingKey,
+        inputStream,
+        atypeFactory,
+        processingEnv,
+        stubAnnos,
+        AnnotationFileType.JDK_STUB);
   }
 
   /**
@@ -750,12 +869,17 @@ public class AnnotationFileParser {
    * <p>Subsequently, all work uses the AST.
    *
    * @param inputStream the stream from which to read an annotation file
+   * @param sharingKey a string that uniquely identifies the contents of the file, or null if its
+   *     AST should not be shared
    */
-  private void parseStubUnit(InputStream inputStream) {
+  private void parseStubUnit(InputStream inputStream, @Nullable String sharingKey) {
     stubDebug(
         "started parsing annotation file %s for %s",
         filename, atypeFactory.getClass().getSimpleName());
-    stubUnit = JavaParserUtil.parseStubUnit(inputStream);
+    stubUnit =
+        (sharingKey == null)
+            ? JavaParserUtil.parseStubUnit(inputStream)
+            : getSharedStubUnit(sharingKey, inputStream);
 
     // getImportedAnnotations() also modifies importedConstants and importedTypes. This should
     // be refactored to be nicer.
@@ -780,6 +904,48 @@ public class AnnotationFileParser {
     }
   }
 
+  /**
+   * Returns the AST of the file with the given sharing key, parsing {@code inputStream} only if no
+   * AST with that key is in {@link #sharedStubUnits}.
+   *
+   * @param sharingKey a string that uniquely identifies the contents of the file
+   * @param inputStream the stream from which to read the file, if it has not already been parsed
+   * @return the AST of the file
+   */
+  private static StubUnit getSharedStubUnit(String sharingKey, InputStream inputStream) {
+    synchronized (sharedStubUnits) {
+      removeReclaimedStubUnits();
+      SharedStubUnit sharedRef = sharedStubUnits.get(sharingKey);
+      StubUnit shared = (sharedRef == null) ? null : sharedRef.get();
+      if (shared != null) {
+        return shared;
+      }
+    }
+    // Parse outside the lock. If two threads parse the same file concurrently, the ASTs are
+    // equivalent and the last one wins.
+    StubUnit result = JavaParserUtil.parseStubUnit(inputStream);
+    synchronized (sharedStubUnits) {
+      sharedStubUnits.put(sharingKey, new SharedStubUnit(sharingKey, result));
+    }
+    return result;
+  }
+
+  /**
+   * Removes the entries of {@link #sharedStubUnits} whose AST has been reclaimed by the garbage
+   * collector. The caller must hold the lock on {@link #sharedStubUnits}.
+   */
+  @SuppressWarnings("interning:not.interned") // Checking for the same reference
+  private static void removeReclaimedStubUnits() {
+    Reference<? extends StubUnit> reclaimed;
+    while ((reclaimed = reclaimedStubUnits.poll()) != null) {
+      String sharingKey = ((SharedStubUnit) reclaimed).sharingKey;
+      // The key may have been mapped to a new AST since the old one was reclaimed.
+      if (sharedStubUnits.get(sharingKey) == reclaimed) {
+        sharedStubUnits.remove(sharingKey);
+      }
+    }
+  }
+
   /**
    * Process {@link #stubUnit}, which is the AST produced by {@link #parseStubUnit}. Processing
    * means copying annotations from Stub Parser data structures to argument {@code
@@ -346,10 +346,18 @@ public class AnnotatedTypeCopier
   @SuppressWarnings("unchecked")
   protected <T extends AnnotatedTypeMirror> T makeCopy(T original) {
 
-    T copy =
-        (T)
-            AnnotatedTypeMirror.createType(
-                original.getUnderlyingType(), original.atypeFactory, original.isDeclaration());
+    T copy;
+    if (original instanceof AnnotatedDeclaredType
+        && ((AnnotatedDeclaredType) original).enclosingType != null) {
+      // visitDeclared replaces the enclosing type with a copy, so don't create one that would be
+      // discarded. Until then, the copy shares the enclosing type of the original.
+      copy = (T) ((AnnotatedDeclaredType) original).createTypeWithSameEnclosingType();
+    } else {
+      copy =
+          (T)
+              AnnotatedTypeMirror.createType(
+                  original.getUnderlyingType(), original.atypeFactory, original.isDeclaration());
+    }
     maybeCopyPrimaryAnnotations(original, copy);
 
     return copy;
@@ -120,6 +120,7 @@ import org.checkerframework.framework.type.visitor.AnnotatedTypeCombiner;
 import org.checkerframework.framework.type.visitor.SimpleAnnotatedTypeScanner;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.AnnotatedTypes.TypeArguments;
+import org.checkerframework.framework.util.CacheBudget;
 import org.checkerframework.framework.util.CheckerMain;
 import org.checkerframework.framework.util.FieldInvariants;
 import org.checkerframework.framework.util.TreePathCacher;
@@ -497,12 +498,25 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * Should results be cached? This means that ATM.deepCopy() will be called. ATM.deepCopy() used to
    * (and perhaps still does) side effect the ATM being copied. So setting this to false is not
    * equivalent to setting shouldReadCache to false.
+   *
+   * <p>Every read from a cache returns a deep copy, because callers mutate the types they are
+   * given, often through a component type (such as a type argument) that has no link back to the
+   * type that contains it. So a cached type cannot be shared copy-on-write.
    */
   public boolean shouldCache;
 
   /** Size of LRU cache if one isn't specified using the atfCacheSize option. */
   private static final int DEFAULT_CACHE_SIZE = 300;
 
+  /**
+   * The entries of this factory's LRU caches, which are shared with the type factories of the
+   * checker and its subcheckers. Each kind of cache holds about {@link #getCacheSize()} entries in
+   * total across those factories: fewer when the heap is under memory pressure, and more when it
+   * has room. Null if {@link #shouldCache} is false. Caches are created by {@link
+   * #createBudgetedCache}.
+   */
+  protected final @Nullable CacheBudget cacheBudget;
+
   /** Mapping from a Tree to its annotated type; defaults have been applied. */
   private final Map<Tree, AnnotatedTypeMirror> classAndMethodTreeCache;
 
@@ -596,16 +610,17 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
 
     this.shouldCache = !checker.hasOption("atfDoNotCache");
     if (shouldCache) {
-      int cacheSize = getCacheSize();
-      this.classAndMethodTreeCache = MapsP.createLruCache(cacheSize);
-      this.fromExpressionTreeCache = MapsP.createLruCache(cacheSize);
-      this.fromMemberTreeCache = MapsP.createLruCache(cacheSize);
-      this.fromTypeTreeCache = MapsP.createLruCache(cacheSize);
-      this.elementCache = MapsP.createLruCache(cacheSize);
-      this.elementToTreeCache = MapsP.createLruCache(cacheSize);
+      this.cacheBudget = checker.getCacheBudget();
+      this.classAndMethodTreeCache = createBudgetedCache("classAndMethodTreeCache");
+      this.fromExpressionTreeCache = createBudgetedCache("fromExpressionTreeCache");
+      this.fromMemberTreeCache = createBudgetedCache("fromMemberTreeCache");
+      this.fromTypeTreeCache = createBudgetedCache("fromTypeTreeCache");
+      this.elementCache = createBudgetedCache("elementCache");
+      this.elementToTreeCache = createBudgetedCache("elementToTreeCache");
       this.annotationClassNames =
           Collections.synchronizedMap(MapsP.createLruCache(ANNOTATION_CACHE_SIZE));
     } else {
+      this.cacheBudget = null;
       this.classAndMethodTreeCache = null;
       this.fromExpressionTreeCache = null;
       this.fromMemberTreeCache = null;
@@ -1335,8 +1350,23 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
   // **********************************************************************
 
   /**
-   * Returns the size for LRU caches. It is either the value supplied via the {@code -AatfCacheSize}
-   * option or the default cache size.
+   * Registers one of this factory's caches with the checker, so that its hits, misses, and
+   * evictions are reported if the {@code -AcacheStats} command-line option is passed.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param name the name of the cache, which is prefixed by the simple name of this class
+   * @param cache the cache
+   * @return the map through which to read and write the cache
+   * @see SourceChecker#registerCache
+   */
+  protected <K, V> Map<K, V> registerCache(String name, Map<K, V> cache) {
+    return checker.registerCache(getClass().getSimpleName() + "." + name, cache);
+  }
+
+  /**
+   * Returns the maximum size of LRU caches. It is either the value supplied via the {@code
+   * -AatfCacheSize} option or the default cache size.
    *
    * @return cache size passed as argument to checker or DEFAULT_CACHE_SIZE
    */
@@ -1356,6 +1386,24 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     }
   }
 
+  /**
+   * Creates a new, empty LRU cache whose entries are limited by {@link #cacheBudget}, and registers
+   * it with {@link #registerCache}. The caches of the same name in the type factories of the
+   * checker and its subcheckers share {@link #getCacheSize()} entries, scaled by the free heap.
+   * Requires that {@link #shouldCache} is true.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param name the name of the cache, which identifies its kind in the budget
+   * @return a new, empty LRU cache
+   */
+  protected <K, V> Map<K, V> createBudgetedCache(String name) {
+    if (cacheBudget == null) {
+      throw new BugInCF("createBudgetedCache(%s) called when caching is disabled", name);
+    }
+    return registerCache(name, cacheBudget.createCache(name, getCacheSize()));
+  }
+
   /**
    * Returns an AnnotatedTypeMirror representing the annotated type of {@code elt}.
    *
@@ -1405,8 +1453,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     if (tree == null) {
       throw new BugInCF("AnnotatedTypeFactory.getAnnotatedType: null tree");
     }
-    if (shouldCache && classAndMethodTreeCache.containsKey(tree)) {
-      return classAndMethodTreeCache.get(tree).deepCopy();
+    if (shouldCache) {
+      AnnotatedTypeMirror cached = classAndMethodTreeCache.get(tree);
+      if (cached != null) {
+        return cached.deepCopy();
+      }
     }
 
     AnnotatedTypeMirror type;
@@ -1555,8 +1606,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * @return AnnotatedTypeMirror of the element with explicitly-written and stub file annotations
    */
   public AnnotatedTypeMirror fromElement(Element elt) {
-    if (shouldCache && elementCache.containsKey(elt)) {
-      return elementCache.get(elt).deepCopy();
+    if (shouldCache) {
+      AnnotatedTypeMirror cached = elementCache.get(elt);
+      if (cached != null) {
+        return cached.deepCopy();
+      }
     }
     if (elt.getKind() == ElementKind.PACKAGE) {
       return toAnnotatedType(elt.asType(), false);
@@ -1647,8 +1701,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
       throw new BugInCF(
           "AnnotatedTypeFactory.fromMember: not a method or variable declaration: " + tree);
     }
-    if (shouldCache && fromMemberTreeCache.containsKey(tree)) {
-      return fromMemberTreeCache.get(tree).deepCopy();
+    if (shouldCache) {
+      AnnotatedTypeMirror cached = fromMemberTreeCache.get(tree);
+      if (cached != null) {
+        return cached.deepCopy();
+      }
     }
     AnnotatedTypeMirror result = TypeFromTree.fromMember(this, tree);
 
@@ -1741,9 +1798,12 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    */
   private AnnotatedTypeMirror fromExpression(ExpressionTree tree) {
     logGat("fromExpression(%s) of kind %s%n", tree, tree.getKind());
-    if (shouldCache && fromExpressionTreeCache.containsKey(tree)) {
-      logGat("fromExpression(%s) => [cached] %s%n", tree, fromExpressionTreeCache.get(tree));
-      return fromExpressionTreeCache.get(tree).deepCopy();
+    if (shouldCache) {
+      AnnotatedTypeMirror cached = fromExpressionTreeCache.get(tree);
+      if (cached != null) {
+        logGat("fromExpression(%s) => [cached] %s%n", tree, cached);
+        return cached.deepCopy();
+      }
     }
 
     AnnotatedTypeMirror result = TypeFromTree.fromExpression(this, tree);
@@ -1773,8 +1833,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * @return the (partially) annotated type of the type in the AST
    */
   /*package-private*/ final AnnotatedTypeMirror fromTypeTree(Tree tree) {
-    if (shouldCache && fromTypeTreeCache.containsKey(tree)) {
-      return fromTypeTreeCache.get(tree).deepCopy();
+    if (shouldCache) {
+      AnnotatedTypeMirror cached = fromTypeTreeCache.get(tree);
+      if (cached != null) {
+        return cached.deepCopy();
+      }
     }
 
     AnnotatedTypeMirror result = TypeFromTree.fromTypeTree(this, tree);
@@ -3631,8 +3694,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     if (root == null) {
       return null;
     }
-    if (shouldCache && elementToTreeCache.containsKey(elt)) {
-      return elementToTreeCache.get(elt);
+    if (shouldCache) {
+      Tree cached = elementToTreeCache.get(elt);
+      if (cached != null || elementToTreeCache.containsKey(elt)) {
+        return cached;
+      }
     }
 
     // Check for new declarations, outside of the AST.
@@ -973,6 +973,24 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
      */
     private AnnotatedDeclaredType(
         DeclaredType type, AnnotatedTypeFactory atypeFactory, boolean declaration) {
+      this(type, atypeFactory, declaration, null);
+    }
+
+    /**
+     * Constructor for this type. The result contains no annotations.
+     *
+     * @param type underlying kind of this type
+     * @param atypeFactory the AnnotatedTypeFactory used to create this type
+     * @param declaration true if the result should represent a declaration, rather than a use, of
+     *     a type
+     * @param enclosingType the enclosing type of the result, or null to create it from the
+     *     enclosing type of {@code type}
+     */
+    private AnnotatedDeclaredType(
+        DeclaredType type,
+        AnnotatedTypeFactory atypeFactory,
+        boolean declaration,
+        @Nullable AnnotatedDeclaredType enclosingType) {
       super(type, atypeFactory);
       TypeElement typeelem = (TypeElement) type.asElement();
       DeclaredType declty = (DeclaredType) typeelem.asType();
@@ -980,7 +998,9 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
           !declty.getTypeArguments().isEmpty() && type.getTypeArguments().isEmpty();
 
       TypeMirror encl = type.getEnclosingType();
-      if (encl.getKind() == TypeKind.DECLARED) {
+      if (enclosingType != null) {
+        this.enclosingType = enclosingType;
+      } else if (encl.getKind() == TypeKind.DECLARED) {
         this.enclosingType = (AnnotatedDeclaredType) createType(encl, atypeFactory, declaration);
       } else if (encl.getKind() == TypeKind.NONE) {
         this.enclosingType = null;
@@ -1006,6 +1026,19 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
       return (AnnotatedDeclaredType) new AnnotatedTypeCopier(copyAnnotations).visit(this);
     }
 
+    /**
+     * Returns a new declared type with the same underlying type as this, no annotations, and no
+     * type arguments, whose enclosing type is the enclosing type of this. Unlike {@link
+     * #createType}, this does not create a new enclosing type, which a caller that is about to
+     * replace the enclosing type would discard.
+     *
+     * @return a new declared type that shares the enclosing type of this
+     */
+    /*package-private*/ AnnotatedDeclaredType createTypeWithSameEnclosingType() {
+      return new AnnotatedDeclaredType(
+          getUnderlyingType(), atypeFactory, declaration, enclosingType);
+    }
+
     @Override
     public AnnotatedDeclaredType deepCopy() {
       return deepCopy(true);
@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.BiFunction;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.util.Elements;
 import org.checkerframework.checker.initialization.qual.UnderInitialization;
@@ -32,6 +33,12 @@ import org.checkerframework.javacutil.TypeSystemError;
  *
  * <p>Subclasses can override {@link #createQualifierKindHierarchy(Collection)} to return a subclass
  * of QualifierKindHierarchy.
+ *
+ * <p>Computing the lub, glb, or subtype relationship of qualifiers with elements often requires
+ * parsing the element values and building a new annotation. Dataflow asks for the same pairs of
+ * qualifiers many times while iterating to a fixed point, so subclasses can memoize those results
+ * by calling {@link #memoizedLeastUpperBound}, {@link #memoizedGreatestLowerBound}, and {@link
+ * #memoizedIsSubtype} from their implementations.
  */
 @AnnotatedFor("nullness")
 public abstract class ElementQualifierHierarchy extends QualifierHierarchy {
@@ -63,6 +70,15 @@ public abstract class ElementQualifierHierarchy extends QualifierHierarchy {
    */
   protected final Map<QualifierKind, AnnotationMirror> kindToElementlessQualifier;
 
+  /** Memoized results of {@link #leastUpperBoundQualifiers}, or null if caching is disabled. */
+  private final @Nullable MemoTable<AnnotationMirror> lubMemo;
+
+  /** Memoized results of {@link #greatestLowerBoundQualifiers}, or null if caching is disabled. */
+  private final @Nullable MemoTable<AnnotationMirror> glbMemo;
+
+  /** Memoized results of {@link #isSubtypeQualifiers}, or null if caching is disabled. */
+  private final @Nullable MemoTable<Boolean> isSubtypeMemo;
+
   /**
    * Creates a ElementQualifierHierarchy from the given classes.
    *
@@ -87,6 +103,16 @@ public abstract class ElementQualifierHierarchy extends QualifierHierarchy {
     this.bottoms = AnnotationMirrorSet.unmodifiableSet(bottomsMap.values());
 
     this.kindToElementlessQualifier = createElementlessQualifierMap();
+
+    if (atypeFactory.shouldCache) {
+      this.lubMemo = new MemoTable<>(atypeFactory.createBudgetedCache("lubMemo"));
+      this.glbMemo = new MemoTable<>(atypeFactory.createBudgetedCache("glbMemo"));
+      this.isSubtypeMemo = new MemoTable<>(atypeFactory.createBudgetedCache("isSubtypeMemo"));
+    } else {
+      this.lubMemo = null;
+      this.glbMemo = null;
+      this.isSubtypeMemo = null;
+    }
   }
 
   @Override
@@ -260,4 +286,169 @@ public abstract class ElementQualifierHierarchy extends QualifierHierarchy {
       Collection<? extends AnnotationMirror> annos, AnnotationMirror top) {
     return findAnnotationInSameHierarchy(annos, top);
   }
+
+  /**
+   * Returns the least upper bound of {@code a1} and {@code a2}, using a memoized result if one
+   * exists and calling {@code lub} otherwise. Subclasses whose {@link #leastUpperBoundQualifiers}
+   * is expensive should call this from that method; {@code lub} must not depend on anything other
+   * than its arguments.
+   *
+   * @param a1 the first qualifier
+   * @param a2 the second qualifier
+   * @param lub computes the least upper bound of its arguments
+   * @return the least upper bound of {@code a1} and {@code a2}, or null if they are in different
+   *     hierarchies
+   */
+  protected final @Nullable AnnotationMirror memoizedLeastUpperBound(
+      AnnotationMirror a1,
+      AnnotationMirror a2,
+      BiFunction<AnnotationMirror, AnnotationMirror, @Nullable AnnotationMirror> lub) {
+    if (lubMemo == null) {
+      return lub.apply(a1, a2);
+    }
+    return lubMemo.get(a1, a2, lub);
+  }
+
+  /**
+   * Returns the greatest lower bound of {@code a1} and {@code a2}, using a memoized result if one
+   * exists and calling {@code glb} otherwise. Subclasses whose {@link
+   * #greatestLowerBoundQualifiers} is expensive should call this from that method; {@code glb} must
+   * not depend on anything other than its arguments.
+   *
+   * @param a1 the first qualifier
+   * @param a2 the second qualifier
+   * @param glb computes the greatest lower bound of its arguments
+   * @return the greatest lower bound of {@code a1} and {@code a2}, or null if they are in different
+   *     hierarchies
+   */
+  protected final @Nullable AnnotationMirror memoizedGreatestLowerBound(
+      AnnotationMirror a1,
+      AnnotationMirror a2,
+      BiFunction<AnnotationMirror, AnnotationMirror, @Nullable AnnotationMirror> glb) {
+    if (glbMemo == null) {
+      return glb.apply(a1, a2);
+    }
+    return glbMemo.get(a1, a2, glb);
+  }
+
+  /**
+   * Returns true if {@code subAnno} is a subtype of {@code superAnno}, using a memoized result if
+   * one exists and calling {@code isSubtype} otherwise. Subclasses whose {@link
+   * #isSubtypeQualifiers} is expensive should call this from that method; {@code isSubtype} must
+   * not depend on anything other than its arguments.
+   *
+   * @param subAnno possible subqualifier
+   * @param superAnno possible superqualifier
+   * @param isSubtype computes whether its first argument is a subtype of its second argument
+   * @return true iff {@code subAnno} is a subqualifier of, or equal to, {@code superAnno}
+   */
+  protected final boolean memoizedIsSubtype(
+      AnnotationMirror subAnno,
+      AnnotationMirror superAnno,
+      BiFunction<AnnotationMirror, AnnotationMirror, Boolean> isSubtype) {
+    if (isSubtypeMemo == null) {
+      return isSubtype.apply(subAnno, superAnno);
+    }
+    @SuppressWarnings("nullness:assignment") // isSubtype never returns null
+    @NonNull Boolean result = isSubtypeMemo.get(subAnno, superAnno, isSubtype);
+    return result;
+  }
+
+  /**
+   * A bounded table of results of an operation on pairs of qualifiers. Entries are evicted in
+   * least-recently-used order. Null results are not memoized. The table is created by {@link
+   * AnnotatedTypeFactory#createBudgetedCache}, so it shares the factory's cache budget and {@code
+   * -AcacheStats} reports its hits and misses.
+   *
+   * @param <V> the type of the results
+   */
+  private static class MemoTable<V> {
+
+    /** The memoized results. */
+    private final Map<AnnotationMirrorPair, V> results;
+
+    /**
+     * Creates a new MemoTable.
+     *
+     * @param results the map in which to memoize results, which is an empty LRU cache
+     */
+    MemoTable(Map<AnnotationMirrorPair, V> results) {
+      this.results = results;
+    }
+
+    /**
+     * Returns the memoized result for {@code a1} and {@code a2}, computing and memoizing it first
+     * if necessary.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @param operation computes the result
+     * @return the result of {@code operation} for {@code a1} and {@code a2}
+     */
+    @Nullable V get(
+        AnnotationMirror a1,
+        AnnotationMirror a2,
+        BiFunction<AnnotationMirror, AnnotationMirror, ? extends @Nullable V> operation) {
+      AnnotationMirrorPair key = new AnnotationMirrorPair(a1, a2);
+      V result = results.get(key);
+      if (result != null) {
+        return result;
+      }
+      // Don't use Map.computeIfAbsent: operation may recursively use this table.
+      result = operation.apply(a1, a2);
+      if (result != null) {
+        results.put(key, result);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * An ordered pair of annotations, compared using {@link AnnotationUtils#areSame(AnnotationMirror,
+   * AnnotationMirror)}.
+   */
+  private static class AnnotationMirrorPair {
+
+    /** The first annotation. */
+    private final AnnotationMirror first;
+
+    /** The second annotation. */
+    private final AnnotationMirror second;
+
+    /** The hash code of this, which is computed eagerly because it is always used. */
+    private final int hashCode;
+
+    /**
+     * Creates a new pair.
+     *
+     * @param first the first annotation
+     * @param second the second annotation
+     */
+    AnnotationMirrorPair(AnnotationMirror first, AnnotationMirror second) {
+      this.first = first;
+      this.second = second;
+      this.hashCode =
+          31 * AnnotationUtils.annotationMirrorHashCode(first)
+              + AnnotationUtils.annotationMirrorHashCode(second);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof AnnotationMirrorPair)) {
+        return false;
+      }
+      AnnotationMirrorPair other = (AnnotationMirrorPair) obj;
+      return hashCode == other.hashCode
+          && AnnotationUtils.areSame(first, other.first)
+          && AnnotationUtils.areSame(second, other.second);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
 }
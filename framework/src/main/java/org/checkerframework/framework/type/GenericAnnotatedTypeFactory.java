@@ -54,6 +54,7 @@ import org.checkerframework.common.wholeprograminference.WholeProgramInferenceSc
 import org.checkerframework.dataflow.analysis.Analysis;
 import org.checkerframework.dataflow.analysis.Analysis.BeforeOrAfter;
 import org.checkerframework.dataflow.analysis.AnalysisResult;
+import org.checkerframework.dataflow.analysis.ForwardAnalysisImpl;
 import org.checkerframework.dataflow.analysis.TransferInput;
 import org.checkerframework.dataflow.analysis.TransferResult;
 import org.checkerframework.dataflow.cfg.ControlFlowGraph;
@@ -108,6 +109,7 @@ import org.checkerframework.framework.type.typeannotator.PropagationTypeAnnotato
 import org.checkerframework.framework.type.typeannotator.TypeAnnotator;
 import org.checkerframework.framework.util.Contract;
 import org.checkerframework.framework.util.ContractsFromMethod;
+import org.checkerframework.framework.util.PhaseEvents;
 import org.checkerframework.framework.util.StringToJavaExpression;
 import org.checkerframework.framework.util.defaults.QualifierDefaults;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesHelper;
@@ -290,7 +292,7 @@ public abstract class GenericAnnotatedTypeFactory<
   /**
    * Caches for {@link AnalysisResult#runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput,
    * IdentityHashMap, Map)}. This cache is enabled if {@link #shouldCache} is true. The cache size
-   * is derived from {@link #getCacheSize()}.
+   * is limited by {@link #cacheBudget}.
    *
    * @see AnalysisResult#runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput,
    *     IdentityHashMap, Map)
@@ -351,11 +353,11 @@ public abstract class GenericAnnotatedTypeFactory<
 
     this.cfgVisualizer = createCFGVisualizer();
     this.handleCFGViz = checker.hasOption("flowdotdir") || checker.hasOption("cfgviz");
+    this.skipTrivialMethodFlow = checker.hasOption("flowSkipTrivialMethods");
 
     if (shouldCache) {
-      int cacheSize = getCacheSize();
-      flowResultAnalysisCaches = MapsP.createLruCache(cacheSize);
-      initializerCache = MapsP.createLruCache(cacheSize);
+      flowResultAnalysisCaches = createBudgetedCache("flowResultAnalysisCaches");
+      initializerCache = createBudgetedCache("initializerCache");
     } else {
       flowResultAnalysisCaches = null;
       initializerCache = null;
@@ -414,6 +416,7 @@ public abstract class GenericAnnotatedTypeFactory<
     this.poly = createQualifierPolymorphism();
 
     this.analysis = createFlowAnalysis();
+    this.analysis.setCheckpointInterval(getFlowCheckpointInterval());
     this.transfer = analysis.getTransferFunction();
     this.emptyStore = analysis.createEmptyStore(transfer.usesSequentialSemantics());
 
@@ -617,6 +620,30 @@ public abstract class GenericAnnotatedTypeFactory<
     return defaultForTypeAnnotator;
   }
 
+  /**
+   * Returns how many nodes apart, within a block, are the transfer results that {@link
+   * #getStoreBefore(Node)} and {@link #getStoreAfter(Node)} cache. It is either the value supplied
+   * via the {@code -AflowCheckpointInterval} option or 1, which caches the result of every node.
+   *
+   * @return the checkpoint interval of the flow analysis
+   * @see ForwardAnalysisImpl#setCheckpointInterval
+   */
+  protected int getFlowCheckpointInterval() {
+    String option = checker.getOption("flowCheckpointInterval");
+    if (option == null) {
+      return 1;
+    }
+    try {
+      int parsed = Integer.parseInt(option);
+      if (parsed <= 0) {
+        throw new UserError("flowCheckpointInterval must be a positive integer: " + option);
+      }
+      return parsed;
+    } catch (NumberFormatException ex) {
+      throw new UserError("flowCheckpointInterval must be a positive integer: " + option);
+    }
+  }
+
   /**
    * Returns the appropriate flow analysis class that is used for the org.checkerframework.dataflow
    * analysis.
@@ -1344,6 +1371,13 @@ public abstract class GenericAnnotatedTypeFactory<
    * Perform a org.checkerframework.dataflow analysis over a single class tree and its nested
    * classes.
    *
+   * <p>The methods and lambdas of a class are analyzed one at a time, on the javac thread, even
+   * though their analyses depend only on the initialization stores of the class. The analyses share
+   * the single {@link #analysis} object, whose fields hold the state of the running analysis, and
+   * the transfer function queries this type factory, whose caches, {@link #flowResult}, and maps
+   * of exit stores are not thread-safe. They also call into javac, which completes symbols lazily
+   * and whose {@code Types} and {@code Log} are not thread-safe.
+   *
    * @param classTree the class to analyze
    */
   protected void performFlowAnalysisForClass(ClassTree classTree) {
@@ -1478,10 +1512,14 @@ public abstract class GenericAnnotatedTypeFactory<
           }
         }
 
-        // Now analyze all methods.
+        // Now analyze all methods, one at a time; see the Javadoc of this method for why they
+        // are not analyzed concurrently.
         // TODO: at this point, we don't have any information about
         // fields of superclasses.
         for (CFGMethod method : methods) {
+          if (capturedStore == null && shouldSkipFlowAnalysis(method.getMethod(), fieldValues)) {
+            continue;
+          }
           performFlowAnalysisForMethod(ct, method, classQueue, fieldValues, capturedStore);
         }
 
@@ -1609,6 +1647,65 @@ public abstract class GenericAnnotatedTypeFactory<
     lambdaToCFG.values().forEach(this::postAnalyze);
   }
 
+  /** True if -AflowSkipTrivialMethods was passed on the command line. */
+  private final boolean skipTrivialMethodFlow;
+
+  /**
+   * Returns true if the dataflow analysis of {@code methodTree} should be skipped, because it could
+   * not refine any type in the method and this type factory does not need its results.
+   *
+   * @param methodTree a method of a class that has no captured store
+   * @param fieldValues the abstract values for all fields of the same class
+   * @return true if the dataflow analysis of {@code methodTree} should be skipped
+   * @see TrivialMethodClassifier
+   */
+  private boolean shouldSkipFlowAnalysis(
+      MethodTree methodTree, List<FieldInitialValue<Value>> fieldValues) {
+    if (!skipTrivialMethodFlow
+        || handleCFGViz
+        || getWholeProgramInference() != null
+        || !canSkipFlowAnalysis(methodTree)) {
+      return false;
+    }
+    Set<VariableElement> initializedFields = new HashSet<>();
+    for (FieldInitialValue<Value> fieldValue : fieldValues) {
+      if (fieldValue.initializer != null) {
+        initializedFields.add(fieldValue.fieldDecl.getField());
+      }
+    }
+    return TrivialMethodClassifier.isTrivial(methodTree, contractsUtils, initializedFields);
+  }
+
+  /**
+   * Returns true if this type factory needs no dataflow result for {@code methodTree} other than
+   * the types of its expressions. If {@code -AflowSkipTrivialMethods} is passed and dataflow
+   * analysis could not refine any type in the method, then the method is not analyzed: it is
+   * type-checked with its declared and defaulted types, it has no control flow graph, {@link
+   * #postAnalyze} is not called for it, and the stores before and after its trees and at its exits
+   * are null.
+   *
+   * <p>{@link TrivialMethodClassifier} only knows the refinements that {@link CFTransfer} makes. A
+   * checker-specific transfer function may refine the value of an expression even in the initial
+   * store of a method: for example, the Nullness Checker refines {@code map.get(key)} to non-null
+   * if {@code key} is a {@code @KeyFor("map")} parameter. So the default implementation returns
+   * true only if the transfer function of this type factory is a {@link CFTransfer} itself, and
+   * every type factory with its own transfer function analyzes every method.
+   *
+   * <p>A type factory may override this method to return true if its transfer function does not
+   * refine the values of method invocations, object creations, or the other expressions that
+   * {@link TrivialMethodClassifier} accepts. A type factory must override it to return false if its
+   * checker queries the stores of a method, for example via {@link #getStoreBefore(Tree)}, or
+   * checks a method in {@link #postAnalyze}, even if its transfer function is a {@link
+   * CFTransfer}.
+   *
+   * @param methodTree a method
+   * @return true if the dataflow analysis of {@code methodTree} may be skipped when it could not
+   *     refine any type
+   */
+  protected boolean canSkipFlowAnalysis(MethodTree methodTree) {
+    return transfer.getClass() == CFTransfer.class;
+  }
+
   /**
    * Returns true if every lambda in {@code lambdas} has a void return type; otherwise false.
    *
@@ -1669,7 +1766,12 @@ public abstract class GenericAnnotatedTypeFactory<
       boolean isStatic,
       @Nullable Store capturedStore) {
     if (cfg == null) {
-      cfg = CFCFGBuilder.build(root, ast, checker, this, processingEnv);
+      PhaseEvents.Timer cfgTimer = PhaseEvents.begin(PhaseEvents.Phase.CFG_CONSTRUCTION, checker);
+      try {
+        cfg = CFCFGBuilder.build(root, ast, checker, this, processingEnv);
+      } finally {
+        cfgTimer.end(ast);
+      }
       cfg.getAllNodes(this::isIgnoredExceptionType)
           .forEach(
               node -> {
@@ -1691,7 +1793,13 @@ public abstract class GenericAnnotatedTypeFactory<
     } else {
       transfer.setFixedInitialStore(capturedStore);
     }
-    analysis.performAnalysis(cfg, fieldValues);
+    PhaseEvents.Timer analysisTimer =
+        PhaseEvents.begin(PhaseEvents.Phase.DATAFLOW_ANALYSIS, checker);
+    try {
+      analysis.performAnalysis(cfg, fieldValues);
+    } finally {
+      analysisTimer.end(ast);
+    }
     AnalysisResult<Value, Store> result = analysis.getResult();
 
     // store result
@@ -2237,8 +2345,9 @@ public abstract class GenericAnnotatedTypeFactory<
     VariableElement variableElt = (VariableElement) elt;
     variablesUnderInitialization.add(variableElt);
     AnnotatedTypeMirror initializerType;
-    if (shouldCache && initializerCache.containsKey(initializer)) {
-      initializerType = initializerCache.get(initializer);
+    AnnotatedTypeMirror cachedType = shouldCache ? initializerCache.get(initializer) : null;
+    if (cachedType != null) {
+      initializerType = cachedType;
     } else {
       // When this method is called by getAnnotatedTypeLhs, flow is turned off.
       // Turn it back on so the type of the initializer is the refined type.
@@ -2605,6 +2714,28 @@ public abstract class GenericAnnotatedTypeFactory<
     return isRelevant(tm.getUnderlyingType());
   }
 
+  /**
+   * Returns true if this type system may have something to say about the given compilation unit.
+   * That is the case if the unit contains a tree whose type is or contains a {@link #isRelevant
+   * relevant} Java type, or contains an annotation of this type system, an alias of one, or another
+   * annotation from the packages of its qualifiers or from {@code
+   * org.checkerframework.framework.qual}. Always true if the checker has no {@link
+   * RelevantJavaTypes} annotation.
+   *
+   * <p>If this method returns false, every type in the unit is irrelevant, so it gets the
+   * annotations of {@link #annotationsForIrrelevantJavaType}, and type-checking the unit cannot
+   * issue any error.
+   *
+   * @param root a compilation unit
+   * @return true if this type system may have something to say about {@code root}
+   */
+  public boolean mayBeRelevantTo(CompilationUnitTree root) {
+    if (relevantJavaTypes == null) {
+      return true;
+    }
+    return RelevantTreeScanner.containsRelevantTree(this, root);
+  }
+
   /**
    * Returns true if users can write type annotations from this type system on the given Java type.
    * Does not use a cache.
@@ -3089,7 +3220,8 @@ public abstract class GenericAnnotatedTypeFactory<
     if (parentIsThisChecker) {
       // This is the ultimate parent.
       if (this.subcheckerSharedCFG == null) {
-        this.subcheckerSharedCFG = new HashMap<>(getCacheSize());
+        this.subcheckerSharedCFG =
+            registerCache("subcheckerSharedCFG", new HashMap<>(getCacheSize()));
       }
       if (!this.subcheckerSharedCFG.containsKey(tree)) {
         this.subcheckerSharedCFG.put(tree, cfg);
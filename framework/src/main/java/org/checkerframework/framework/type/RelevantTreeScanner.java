@@ -0,0 +1,191 @@
+package org.checkerframework.framework.type;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.UnionType;
+import javax.lang.model.type.WildcardType;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * Determines whether a compilation unit contains anything that a type system with {@link
+ * org.checkerframework.framework.qual.RelevantJavaTypes} could have something to say about: a tree
+ * whose type is, or contains, a relevant Java type, or an annotation from the type system. See
+ * {@link GenericAnnotatedTypeFactory#mayBeRelevantTo}.
+ */
+final class RelevantTreeScanner extends TreeScanner<Void, Void> {
+
+  /** The package of the framework's annotations, such as the contract annotations. */
+  private static final String FRAMEWORK_QUAL_PACKAGE = "org.checkerframework.framework.qual";
+
+  /** The type factory of the type system. */
+  private final GenericAnnotatedTypeFactory<?, ?, ?, ?> factory;
+
+  /**
+   * The packages of the type system's qualifiers. An annotation in one of them, such as a
+   * declaration annotation that refers to the qualifiers, makes a compilation unit relevant.
+   */
+  private final Set<String> qualifierPackages = new HashSet<>();
+
+  /** The type variables whose bounds have been visited, to stop at recursive bounds. */
+  private final Set<Element> visitedTypeVariables = new HashSet<>();
+
+  /** True if a relevant tree has been found. */
+  private boolean found = false;
+
+  /**
+   * Creates a new RelevantTreeScanner.
+   *
+   * @param factory the type factory of the type system
+   */
+  private RelevantTreeScanner(GenericAnnotatedTypeFactory<?, ?, ?, ?> factory) {
+    this.factory = factory;
+    qualifierPackages.add(FRAMEWORK_QUAL_PACKAGE);
+    for (Class<? extends Annotation> qualifier : factory.getSupportedTypeQualifiers()) {
+      Package qualifierPackage = qualifier.getPackage();
+      if (qualifierPackage != null) {
+        qualifierPackages.add(qualifierPackage.getName());
+      }
+    }
+  }
+
+  /**
+   * Returns true if {@code root} contains a tree whose type contains a relevant Java type, or an
+   * annotation from the type system.
+   *
+   * @param factory the type factory of the type system
+   * @param root a compilation unit
+   * @return true if the type system may have something to say about {@code root}
+   */
+  static boolean containsRelevantTree(
+      GenericAnnotatedTypeFactory<?, ?, ?, ?> factory, CompilationUnitTree root) {
+    RelevantTreeScanner scanner = new RelevantTreeScanner(factory);
+    scanner.scan(root.getTypeDecls(), null);
+    return scanner.found;
+  }
+
+  @Override
+  public @Nullable Void scan(@Nullable Tree tree, Void p) {
+    if (found || tree == null) {
+      return null;
+    }
+    if (tree instanceof AnnotationTree) {
+      // Do not scan the arguments of other annotations, such as @SuppressWarnings("...").
+      found = isRelevantAnnotation((AnnotationTree) tree);
+      return null;
+    }
+    TypeMirror type = TreeUtils.typeOf(tree);
+    if (type != null && containsRelevantType(type)) {
+      found = true;
+      return null;
+    }
+    return super.scan(tree, p);
+  }
+
+  /**
+   * Returns true if {@code tree} is a qualifier of the type system, an alias of one, or another
+   * annotation from the packages of its qualifiers or of the framework.
+   *
+   * @param tree an annotation
+   * @return true if the annotation may affect the type system
+   */
+  private boolean isRelevantAnnotation(AnnotationTree tree) {
+    AnnotationMirror anno = TreeUtils.annotationFromAnnotationTree(tree);
+    if (factory.isSupportedQualifier(anno) || factory.canonicalAnnotation(anno) != null) {
+      return true;
+    }
+    TypeElement annoElement = (TypeElement) anno.getAnnotationType().asElement();
+    String annoPackage = ElementUtils.enclosingPackage(annoElement).getQualifiedName().toString();
+    return qualifierPackages.contains(annoPackage);
+  }
+
+  /**
+   * Returns true if {@code type}, or a type that it is composed of, is relevant to the type system.
+   *
+   * @param type a type
+   * @return true if {@code type} contains a relevant Java type
+   */
+  private boolean containsRelevantType(@Nullable TypeMirror type) {
+    if (type == null) {
+      return false;
+    }
+    switch (type.getKind()) {
+      case DECLARED:
+        if (factory.isRelevant(type)) {
+          return true;
+        }
+        for (TypeMirror typeArg : ((DeclaredType) type).getTypeArguments()) {
+          if (containsRelevantType(typeArg)) {
+            return true;
+          }
+        }
+        return false;
+      case ARRAY:
+        return factory.isRelevant(type)
+            || containsRelevantType(((ArrayType) type).getComponentType());
+      case WILDCARD:
+        WildcardType wildcard = (WildcardType) type;
+        return containsRelevantType(wildcard.getExtendsBound())
+            || containsRelevantType(wildcard.getSuperBound());
+      case TYPEVAR:
+        TypeVariable typeVar = (TypeVariable) type;
+        if (!visitedTypeVariables.add(typeVar.asElement())) {
+          return false;
+        }
+        return factory.isRelevant(type)
+            || containsRelevantType(typeVar.getUpperBound())
+            || containsRelevantType(typeVar.getLowerBound());
+      case INTERSECTION:
+        for (TypeMirror bound : ((IntersectionType) type).getBounds()) {
+          if (containsRelevantType(bound)) {
+            return true;
+          }
+        }
+        return false;
+      case UNION:
+        for (TypeMirror alternative : ((UnionType) type).getAlternatives()) {
+          if (containsRelevantType(alternative)) {
+            return true;
+          }
+        }
+        return false;
+      case EXECUTABLE:
+        ExecutableType methodType = (ExecutableType) type;
+        if (containsRelevantType(methodType.getReturnType())
+            || containsRelevantType(methodType.getReceiverType())) {
+          return true;
+        }
+        for (TypeMirror paramType : methodType.getParameterTypes()) {
+          if (containsRelevantType(paramType)) {
+            return true;
+          }
+        }
+        return false;
+      case VOID:
+      case NONE:
+      case PACKAGE:
+      case MODULE:
+      case ERROR:
+      case OTHER:
+        return false;
+      default:
+        // Primitive types and the null type.
+        return factory.isRelevant(type);
+    }
+  }
+}
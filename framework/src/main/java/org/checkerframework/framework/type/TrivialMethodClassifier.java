@@ -0,0 +1,312 @@
+package org.checkerframework.framework.type;
+
+import com.sun.source.tree.ArrayAccessTree;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewArrayTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.ParenthesizedTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeCastTree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.util.SimpleTreeVisitor;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.VariableElement;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.util.ContractsFromMethod;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * Decides whether dataflow analysis could refine the type of any expression in a method. A method
+ * for which it could not, such as a getter, a setter, or a method that delegates to another one,
+ * can be type-checked with declared and defaulted types alone; see {@link
+ * GenericAnnotatedTypeFactory#canSkipFlowAnalysis}.
+ *
+ * <p>The classification is syntactic and conservative. A method is trivial if it is not a
+ * constructor, it has no pre- or postconditions, and its body is empty or is a single {@code
+ * return} or expression statement whose expression
+ *
+ * <ul>
+ *   <li>reads only literals, {@code this}, the parameters of the method, and fields without an
+ *       initializer;
+ *   <li>contains no conditional operator, {@code instanceof}, increment, decrement, compound
+ *       assignment, lambda, or class body; and
+ *   <li>contains at most one method invocation or object creation, whose callee has no
+ *       preconditions, and which is either the expression itself or the right-hand side of an
+ *       assignment to a field that is the expression.
+ * </ul>
+ *
+ * In such a method, every expression is evaluated in the initial store of the method, and that
+ * store holds nothing about what the expression reads beyond its declared type. So {@link
+ * org.checkerframework.framework.flow.CFTransfer} would compute the same types as the type factory
+ * computes without dataflow analysis. A checker-specific transfer function may still refine an
+ * expression, such as a method invocation, based on the types of its operands alone; that is why
+ * {@link GenericAnnotatedTypeFactory#canSkipFlowAnalysis} is false by default for such checkers.
+ */
+final class TrivialMethodClassifier extends SimpleTreeVisitor<Boolean, Void> {
+
+  /** The method being classified. */
+  private final ExecutableElement method;
+
+  /**
+   * The fields that have an initializer. The initial store of a method may hold a more precise
+   * value for them than their declared type.
+   */
+  private final Set<VariableElement> initializedFields;
+
+  /**
+   * Creates a new TrivialMethodClassifier.
+   *
+   * @param method the method being classified
+   * @param initializedFields the fields that have an initializer
+   */
+  private TrivialMethodClassifier(
+      ExecutableElement method, Set<VariableElement> initializedFields) {
+    super(false);
+    this.method = method;
+    this.initializedFields = initializedFields;
+  }
+
+  /**
+   * Returns true if dataflow analysis could not refine the type of any expression in the given
+   * method.
+   *
+   * @param methodTree a method
+   * @param contracts the pre- and postconditions of methods
+   * @param initializedFields the fields of the enclosing classes that have an initializer
+   * @return true if dataflow analysis could not refine any type in {@code methodTree}
+   */
+  static boolean isTrivial(
+      MethodTree methodTree,
+      ContractsFromMethod contracts,
+      Set<VariableElement> initializedFields) {
+    BlockTree body = methodTree.getBody();
+    if (body == null || TreeUtils.isConstructor(methodTree)) {
+      return false;
+    }
+    ExecutableElement method = TreeUtils.elementFromDeclaration(methodTree);
+    if (!contracts.getContracts(method).isEmpty()) {
+      return false;
+    }
+    List<? extends StatementTree> statements = body.getStatements();
+    if (statements.isEmpty()) {
+      return true;
+    } else if (statements.size() != 1) {
+      return false;
+    }
+
+    StatementTree statement = statements.get(0);
+    ExpressionTree expression;
+    if (statement instanceof ReturnTree) {
+      expression = ((ReturnTree) statement).getExpression();
+      if (expression == null) {
+        return true;
+      }
+    } else if (statement instanceof ExpressionStatementTree) {
+      expression = ((ExpressionStatementTree) statement).getExpression();
+    } else {
+      return false;
+    }
+
+    TrivialMethodClassifier classifier = new TrivialMethodClassifier(method, initializedFields);
+    expression = TreeUtils.withoutParens(expression);
+    if (expression instanceof AssignmentTree) {
+      AssignmentTree assignment = (AssignmentTree) expression;
+      return classifier.isFieldToAssign(assignment.getVariable())
+          && classifier.isInvocationOrSimple(assignment.getExpression(), contracts);
+    }
+    return classifier.isInvocationOrSimple(expression, contracts);
+  }
+
+  /**
+   * Returns true if {@code tree} is a field whose assignment reads nothing but simple expressions.
+   *
+   * @param tree the left-hand side of an assignment
+   * @return true if {@code tree} is a field whose receiver, if any, is simple
+   */
+  private boolean isFieldToAssign(ExpressionTree tree) {
+    tree = TreeUtils.withoutParens(tree);
+    if (!(tree instanceof IdentifierTree || tree instanceof MemberSelectTree)) {
+      return false;
+    }
+    Element element = TreeUtils.elementFromUse(tree);
+    if (element.getKind() != ElementKind.FIELD) {
+      return false;
+    }
+    return !(tree instanceof MemberSelectTree)
+        || isSimple(((MemberSelectTree) tree).getExpression());
+  }
+
+  /**
+   * Returns true if {@code tree} is simple, or is a method invocation or an object creation whose
+   * callee has no preconditions and whose receiver and arguments are simple.
+   *
+   * @param tree an expression
+   * @param contracts the pre- and postconditions of methods
+   * @return true if {@code tree} is a simple expression or an invocation of simple expressions
+   */
+  private boolean isInvocationOrSimple(ExpressionTree tree, ContractsFromMethod contracts) {
+    tree = TreeUtils.withoutParens(tree);
+    if (tree instanceof MethodInvocationTree) {
+      MethodInvocationTree invocation = (MethodInvocationTree) tree;
+      if (!contracts.getPreconditions(TreeUtils.elementFromUse(invocation)).isEmpty()) {
+        return false;
+      }
+      ExpressionTree methodSelect = invocation.getMethodSelect();
+      if (methodSelect instanceof MemberSelectTree
+          && !isSimple(((MemberSelectTree) methodSelect).getExpression())) {
+        return false;
+      }
+      return areSimple(invocation.getArguments());
+    } else if (tree instanceof NewClassTree) {
+      NewClassTree newClass = (NewClassTree) tree;
+      if (newClass.getClassBody() != null
+          || !contracts.getPreconditions(TreeUtils.elementFromUse(newClass)).isEmpty()) {
+        return false;
+      }
+      ExpressionTree enclosing = newClass.getEnclosingExpression();
+      if (enclosing != null && !isSimple(enclosing)) {
+        return false;
+      }
+      return areSimple(newClass.getArguments());
+    }
+    return isSimple(tree);
+  }
+
+  /**
+   * Returns true if dataflow analysis could not refine the type of {@code tree} or of any of its
+   * subexpressions, given that it is evaluated in the initial store of the method.
+   *
+   * @param tree an expression
+   * @return true if {@code tree} is simple
+   */
+  private boolean isSimple(@Nullable ExpressionTree tree) {
+    return tree == null || Boolean.TRUE.equals(visit(tree, null));
+  }
+
+  /**
+   * Returns true if every expression in {@code trees} is simple.
+   *
+   * @param trees expressions
+   * @return true if every expression in {@code trees} is simple
+   */
+  private boolean areSimple(@Nullable List<? extends ExpressionTree> trees) {
+    if (trees != null) {
+      for (ExpressionTree tree : trees) {
+        if (!isSimple(tree)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if {@code name} is {@code this}, {@code super}, or {@code class}.
+   *
+   * @param name the name of an identifier or a member select
+   * @return true if {@code name} is {@code this}, {@code super}, or {@code class}
+   */
+  private static boolean isKeyword(Name name) {
+    return name.contentEquals("this") || name.contentEquals("super") || name.contentEquals("class");
+  }
+
+  /**
+   * Returns true if reading {@code element} yields no more than its declared type in the initial
+   * store of the method.
+   *
+   * @param element the element of an identifier or a member select
+   * @return true if reading {@code element} cannot be refined by dataflow analysis
+   */
+  private boolean isUnrefinedElement(Element element) {
+    ElementKind kind = element.getKind();
+    if (kind == ElementKind.PARAMETER) {
+      // A parameter of an enclosing method or lambda may be refined in a captured store.
+      return method.getParameters().contains(element);
+    } else if (kind == ElementKind.FIELD || kind == ElementKind.ENUM_CONSTANT) {
+      return !initializedFields.contains(element);
+    }
+    // Names of types and packages are fine; local variables are captured from an enclosing
+    // method and may be refined.
+    return kind.isClass() || kind.isInterface() || kind == ElementKind.PACKAGE;
+  }
+
+  @Override
+  public Boolean visitLiteral(LiteralTree tree, Void p) {
+    return true;
+  }
+
+  @Override
+  public Boolean visitIdentifier(IdentifierTree tree, Void p) {
+    if (isKeyword(tree.getName())) {
+      return true;
+    }
+    return isUnrefinedElement(TreeUtils.elementFromUse(tree));
+  }
+
+  @Override
+  public Boolean visitMemberSelect(MemberSelectTree tree, Void p) {
+    if (!isKeyword(tree.getIdentifier())
+        && !isUnrefinedElement(TreeUtils.elementFromUse(tree))) {
+      return false;
+    }
+    return isSimple(tree.getExpression());
+  }
+
+  @Override
+  public Boolean visitParenthesized(ParenthesizedTree tree, Void p) {
+    return isSimple(tree.getExpression());
+  }
+
+  @Override
+  public Boolean visitTypeCast(TypeCastTree tree, Void p) {
+    return isSimple(tree.getExpression());
+  }
+
+  @Override
+  public Boolean visitBinary(BinaryTree tree, Void p) {
+    // Dataflow analysis refines the right operand of a conditional operator.
+    if (tree.getKind() == Tree.Kind.CONDITIONAL_AND || tree.getKind() == Tree.Kind.CONDITIONAL_OR) {
+      return false;
+    }
+    return isSimple(tree.getLeftOperand()) && isSimple(tree.getRightOperand());
+  }
+
+  @Override
+  public Boolean visitUnary(UnaryTree tree, Void p) {
+    switch (tree.getKind()) {
+      case PREFIX_INCREMENT:
+      case PREFIX_DECREMENT:
+      case POSTFIX_INCREMENT:
+      case POSTFIX_DECREMENT:
+        return false;
+      default:
+        return isSimple(tree.getExpression());
+    }
+  }
+
+  @Override
+  public Boolean visitArrayAccess(ArrayAccessTree tree, Void p) {
+    return isSimple(tree.getExpression()) && isSimple(tree.getIndex());
+  }
+
+  @Override
+  public Boolean visitNewArray(NewArrayTree tree, Void p) {
+    return areSimple(tree.getDimensions()) && areSimple(tree.getInitializers());
+  }
+}
@@ -0,0 +1,193 @@
+package org.checkerframework.framework.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entries shared by the LRU caches of a group of type factories, such as the type factories of
+ * a checker and its subcheckers. Each kind of cache, identified by a name such as {@code
+ * "elementCache"}, has one budget of entries, which is divided evenly among the caches of that kind
+ * that were created by {@link #createCache(String, int)}. Thus, a checker with many subcheckers
+ * holds no more entries in total than a checker with one type factory.
+ *
+ * <p>The budget of a kind is its base size, normally {@code -AatfCacheSize}, scaled by a factor
+ * between 1/{@value #MAX_FACTOR} and {@value #MAX_FACTOR}, which starts at 1. {@link #adjust()}
+ * polls the heap memory pools:
+ *
+ * <ul>
+ *   <li>If a pool was more than {@value #PRESSURE_THRESHOLD} full after the most recent garbage
+ *       collection, the factor halves (to no less than 1/{@value #MAX_FACTOR}) and the
+ *       least-recently-used entries of every cache are evicted.
+ *   <li>If every pool was less than {@value #HEADROOM_THRESHOLD} full, the factor doubles (to no
+ *       more than {@value #MAX_FACTOR}).
+ * </ul>
+ *
+ * <p>This class only reads the memory pools' usage; it does not set thresholds or listen for
+ * notifications, which would affect every user of the JVM. It is not thread-safe.
+ */
+public class CacheBudget {
+
+  /** The factor by which the budget of a kind of cache may shrink below or grow above its base. */
+  private static final int MAX_FACTOR = 8;
+
+  /**
+   * The fraction of a heap memory pool's maximum size above which the pool is under pressure, if
+   * it is still that full after a garbage collection.
+   */
+  private static final double PRESSURE_THRESHOLD = 0.8;
+
+  /**
+   * The fraction of a heap memory pool's maximum size below which the pool has room for larger
+   * caches, if it is that empty after a garbage collection.
+   */
+  private static final double HEADROOM_THRESHOLD = 0.5;
+
+  /**
+   * The factor by which the base sizes are scaled, in units of 1/{@link #MAX_FACTOR}. It is a
+   * power of 2 between 1 (1/{@link #MAX_FACTOR} of the base sizes) and {@link #MAX_FACTOR} squared
+   * ({@link #MAX_FACTOR} times the base sizes).
+   */
+  private int scale = MAX_FACTOR;
+
+  /** The kinds of caches whose entries are limited by this budget, by name. */
+  private final Map<String, Kind> kinds = new HashMap<>();
+
+  /** Creates a new CacheBudget, under which every kind of cache holds its base size in total. */
+  public CacheBudget() {}
+
+  /**
+   * Creates a new, empty LRU cache whose size is limited by this budget. The new cache shares the
+   * budget of the given kind with the other caches of that kind, whose limits decrease
+   * accordingly.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param kind the name of the kind of cache, such as {@code "elementCache"}
+   * @param baseSize the total number of entries of the caches of this kind when the heap is
+   *     neither under pressure nor has room; must be positive. If the caches of a kind are created
+   *     with different base sizes, the largest is used.
+   * @return a new, empty LRU cache whose size is limited by this budget
+   */
+  public <K, V> Map<K, V> createCache(String kind, int baseSize) {
+    Kind k = kinds.computeIfAbsent(kind, name -> new Kind());
+    k.baseSize = Math.max(k.baseSize, baseSize);
+    Cache<K, V> cache = new Cache<>();
+    k.caches.add(cache);
+    k.evictToLimit();
+    return cache;
+  }
+
+  /**
+   * Shrinks the caches if the heap is under memory pressure, and otherwise lets them grow, up to
+   * {@value #MAX_FACTOR} times their base sizes, if the heap has room. Clients should call this
+   * once at a natural boundary, such as the start of a compilation unit, because it queries the
+   * JVM's memory pools.
+   */
+  public void adjust() {
+    boolean sawPool = false;
+    boolean hasHeadroom = true;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() != MemoryType.HEAP) {
+        continue;
+      }
+      MemoryUsage usage = pool.getCollectionUsage();
+      if (usage == null || usage.getMax() <= 0) {
+        continue;
+      }
+      sawPool = true;
+      if (usage.getUsed() > usage.getMax() * PRESSURE_THRESHOLD) {
+        if (scale > 1) {
+          scale /= 2;
+          for (Kind k : kinds.values()) {
+            k.evictToLimit();
+          }
+        }
+        return;
+      }
+      if (usage.getUsed() > usage.getMax() * HEADROOM_THRESHOLD) {
+        hasHeadroom = false;
+      }
+    }
+    if (sawPool && hasHeadroom && scale < MAX_FACTOR * MAX_FACTOR) {
+      scale *= 2;
+      for (Kind k : kinds.values()) {
+        k.setLimits();
+      }
+    }
+  }
+
+  /** The caches of one kind, which share one budget of entries. */
+  private class Kind {
+
+    /** The total number of entries of the caches of this kind when the scale factor is 1. */
+    int baseSize = 0;
+
+    /** The caches of this kind. */
+    final List<Cache<?, ?>> caches = new ArrayList<>();
+
+    /** Creates a new Kind, which has no caches. */
+    Kind() {}
+
+    /**
+     * Sets the limit of each cache of this kind to its share of the scaled budget, which is at
+     * least 1.
+     */
+    void setLimits() {
+      long budget = (long) baseSize * scale / MAX_FACTOR;
+      int limit = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budget / caches.size()));
+      for (Cache<?, ?> cache : caches) {
+        cache.limit = limit;
+      }
+    }
+
+    /** Sets the limit of each cache of this kind and evicts the entries above it. */
+    void evictToLimit() {
+      setLimits();
+      for (Cache<?, ?> cache : caches) {
+        cache.evictToLimit();
+      }
+    }
+  }
+
+  /**
+   * An LRU cache whose size is limited by a {@link CacheBudget}.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   */
+  private static class Cache<K, V> extends LinkedHashMap<K, V> {
+
+    /** serialVersionUID */
+    private static final long serialVersionUID = 20240601L;
+
+    /** The number of entries that this cache may currently hold. Set by its {@link Kind}. */
+    private int limit = 1;
+
+    /** Creates a new, empty cache. */
+    Cache() {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > limit;
+    }
+
+    /** Removes least-recently-used entries until this cache is within its limit. */
+    void evictToLimit() {
+      Iterator<K> iter = keySet().iterator();
+      while (size() > limit && iter.hasNext()) {
+        iter.next();
+        iter.remove();
+      }
+    }
+  }
+}
@@ -0,0 +1,350 @@
+package org.checkerframework.framework.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Hit, miss, and eviction counts for the caches of one checker. A checker creates an instance of
+ * this class if the {@code -AcacheStats} command-line option is passed, and prints it at the end of
+ * type processing.
+ *
+ * <p>A cache is registered by passing it to {@link #register}, which returns a view of the cache
+ * that counts the lookups and insertions made through it. Caches registered under the same name
+ * (for example, the caches of two instances of the same class) are reported together.
+ *
+ * <p>A lookup is a call to {@code get}, {@code getOrDefault}, or {@code computeIfAbsent}; it is a
+ * hit if the cache contains the key, even if the key maps to null. Calls to {@code containsKey} are
+ * not counted. An eviction is an entry that was removed by the cache itself rather than by a call
+ * to {@code remove} or {@code clear}, such as the least-recently-used entry of a full LRU cache.
+ *
+ * <p>The caches that are registered are the tree, element, and dataflow caches of each type factory
+ * (via {@link org.checkerframework.framework.type.AnnotatedTypeFactory#registerCache}), the lub,
+ * glb, and subtyping memo tables of {@link
+ * org.checkerframework.framework.type.ElementQualifierHierarchy}, the element cache of {@link
+ * org.checkerframework.framework.util.defaults.QualifierDefaults}, and the {@link TreePathCacher}.
+ * The following caches are not registered, and so are not reported:
+ *
+ * <ul>
+ *   <li>The caches that are shared by every checker and compilation in the JVM, whose counts could
+ *       not be attributed to one checker: the index of the annotated JDK files in checker.jar, in
+ *       {@link org.checkerframework.framework.stub.AnnotationFileElementTypes}, and the parsed ASTs
+ *       of built-in annotation files, in {@link
+ *       org.checkerframework.framework.stub.AnnotationFileParser}.
+ *   <li>Small fixed-size caches that {@code -AatfCacheSize} does not affect: the annotation class
+ *       names and relevant types of a type factory, and the caches of {@link
+ *       org.checkerframework.framework.type.treeannotator.PropagationTreeAnnotator} and {@link
+ *       org.checkerframework.framework.type.typeannotator.DefaultQualifierForUseTypeAnnotator}.
+ *   <li>The caches of one dataflow analysis, which are discarded when the analysis is.
+ * </ul>
+ */
+public class CacheStatistics {
+
+  /** The counts for each cache name, in registration order. */
+  private final Map<String, Counts> countsByName = new LinkedHashMap<>();
+
+  /** Creates a new, empty CacheStatistics. */
+  public CacheStatistics() {}
+
+  /**
+   * Registers a cache and returns a view of it that counts lookups and evictions. Clients should
+   * make all reads and writes through the returned map.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param name the name under which to report the cache, such as {@code
+   *     "AnnotatedTypeFactory.elementCache"}
+   * @param cache the cache
+   * @return a view of {@code cache} that updates these statistics
+   */
+  public <K, V> Map<K, V> register(String name, Map<K, V> cache) {
+    Counts counts = countsByName.computeIfAbsent(name, Counts::new);
+    counts.caches.add(cache);
+    return new CountingMap<>(cache, counts);
+  }
+
+  /**
+   * Returns a human-readable report of these statistics.
+   *
+   * @param checkerName the name of the checker that owns the caches
+   * @return a human-readable report of these statistics
+   */
+  public String toText(String checkerName) {
+    StringJoiner result = new StringJoiner(System.lineSeparator());
+    result.add("Cache statistics for " + checkerName + ":");
+    for (Counts counts : countsByName.values()) {
+      long lookups = counts.hits + counts.misses;
+      String hitRate =
+          lookups == 0 ? "" : String.format(" (%.1f%% hits)", 100.0 * counts.hits / lookups);
+      result.add(
+          String.format(
+              "  %s: %d hits, %d misses%s, %d evictions, %d entries (peak %d)",
+              counts.name,
+              counts.hits,
+              counts.misses,
+              hitRate,
+              counts.evictions,
+              counts.entries(),
+              counts.peakEntries));
+    }
+    return result.toString();
+  }
+
+  /**
+   * Returns these statistics as a single-line JSON object.
+   *
+   * @param checkerName the name of the checker that owns the caches
+   * @return these statistics as a single-line JSON object
+   */
+  public String toJson(String checkerName) {
+    StringJoiner caches = new StringJoiner(",", "[", "]");
+    for (Counts counts : countsByName.values()) {
+      caches.add(
+          String.format(
+              "{\"name\":%s,\"hits\":%d,\"misses\":%d,\"evictions\":%d,\"entries\":%d,"
+                  + "\"peakEntries\":%d}",
+              JsonUtils.toJsonString(counts.name),
+              counts.hits,
+              counts.misses,
+              counts.evictions,
+              counts.entries(),
+              counts.peakEntries));
+    }
+    return "{\"checker\":" + JsonUtils.toJsonString(checkerName) + ",\"caches\":" + caches + "}";
+  }
+
+  /** The counts for all the caches registered under one name. */
+  private static class Counts {
+
+    /** The name of the caches. */
+    final String name;
+
+    /** The caches registered under {@link #name}. */
+    final List<Map<?, ?>> caches = new ArrayList<>(1);
+
+    /** The number of lookups that found their key. */
+    long hits = 0;
+
+    /** The number of lookups that did not find their key. */
+    long misses = 0;
+
+    /** The number of entries removed by the caches themselves. */
+    long evictions = 0;
+
+    /** The largest number of entries that any one of the caches has held. */
+    int peakEntries = 0;
+
+    /**
+     * Creates a new Counts.
+     *
+     * @param name the name of the caches
+     */
+    Counts(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the number of entries currently in the caches.
+     *
+     * @return the number of entries currently in the caches
+     */
+    long entries() {
+      long result = 0;
+      for (Map<?, ?> cache : caches) {
+        result += cache.size();
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A view of a cache that updates a {@link Counts}.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   */
+  private static class CountingMap<K, V> implements Map<K, V> {
+
+    /** The cache. */
+    private final Map<K, V> delegate;
+
+    /** The counts to update. */
+    private final Counts counts;
+
+    /**
+     * The size of {@link #delegate} after the last operation made through this view. If the cache
+     * is smaller than this, it has evicted entries on its own, for example because of memory
+     * pressure.
+     */
+    private int expectedSize;
+
+    /**
+     * Creates a new CountingMap.
+     *
+     * @param delegate the cache
+     * @param counts the counts to update
+     */
+    CountingMap(Map<K, V> delegate, Counts counts) {
+      this.delegate = delegate;
+      this.counts = counts;
+      this.expectedSize = delegate.size();
+    }
+
+    /**
+     * Counts the entries that the cache has evicted since the last operation made through this
+     * view.
+     */
+    private void countPendingEvictions() {
+      int size = delegate.size();
+      if (size < expectedSize) {
+        counts.evictions += expectedSize - size;
+      }
+      expectedSize = size;
+    }
+
+    /**
+     * Counts the entries that the cache evicted while inserting an entry, and updates {@link
+     * #expectedSize}.
+     *
+     * @param sizeBefore the size of the cache before the insertion
+     * @param added true if the insertion added a key that was not in the cache
+     */
+    private void countInsertion(int sizeBefore, boolean added) {
+      int size = delegate.size();
+      counts.evictions += sizeBefore + (added ? 1 : 0) - size;
+      expectedSize = size;
+      if (size > counts.peakEntries) {
+        counts.peakEntries = size;
+      }
+    }
+
+    @Override
+    public @Nullable V get(Object key) {
+      countPendingEvictions();
+      V result = delegate.get(key);
+      if (result != null || delegate.containsKey(key)) {
+        counts.hits++;
+      } else {
+        counts.misses++;
+      }
+      return result;
+    }
+
+    @Override
+    public @Nullable V getOrDefault(Object key, @Nullable V defaultValue) {
+      countPendingEvictions();
+      V result = delegate.get(key);
+      if (result != null || delegate.containsKey(key)) {
+        counts.hits++;
+        return result;
+      } else {
+        counts.misses++;
+        return defaultValue;
+      }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+      countPendingEvictions();
+      V result = delegate.get(key);
+      if (result != null) {
+        counts.hits++;
+        return result;
+      }
+      counts.misses++;
+      int sizeBefore = delegate.size();
+      boolean present = delegate.containsKey(key);
+      result = delegate.computeIfAbsent(key, mappingFunction);
+      countInsertion(sizeBefore, !present && result != null);
+      return result;
+    }
+
+    @Override
+    public @Nullable V put(K key, V value) {
+      countPendingEvictions();
+      int sizeBefore = delegate.size();
+      boolean present = delegate.containsKey(key);
+      V result = delegate.put(key, value);
+      countInsertion(sizeBefore, !present);
+      return result;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+      for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+        put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    @Override
+    public @Nullable V remove(Object key) {
+      countPendingEvictions();
+      V result = delegate.remove(key);
+      expectedSize = delegate.size();
+      return result;
+    }
+
+    @Override
+    public void clear() {
+      countPendingEvictions();
+      delegate.clear();
+      expectedSize = 0;
+    }
+
+    @Override
+    public int size() {
+      return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return delegate.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return delegate.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+      return delegate.containsValue(value);
+    }
+
+    @Override
+    public Set<K> keySet() {
+      return delegate.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+      return delegate.values();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+      return delegate.entrySet();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      return delegate.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+      return delegate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+  }
+}
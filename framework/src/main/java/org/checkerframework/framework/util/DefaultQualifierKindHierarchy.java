@@ -48,6 +48,11 @@ import org.plumelib.util.StringsPlume;
  *
  * {@link DefaultQualifierKindHierarchy.DefaultQualifierKind} is the implementation used for {@link
  * QualifierKind} by this class.
+ *
+ * <p>Once the hierarchy is created, each {@link DefaultQualifierKind} is given a dense index (its
+ * position in {@link #qualifierKinds}) and a bit mask of its supertypes, and the lub and glb maps
+ * are flattened into arrays indexed by pairs of those indices. So subtyping, lub, and glb of
+ * qualifier kinds are answered without hashing.
  */
 @AnnotatedFor("nullness")
 public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
@@ -82,6 +87,20 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
    */
   private final Map<QualifierKind, Map<QualifierKind, QualifierKind>> glbs;
 
+  /**
+   * The lubs of qualifier kinds in this hierarchy, indexed by {@link #boundsTableIndex}. Created
+   * from {@link #lubs}, which is only consulted for qualifier kinds that are not in {@link
+   * #qualifierKinds}.
+   */
+  private final @Nullable QualifierKind[] lubsTable;
+
+  /**
+   * The glbs of qualifier kinds in this hierarchy, indexed by {@link #boundsTableIndex}. Created
+   * from {@link #glbs}, which is only consulted for qualifier kinds that are not in {@link
+   * #qualifierKinds}.
+   */
+  private final @Nullable QualifierKind[] glbsTable;
+
   @Override
   public Set<? extends QualifierKind> getTops() {
     return tops;
@@ -94,6 +113,10 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
   @Override
   public @Nullable QualifierKind leastUpperBound(QualifierKind q1, QualifierKind q2) {
+    int index = boundsTableIndex(q1, q2);
+    if (index != -1) {
+      return lubsTable[index];
+    }
     @SuppressWarnings("nullness:dereference.of.nullable") // All QualifierKinds are keys in lubs.
     QualifierKind result = lubs.get(q1).get(q2);
     return result;
@@ -101,11 +124,56 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
   @Override
   public @Nullable QualifierKind greatestLowerBound(QualifierKind q1, QualifierKind q2) {
+    int index = boundsTableIndex(q1, q2);
+    if (index != -1) {
+      return glbsTable[index];
+    }
     @SuppressWarnings("nullness:dereference.of.nullable") // All QualifierKinds are keys in glbs.
     QualifierKind result = glbs.get(q1).get(q2);
     return result;
   }
 
+  /**
+   * Returns the index of the lub and glb of {@code q1} and {@code q2} in {@link #lubsTable} and
+   * {@link #glbsTable}, or -1 if either qualifier kind is not in {@link #qualifierKinds}.
+   *
+   * @param q1 a qualifier kind
+   * @param q2 a qualifier kind
+   * @return the index of the bounds of {@code q1} and {@code q2}, or -1
+   */
+  private int boundsTableIndex(QualifierKind q1, QualifierKind q2) {
+    int index1 = indexOf(q1);
+    if (index1 == -1) {
+      return -1;
+    }
+    int index2 = indexOf(q2);
+    if (index2 == -1) {
+      return -1;
+    }
+    return index1 * qualifierKinds.size() + index2;
+  }
+
+  /**
+   * Returns the index of {@code qualifierKind} in {@link #qualifierKinds}, or -1 if it is not an
+   * element of {@link #qualifierKinds}.
+   *
+   * @param qualifierKind a qualifier kind
+   * @return the index of {@code qualifierKind} in {@link #qualifierKinds}, or -1
+   */
+  @RequiresNonNull("this.qualifierKinds")
+  private int indexOf(
+      @UnknownInitialization(DefaultQualifierKindHierarchy.class) DefaultQualifierKindHierarchy this,
+      QualifierKind qualifierKind) {
+    if (!(qualifierKind instanceof DefaultQualifierKind)) {
+      return -1;
+    }
+    int index = ((DefaultQualifierKind) qualifierKind).index;
+    if (index < 0 || index >= qualifierKinds.size() || qualifierKinds.get(index) != qualifierKind) {
+      return -1;
+    }
+    return index;
+  }
+
   @Override
   public List<? extends QualifierKind> allQualifierKinds() {
     return qualifierKinds;
@@ -178,8 +246,11 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     this.bottoms = createBottomsSet(directSuperMap);
     initializePolymorphicQualifiers();
     initializeQualifierKindFields(directSuperMap);
+    initializeSuperTypesMasks();
     this.lubs = createLubsMap();
     this.glbs = createGlbsMap();
+    this.lubsTable = createBoundsTable(lubs);
+    this.glbsTable = createBoundsTable(glbs);
 
     verifyHierarchy(directSuperMap);
   }
@@ -480,6 +551,35 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     }
   }
 
+  /**
+   * Sets {@link DefaultQualifierKind#index} and {@link DefaultQualifierKind#superTypesMask} for
+   * each qualifier kind, so that {@link DefaultQualifierKind#isSubtypeOf} is a bit test.
+   *
+   * <p>Requires that {@link DefaultQualifierKind#strictSuperTypes} has been initialized for all
+   * qualifier kinds. A qualifier kind whose strict supertypes are not all in {@link
+   * #qualifierKinds} keeps using {@link DefaultQualifierKind#strictSuperTypes}.
+   */
+  @RequiresNonNull("this.qualifierKinds")
+  private void initializeSuperTypesMasks(@UnderInitialization DefaultQualifierKindHierarchy this) {
+    for (int i = 0; i < qualifierKinds.size(); i++) {
+      qualifierKinds.get(i).index = i;
+    }
+    int maskLength = (qualifierKinds.size() + 63) >>> 6;
+    kinds:
+    for (DefaultQualifierKind qualifierKind : qualifierKinds) {
+      long[] mask = new long[maskLength];
+      mask[qualifierKind.index >>> 6] |= 1L << qualifierKind.index;
+      for (QualifierKind superKind : qualifierKind.getStrictSuperTypes()) {
+        int superIndex = indexOf(superKind);
+        if (superIndex == -1) {
+          continue kinds;
+        }
+        mask[superIndex >>> 6] |= 1L << superIndex;
+      }
+      qualifierKind.superTypesMask = mask;
+    }
+  }
+
   /**
    * Returns the set of all qualifier kinds that are a strict supertype of {@code qualifierKind}.
    *
@@ -591,6 +691,31 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     return lowestQualifiers;
   }
 
+  /**
+   * Flattens a lub or glb map into an array indexed by {@link #boundsTableIndex}.
+   *
+   * @param boundsMap a mapping created by {@link #createLubsMap()} or {@link #createGlbsMap()}
+   * @return an array containing the values of {@code boundsMap} for all pairs of qualifier kinds in
+   *     {@link #qualifierKinds}
+   */
+  @RequiresNonNull("this.qualifierKinds")
+  private @Nullable QualifierKind[] createBoundsTable(
+      @UnderInitialization DefaultQualifierKindHierarchy this,
+      Map<QualifierKind, Map<QualifierKind, QualifierKind>> boundsMap) {
+    int size = qualifierKinds.size();
+    @Nullable QualifierKind[] table = new QualifierKind[size * size];
+    for (int i = 0; i < size; i++) {
+      Map<QualifierKind, QualifierKind> row = boundsMap.get(qualifierKinds.get(i));
+      if (row == null) {
+        continue;
+      }
+      for (int j = 0; j < size; j++) {
+        table[i * size + j] = row.get(qualifierKinds.get(j));
+      }
+    }
+    return table;
+  }
+
   /**
    * Creates the glb of qualifier kinds. {@code glbs.get(kind1).get(kind2)} returns the glb of kind1
    * and kind2.
@@ -732,6 +857,20 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     // Set while creating the QualifierKindHierarchy.
     protected @MonotonicNonNull Set<QualifierKind> strictSuperTypes;
 
+    /**
+     * The index of this in {@link DefaultQualifierKindHierarchy#qualifierKinds}, or -1 if it has
+     * not been set.
+     */
+    // Set while creating the QualifierKindHierarchy.
+    int index = -1;
+
+    /**
+     * Bit {@code i} is set if this is a subtype of the qualifier kind whose {@link #index} is
+     * {@code i}. Includes this qualifier kind itself. Null while the hierarchy is being created.
+     */
+    // Set while creating the QualifierKindHierarchy.
+    private long @MonotonicNonNull [] superTypesMask;
+
     /**
      * Creates a {@link DefaultQualifierKind} for the given annotation class.
      *
@@ -819,6 +958,19 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
     @Override
     public boolean isSubtypeOf(QualifierKind superQualKind) {
+      if (superTypesMask != null) {
+        if (!(superQualKind instanceof DefaultQualifierKind)) {
+          return false;
+        }
+        DefaultQualifierKind superKind = (DefaultQualifierKind) superQualKind;
+        // A subtype is always in the same hierarchy, and all qualifier kinds with the same top
+        // were indexed by the same DefaultQualifierKindHierarchy.
+        if (this.top != superKind.top) {
+          return false;
+        }
+        int superIndex = superKind.index;
+        return (superTypesMask[superIndex >>> 6] & (1L << superIndex)) != 0;
+      }
       if (strictSuperTypes == null) {
         throw new BugInCF(
             "DefaultQualifierKind#isSubtypeOf: strictSuperTypes was null. Don't call this method"
@@ -0,0 +1,361 @@
+package org.checkerframework.framework.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.framework.util.PhaseEvents.Phase;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Time and allocation spent in each {@link Phase} of type-checking, per checker, per class, and per
+ * method. Enabled by the {@code -AhotspotReport} command-line option; the phases are measured by
+ * {@link PhaseEvents}. At the end of type processing, the ultimate parent checker writes the report
+ * as JSON.
+ *
+ * <p>The report lists every checker, and the classes and methods that took the most time. The
+ * total time of a method or class is the time spent building its control flow graphs, running
+ * dataflow analysis on them, and type-checking it in the visitor. Type argument inference and
+ * parsing of annotation files happen while doing those things, so they are reported in their own
+ * phases but not added to the total. Field initializers, initializer blocks, and lambdas outside
+ * methods are reported under the name of their class.
+ *
+ * <p>The phases that are added to the total time exclude each other: if one of them runs while
+ * another is running, its time and allocation are subtracted from the other. For example, the time
+ * of type-checking a method does not include the time of type-checking the methods of local and
+ * anonymous classes in it, which are reported under their own names.
+ *
+ * <p>Allocation is the number of bytes allocated by the compiler thread, or -1 if the JVM cannot
+ * measure it.
+ */
+public class HotspotReport {
+
+  /** The number of buckets in a duration histogram. */
+  private static final int HISTOGRAM_BUCKETS = 16;
+
+  /** For each checker, its statistics for each phase. */
+  private final Map<String, EnumMap<Phase, PhaseStats>> checkers = new LinkedHashMap<>();
+
+  /** For each checker, for each method or class, its statistics for each phase. */
+  private final Map<String, Map<String, Row>> rows = new LinkedHashMap<>();
+
+  /** The maximum number of classes and of methods to list. */
+  private final int size;
+
+  /**
+   * Creates a new, empty HotspotReport. {@link PhaseEvents} measures the phases of the checkers
+   * whose {@link SourceChecker#getHotspotReport} returns it.
+   *
+   * @param size the maximum number of classes and of methods to list
+   */
+  public HotspotReport(int size) {
+    this.size = size;
+  }
+
+  /**
+   * Returns true if the time of the given phase is added to the total time of a checker, class, or
+   * method. Such phases do not run during each other, or else the time of the inner one is not
+   * counted in the outer one.
+   *
+   * @param phase a phase
+   * @return true if the time of {@code phase} is added to the total time
+   */
+  static boolean isCountedInTotal(Phase phase) {
+    switch (phase) {
+      case CFG_CONSTRUCTION:
+      case DATAFLOW_ANALYSIS:
+      case METHOD_TYPE_CHECKING:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Records one occurrence of a phase.
+   *
+   * @param phase the phase
+   * @param checker the checker that ran the phase
+   * @param location the code or file that the phase processed; see {@link PhaseEvents.Timer#end}
+   * @param nanos the duration of the phase, in nanoseconds, not counting the phases that are
+   *     {@link #isCountedInTotal counted in the total} and ran during it
+   * @param allocatedBytes the number of bytes allocated during the phase, not counting those
+   *     phases, or -1 if unknown
+   */
+  void record(
+      Phase phase,
+      SourceChecker checker,
+      @Nullable Object location,
+      long nanos,
+      long allocatedBytes) {
+    String checkerName = checker.getClass().getSimpleName();
+    checkers
+        .computeIfAbsent(checkerName, __ -> new EnumMap<>(Phase.class))
+        .computeIfAbsent(phase, __ -> new PhaseStats(true))
+        .add(nanos, allocatedBytes);
+
+    Element element = PhaseEvents.codeElement(location);
+    if (element == null) {
+      // An annotation file; it is only counted in the checker's statistics.
+      return;
+    }
+    TypeElement enclosingClass = ElementUtils.enclosingTypeElement(element);
+    String className = enclosingClass == null ? "" : enclosingClass.getQualifiedName().toString();
+    String unitName = ElementUtils.getQualifiedName(element);
+    rows.computeIfAbsent(checkerName, __ -> new LinkedHashMap<>())
+        .computeIfAbsent(unitName, __ -> new Row(checkerName, unitName, className))
+        .phases
+        .computeIfAbsent(phase, __ -> new PhaseStats(false))
+        .add(nanos, allocatedBytes);
+  }
+
+  /**
+   * Writes this report as JSON.
+   *
+   * @param outputFile the file to write, or null or "-" to write to standard output
+   */
+  public void write(@Nullable String outputFile) {
+    String json = toJson();
+    if (outputFile == null || outputFile.isEmpty() || outputFile.equals("-")) {
+      @SuppressWarnings("builder:required.method.not.called") // don't close System.out
+      PrintWriter out =
+          new PrintWriter(
+              new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+      out.println(json);
+      out.flush();
+      return;
+    }
+    try (BufferedWriter writer =
+        Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8)) {
+      writer.write(json);
+      writer.newLine();
+    } catch (IOException e) {
+      throw new UserError("Cannot write hotspot report to %s: %s", outputFile, e.getMessage());
+    }
+  }
+
+  /**
+   * Returns this report as JSON.
+   *
+   * @return this report as JSON
+   */
+  private String toJson() {
+    StringJoiner checkersJson = new StringJoiner(",", "[", "]");
+    for (Map.Entry<String, EnumMap<Phase, PhaseStats>> entry : checkers.entrySet()) {
+      checkersJson.add(
+          "{\"checker\":"
+              + JsonUtils.toJsonString(entry.getKey())
+              + ",\"totalNanos\":"
+              + totalNanos(entry.getValue())
+              + ",\"phases\":"
+              + phasesJson(entry.getValue())
+              + "}");
+    }
+
+    List<Row> methods = new ArrayList<>();
+    Map<String, Row> classes = new LinkedHashMap<>();
+    for (Map<String, Row> checkerRows : rows.values()) {
+      for (Row row : checkerRows.values()) {
+        methods.add(row);
+        Row classRow =
+            classes.computeIfAbsent(
+                row.checker + " " + row.className,
+                __ -> new Row(row.checker, row.className, row.className));
+        for (Map.Entry<Phase, PhaseStats> phase : row.phases.entrySet()) {
+          classRow
+              .phases
+              .computeIfAbsent(phase.getKey(), __ -> new PhaseStats(false))
+              .addAll(phase.getValue());
+        }
+      }
+    }
+
+    return "{\"checkers\":"
+        + checkersJson
+        + ",\"classes\":"
+        + rowsJson(new ArrayList<>(classes.values()), size, false)
+        + ",\"methods\":"
+        + rowsJson(methods, size, true)
+        + "}";
+  }
+
+  /**
+   * Returns the {@code size} rows with the largest total time, as a JSON array.
+   *
+   * @param rowList the rows
+   * @param size the maximum number of rows to return
+   * @param isMethod true if the rows are methods, false if they are classes
+   * @return the {@code size} rows with the largest total time, as a JSON array
+   */
+  private static String rowsJson(List<Row> rowList, int size, boolean isMethod) {
+    rowList.sort(Comparator.comparingLong((Row row) -> totalNanos(row.phases)).reversed());
+    StringJoiner result = new StringJoiner(",", "[", "]");
+    for (Row row : rowList.subList(0, Math.min(size, rowList.size()))) {
+      result.add(
+          "{\"checker\":"
+              + JsonUtils.toJsonString(row.checker)
+              + (isMethod ? ",\"method\":" + JsonUtils.toJsonString(row.name) : "")
+              + ",\"class\":"
+              + JsonUtils.toJsonString(row.className)
+              + ",\"totalNanos\":"
+              + totalNanos(row.phases)
+              + ",\"phases\":"
+              + phasesJson(row.phases)
+              + "}");
+    }
+    return result.toString();
+  }
+
+  /**
+   * Returns the total time of the given phases that are {@link #isCountedInTotal counted in the
+   * total}.
+   *
+   * @param phases statistics for each phase
+   * @return the total time, in nanoseconds
+   */
+  private static long totalNanos(Map<Phase, PhaseStats> phases) {
+    long result = 0;
+    for (Map.Entry<Phase, PhaseStats> entry : phases.entrySet()) {
+      if (isCountedInTotal(entry.getKey())) {
+        result += entry.getValue().nanos;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the given statistics as a JSON object.
+   *
+   * @param phases statistics for each phase
+   * @return the given statistics as a JSON object
+   */
+  private static String phasesJson(Map<Phase, PhaseStats> phases) {
+    StringJoiner result = new StringJoiner(",", "{", "}");
+    for (Map.Entry<Phase, PhaseStats> entry : phases.entrySet()) {
+      result.add(JsonUtils.toJsonString(entry.getKey().name()) + ":" + entry.getValue().toJson());
+    }
+    return result.toString();
+  }
+
+  /** The statistics for one method or class. */
+  private static class Row {
+
+    /** The simple name of the checker. */
+    final String checker;
+
+    /** The qualified name of the method or class. */
+    final String name;
+
+    /** The qualified name of the class, or the empty string if there is none. */
+    final String className;
+
+    /** The statistics for each phase. */
+    final EnumMap<Phase, PhaseStats> phases = new EnumMap<>(Phase.class);
+
+    /**
+     * Creates a new Row.
+     *
+     * @param checker the simple name of the checker
+     * @param name the qualified name of the method or class
+     * @param className the qualified name of the class, or the empty string if there is none
+     */
+    Row(String checker, String name, String className) {
+      this.checker = checker;
+      this.name = name;
+      this.className = className;
+    }
+  }
+
+  /** The statistics for one phase. */
+  private static class PhaseStats {
+
+    /** The number of times that the phase ran. */
+    long count = 0;
+
+    /** The total duration of the phase, in nanoseconds. */
+    long nanos = 0;
+
+    /** The total number of bytes allocated during the phase, or -1 if unknown. */
+    long allocatedBytes = 0;
+
+    /**
+     * A histogram of the durations, or null if none is kept. Bucket 0 counts the durations under 1
+     * millisecond, and bucket {@code i > 0} counts those from 2<sup>i-1</sup> up to 2<sup>i</sup>
+     * milliseconds. The last bucket also counts all longer durations.
+     */
+    final long @Nullable [] histogram;
+
+    /**
+     * Creates a new PhaseStats.
+     *
+     * @param withHistogram true if a histogram of durations should be kept
+     */
+    PhaseStats(boolean withHistogram) {
+      this.histogram = withHistogram ? new long[HISTOGRAM_BUCKETS] : null;
+    }
+
+    /**
+     * Records one occurrence of the phase.
+     *
+     * @param nanos the duration, in nanoseconds
+     * @param bytes the number of bytes allocated, or -1 if unknown
+     */
+    void add(long nanos, long bytes) {
+      count++;
+      this.nanos += nanos;
+      allocatedBytes = (bytes < 0 || allocatedBytes < 0) ? -1 : allocatedBytes + bytes;
+      if (histogram != null) {
+        long millis = nanos / 1_000_000;
+        int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+        histogram[Math.min(bucket, HISTOGRAM_BUCKETS - 1)]++;
+      }
+    }
+
+    /**
+     * Adds the counts of another PhaseStats to this one, except for its histogram.
+     *
+     * @param other the statistics to add
+     */
+    void addAll(PhaseStats other) {
+      count += other.count;
+      nanos += other.nanos;
+      allocatedBytes =
+          (other.allocatedBytes < 0 || allocatedBytes < 0)
+              ? -1
+              : allocatedBytes + other.allocatedBytes;
+    }
+
+    /**
+     * Returns these statistics as a JSON object.
+     *
+     * @return these statistics as a JSON object
+     */
+    String toJson() {
+      String result =
+          "{\"count\":" + count + ",\"nanos\":" + nanos + ",\"allocatedBytes\":" + allocatedBytes;
+      if (histogram != null) {
+        StringJoiner buckets = new StringJoiner(",", "[", "]");
+        for (long bucket : histogram) {
+          buckets.add(Long.toString(bucket));
+        }
+        result += ",\"histogramMillisLog2\":" + buckets;
+      }
+      return result + "}";
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package org.checkerframework.framework.util;
+
+/** Utility methods for writing the JSON of {@link CacheStatistics} and {@link HotspotReport}. */
+final class JsonUtils {
+
+  /** Class cannot be instantiated. */
+  private JsonUtils() {
+    throw new AssertionError("Class JsonUtils cannot be instantiated.");
+  }
+
+  /**
+   * Returns a JSON string literal for the given string. Quotation marks, backslashes, and control
+   * characters are escaped, as JSON requires; all other characters are written as they are.
+   *
+   * @param s a string
+   * @return a JSON string literal whose value is {@code s}
+   */
+  static String toJsonString(String s) {
+    StringBuilder result = new StringBuilder(s.length() + 2);
+    result.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          result.append("\\\"");
+          break;
+        case '\\':
+          result.append("\\\\");
+          break;
+        case '\b':
+          result.append("\\b");
+          break;
+        case '\f':
+          result.append("\\f");
+          break;
+        case '\n':
+          result.append("\\n");
+          break;
+        case '\r':
+          result.append("\\r");
+          break;
+        case '\t':
+          result.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            result.append(String.format("\\u%04x", (int) c));
+          } else {
+            result.append(c);
+          }
+      }
+    }
+    result.append('"');
+    return result.toString();
+  }
+}
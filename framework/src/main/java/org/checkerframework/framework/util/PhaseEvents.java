@@ -0,0 +1,374 @@
+package org.checkerframework.framework.util;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javax.lang.model.element.Element;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGLambda;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGMethod;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGStatement;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreePathUtil;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * Java Flight Recorder (JFR) events for the phases of type-checking. Each event records its
+ * duration, its phase, the checker, and the code or file being processed, so a JFR recording shows
+ * which checker and which phase are slow.
+ *
+ * <p>The events have type {@code org.checkerframework.Phase}. They are recorded only if the JVM
+ * that runs the compiler supports JFR and a recording that enables them is running, for example
+ * after passing {@code -J-XX:StartFlightRecording} to javac.
+ *
+ * <p>If the checker that runs a phase has a {@link HotspotReport}, because the {@code
+ * -AhotspotReport} command-line option was passed to it, the phase is also measured and recorded in
+ * that report. Other checkers in the same JVM do not measure their phases.
+ *
+ * <p>If neither is enabled, {@link #begin} returns a timer that does nothing.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * PhaseEvents.Timer timer = PhaseEvents.begin(PhaseEvents.Phase.CFG_CONSTRUCTION, checker);
+ * try {
+ *   ... // the work to be timed
+ * } finally {
+ *   timer.end(location);
+ * }
+ * }</pre>
+ */
+public final class PhaseEvents {
+
+  /** Class cannot be instantiated. */
+  private PhaseEvents() {
+    throw new AssertionError("Class PhaseEvents cannot be instantiated.");
+  }
+
+  /** A phase of type-checking. */
+  public enum Phase {
+    /** Parsing a stub file, an ajava file, or a file of the annotated JDK. */
+    ANNOTATION_FILE_PARSING,
+    /** Building the control flow graph of a method, lambda, or initializer. */
+    CFG_CONSTRUCTION,
+    /** Running dataflow analysis to a fixpoint on one control flow graph. */
+    DATAFLOW_ANALYSIS,
+    /** Inferring the type arguments of a method invocation or constructor invocation. */
+    TYPE_ARGUMENT_INFERENCE,
+    /** Type-checking one method in a {@code BaseTypeVisitor}. */
+    METHOD_TYPE_CHECKING
+  }
+
+  /** A phase that has begun. */
+  public interface Timer {
+    /**
+     * Ends the phase and records its event, if events are being recorded.
+     *
+     * @param location the code or file that the phase processed: an {@link Element}, a {@link
+     *     TreePath}, an {@link UnderlyingAST}, or an object whose {@code toString} describes it. It
+     *     is converted to a string only if the event is recorded.
+     */
+    void end(@Nullable Object location);
+  }
+
+  /** A timer that does nothing. */
+  private static final Timer NO_OP = location -> {};
+
+  /** True if the JVM supports JFR events. */
+  private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+  /**
+   * The bean that measures the memory allocated by a thread, or null if the JVM cannot measure it.
+   */
+  private static final com.sun.management.@Nullable ThreadMXBean allocationBean =
+      getAllocationBean();
+
+  /**
+   * The innermost profiling timer of this thread whose phase is {@link
+   * HotspotReport#isCountedInTotal counted in the total}, and that has begun but not ended.
+   */
+  private static final ThreadLocal<@Nullable ProfilingTimer> activeCountedTimer =
+      new ThreadLocal<>();
+
+  /**
+   * Begins a phase. If no JFR recording enables the event and the checker has no {@link
+   * HotspotReport}, returns a shared timer that does nothing, so that an unmeasured phase allocates
+   * nothing.
+   *
+   * @param phase the phase
+   * @param checker the checker that runs the phase
+   * @return a timer to end the phase
+   */
+  public static Timer begin(Phase phase, SourceChecker checker) {
+    Timer jfrTimer = JFR_AVAILABLE ? PhaseEvent.begin(phase, checker) : NO_OP;
+    HotspotReport report = checker.getHotspotReport();
+    return report == null ? jfrTimer : new ProfilingTimer(phase, checker, report, jfrTimer);
+  }
+
+  /**
+   * Returns true if the JVM supports JFR events. It does not if it is an older Java 8 JVM.
+   *
+   * @return true if the JVM supports JFR events
+   */
+  private static boolean isJfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, PhaseEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the bean that measures the memory allocated by a thread, or null if the JVM cannot
+   * measure it.
+   *
+   * @return the bean that measures the memory allocated by a thread, or null
+   */
+  private static com.sun.management.@Nullable ThreadMXBean getAllocationBean() {
+    try {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) bean;
+        if (result.isThreadAllocatedMemorySupported() && result.isThreadAllocatedMemoryEnabled()) {
+          return result;
+        }
+      }
+    } catch (LinkageError | UnsupportedOperationException e) {
+      // The JVM cannot measure allocation.
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of bytes that the current thread has allocated, or -1 if unknown.
+   *
+   * @return the number of bytes that the current thread has allocated, or -1 if unknown
+   */
+  private static long allocatedBytes() {
+    return allocationBean == null
+        ? -1
+        : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Returns the method, or else the class, whose code a phase processed.
+   *
+   * @param location the code or file that a phase processed; see {@link Timer#end}
+   * @return the method or class that {@code location} is in, or null if it is not code
+   */
+  static @Nullable Element codeElement(@Nullable Object location) {
+    if (location instanceof Element) {
+      return (Element) location;
+    } else if (location instanceof TreePath) {
+      TreePath path = (TreePath) location;
+      MethodTree method = TreePathUtil.enclosingMethod(path);
+      if (method != null) {
+        return TreeUtils.elementFromDeclaration(method);
+      }
+      ClassTree classTree = TreePathUtil.enclosingClass(path);
+      return classTree == null ? null : TreeUtils.elementFromDeclaration(classTree);
+    } else if (location instanceof CFGMethod) {
+      return TreeUtils.elementFromDeclaration(((CFGMethod) location).getMethod());
+    } else if (location instanceof CFGLambda) {
+      CFGLambda lambda = (CFGLambda) location;
+      MethodTree method = lambda.getEnclosingMethod();
+      return method != null
+          ? TreeUtils.elementFromDeclaration(method)
+          : TreeUtils.elementFromDeclaration(lambda.getClassTree());
+    } else if (location instanceof CFGStatement) {
+      return TreeUtils.elementFromDeclaration(((CFGStatement) location).getClassTree());
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a short description of the code or file that a phase processed.
+   *
+   * @param location the code or file that a phase processed; see {@link Timer#end}
+   * @return a short description of {@code location}
+   */
+  private static String describe(@Nullable Object location) {
+    Element element = codeElement(location);
+    if (element == null) {
+      return String.valueOf(location);
+    }
+    String result = ElementUtils.getQualifiedName(element);
+    if (location instanceof TreePath) {
+      Tree leaf = ((TreePath) location).getLeaf();
+      return result + ": " + TreeUtils.toStringTruncated(leaf, 80);
+    } else if (location instanceof CFGLambda) {
+      return result + " (lambda)";
+    } else if (location instanceof CFGStatement) {
+      return result + " (initializer)";
+    } else {
+      return result;
+    }
+  }
+
+  /**
+   * A timer that measures a phase for the checker's {@link HotspotReport}. If the phase is {@link
+   * HotspotReport#isCountedInTotal counted in the total}, the report gets its time and allocation
+   * minus those of the counted phases that ran during it, such as type-checking the methods of a
+   * local class during the type-checking of the enclosing method. The JFR event always covers the
+   * whole phase.
+   */
+  private static final class ProfilingTimer implements Timer {
+
+    /** The phase. */
+    private final Phase phase;
+
+    /** The checker that runs the phase. */
+    private final SourceChecker checker;
+
+    /** The report in which the phase is recorded. */
+    private final HotspotReport report;
+
+    /** The timer for the JFR event. */
+    private final Timer jfrTimer;
+
+    /**
+     * The timer of the counted phase during which this one began, or null if there is none or this
+     * phase is not counted in the total.
+     */
+    private final @Nullable ProfilingTimer enclosing;
+
+    /** The value of {@link System#nanoTime} when the phase began. */
+    private final long startNanos;
+
+    /** The value of {@link #allocatedBytes} when the phase began. */
+    private final long startBytes;
+
+    /** The time of the counted phases that ran during this one, in nanoseconds. */
+    private long nestedNanos = 0;
+
+    /** The number of bytes allocated by the counted phases that ran during this one. */
+    private long nestedBytes = 0;
+
+    /**
+     * Begins a phase.
+     *
+     * @param phase the phase
+     * @param checker the checker that runs the phase
+     * @param report the report in which the phase is recorded
+     * @param jfrTimer the timer for the JFR event
+     */
+    ProfilingTimer(Phase phase, SourceChecker checker, HotspotReport report, Timer jfrTimer) {
+      this.phase = phase;
+      this.checker = checker;
+      this.report = report;
+      this.jfrTimer = jfrTimer;
+      if (HotspotReport.isCountedInTotal(phase)) {
+        this.enclosing = activeCountedTimer.get();
+        activeCountedTimer.set(this);
+      } else {
+        this.enclosing = null;
+      }
+      this.startBytes = allocatedBytes();
+      this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void end(@Nullable Object location) {
+      long nanos = System.nanoTime() - startNanos;
+      long bytes = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+      jfrTimer.end(location);
+      if (HotspotReport.isCountedInTotal(phase)) {
+        activeCountedTimer.set(enclosing);
+        if (enclosing != null) {
+          enclosing.nestedNanos += nanos;
+          enclosing.nestedBytes += Math.max(bytes, 0);
+        }
+      }
+      report.record(
+          phase, checker, location, nanos - nestedNanos, bytes < 0 ? -1 : bytes - nestedBytes);
+    }
+  }
+
+  /**
+   * The JFR event for a phase. This class is loaded only if {@link #JFR_AVAILABLE} is true.
+   *
+   * <p>JFR records the {@code @Label}ed fields; the others are transient.
+   */
+  @Name("org.checkerframework.Phase")
+  @Label("Checker Framework Phase")
+  @Category("Checker Framework")
+  @Description("A phase of type-checking, such as dataflow analysis of one method")
+  @StackTrace(false)
+  private static final class PhaseEvent extends jdk.jfr.Event implements Timer {
+
+    /** The type of this event, to find out whether it is enabled without creating an event. */
+    private static final EventType EVENT_TYPE = EventType.getEventType(PhaseEvent.class);
+
+    /** The phase. */
+    private final transient Phase phaseValue;
+
+    /** The checker that runs the phase. */
+    private final transient SourceChecker checkerValue;
+
+    /** The name of the phase. Set only if the event is committed. */
+    @Label("Phase")
+    @SuppressWarnings("UnusedVariable") // read by JFR
+    private @Nullable String phase;
+
+    /** The simple name of the checker. Set only if the event is committed. */
+    @Label("Checker")
+    @SuppressWarnings("UnusedVariable") // read by JFR
+    private @Nullable String checker;
+
+    /** The code or file that the phase processed. Set only if the event is committed. */
+    @Label("Location")
+    @SuppressWarnings("UnusedVariable") // read by JFR
+    private @Nullable String location;
+
+    /**
+     * Creates a new PhaseEvent.
+     *
+     * @param phaseValue the phase
+     * @param checkerValue the checker that runs the phase
+     */
+    private PhaseEvent(Phase phaseValue, SourceChecker checkerValue) {
+      this.phaseValue = phaseValue;
+      this.checkerValue = checkerValue;
+    }
+
+    /**
+     * Begins a phase, or returns {@link #NO_OP} if no recording has enabled this event.
+     *
+     * @param phase the phase
+     * @param checker the checker that runs the phase
+     * @return a timer to end the phase
+     */
+    static Timer begin(Phase phase, SourceChecker checker) {
+      if (!EVENT_TYPE.isEnabled()) {
+        return NO_OP;
+      }
+      PhaseEvent event = new PhaseEvent(phase, checker);
+      event.begin();
+      return event;
+    }
+
+    @Override
+    public void end(@Nullable Object location) {
+      end();
+      if (shouldCommit()) {
+        this.phase = phaseValue.name();
+        this.checker = checkerValue.getClass().getSimpleName();
+        this.location = describe(location);
+        commit();
+      }
+    }
+  }
+}
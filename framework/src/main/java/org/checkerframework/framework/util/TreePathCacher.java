@@ -18,7 +18,8 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  */
 public class TreePathCacher extends TreeScanner<TreePath, Tree> {
 
-  private final Map<Tree, @Nullable TreePath> foundPaths = new HashMap<>(32);
+  /** The cached paths. A target that is not in its compilation unit maps to null. */
+  private final Map<Tree, @Nullable TreePath> foundPaths;
 
   /**
    * The TreePath of the previous tree scanned. It is always set back to null after a scan has
@@ -26,6 +27,20 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
    */
   private @Nullable TreePath path;
 
+  /** Creates a new TreePathCacher. */
+  public TreePathCacher() {
+    this(new HashMap<>(32));
+  }
+
+  /**
+   * Creates a new TreePathCacher that caches paths in the given map.
+   *
+   * @param foundPaths the initially-empty map in which to cache paths
+   */
+  public TreePathCacher(Map<Tree, @Nullable TreePath> foundPaths) {
+    this.foundPaths = foundPaths;
+  }
+
   /**
    * Returns true if the tree is cached.
    *
@@ -58,8 +73,9 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
     // This method uses try/catch and the private {@code Result} exception for control flow to
     // stop the superclass from scanning other subtrees when target is found.
 
-    if (foundPaths.containsKey(target)) {
-      return foundPaths.get(target);
+    TreePath cached = foundPaths.get(target);
+    if (cached != null || foundPaths.containsKey(target)) {
+      return cached;
     }
 
     TreePath path = new TreePath(root);
@@ -106,7 +106,7 @@ public class QualifierDefaults {
   private static final int CACHE_SIZE = 300;
 
   /** Mapping from an Element to the bound type. */
-  protected final Map<Element, BoundType> elementToBoundType = MapsP.createLruCache(CACHE_SIZE);
+  protected final Map<Element, BoundType> elementToBoundType;
 
   /**
    * Defaults that apply for a certain Element. On the one hand this is used for caching (an earlier
@@ -180,6 +180,11 @@ public class QualifierDefaults {
   public QualifierDefaults(Elements elements, AnnotatedTypeFactory atypeFactory) {
     this.elements = elements;
     this.atypeFactory = atypeFactory;
+    this.elementToBoundType =
+        atypeFactory
+            .getChecker()
+            .registerCache(
+                "QualifierDefaults.elementToBoundType", MapsP.createLruCache(CACHE_SIZE));
     this.useConservativeDefaultsBytecode =
         atypeFactory.getChecker().useConservativeDefault("bytecode");
     this.useConservativeDefaultsSource = atypeFactory.getChecker().useConservativeDefault("source");
@@ -20,6 +20,7 @@ import javax.lang.model.type.TypeVariable;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.util.PhaseEvents;
 import org.checkerframework.framework.util.typeinference8.types.ContainsInferenceVariable;
 import org.checkerframework.framework.util.typeinference8.types.Variable;
 import org.checkerframework.framework.util.typeinference8.util.Theta;
@@ -100,6 +101,8 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
     if (java8Inference != null) {
       java8InferenceStack.push(java8Inference);
     }
+    PhaseEvents.Timer timer =
+        PhaseEvents.begin(PhaseEvents.Phase.TYPE_ARGUMENT_INFERENCE, typeFactory.getChecker());
     try {
       java8Inference = new InvocationTypeInference(typeFactory, pathToExpression);
       if (outerTree instanceof MemberReferenceTree) {
@@ -129,6 +132,7 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
       }
       throw BugInCF.addLocation(outerTree, ex);
     } finally {
+      timer.end(pathToExpression);
       if (!java8InferenceStack.isEmpty()) {
         java8Inference = java8InferenceStack.pop();
       } else {
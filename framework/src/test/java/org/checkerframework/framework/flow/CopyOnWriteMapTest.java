@@ -0,0 +1,225 @@
+package org.checkerframework.framework.flow;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests that copies of a {@link CopyOnWriteMap} do not see each other's modifications. */
+public class CopyOnWriteMapTest {
+
+  /**
+   * Returns a new CopyOnWriteMap that maps "a" to 1, "b" to 2, and "c" to 3.
+   *
+   * @return a new CopyOnWriteMap with three entries
+   */
+  private static CopyOnWriteMap<String, Integer> abc() {
+    CopyOnWriteMap<String, Integer> map = new CopyOnWriteMap<>();
+    map.put("a", 1);
+    map.put("b", 2);
+    map.put("c", 3);
+    return map;
+  }
+
+  /**
+   * Asserts that the given map maps "a" to 1, "b" to 2, and "c" to 3, and has no other entries.
+   *
+   * @param map a map
+   */
+  private static void assertAbc(Map<String, Integer> map) {
+    Map<String, Integer> expected = new HashMap<>();
+    expected.put("a", 1);
+    expected.put("b", 2);
+    expected.put("c", 3);
+    Assert.assertEquals(expected, map);
+  }
+
+  @Test
+  public void putAfterCopy() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> copy = original.copy();
+    copy.put("d", 4);
+    original.put("a", 10);
+    Assert.assertEquals(4, copy.size());
+    Assert.assertEquals(1, (int) copy.get("a"));
+    Assert.assertEquals(10, (int) original.get("a"));
+    Assert.assertFalse(original.containsKey("d"));
+  }
+
+  @Test
+  public void removeAndClearAfterCopy() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> copy = original.copy();
+    Assert.assertEquals(2, (int) copy.remove("b"));
+    Assert.assertNull(copy.remove("z"));
+    assertAbc(original);
+    copy.clear();
+    Assert.assertTrue(copy.isEmpty());
+    assertAbc(original);
+    original.clear();
+    Assert.assertTrue(original.isEmpty());
+  }
+
+  @Test
+  public void keySetRemoveAfterCopy() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> copy = original.copy();
+    Assert.assertTrue(copy.keySet().remove("a"));
+    Assert.assertFalse(copy.keySet().remove("a"));
+    Assert.assertFalse(copy.containsKey("a"));
+    assertAbc(original);
+    original.keySet().clear();
+    Assert.assertTrue(original.isEmpty());
+    Assert.assertEquals(2, copy.size());
+  }
+
+  @Test
+  public void valuesClearAfterCopy() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> copy = original.copy();
+    copy.values().clear();
+    Assert.assertTrue(copy.isEmpty());
+    assertAbc(original);
+  }
+
+  @Test
+  public void iteratorRemoveAfterCopy() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> copy = original.copy();
+    // The iterator is created while the entries are shared, so removal copies them first.
+    Iterator<Integer> iterator = copy.values().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next() != 2) {
+        iterator.remove();
+      }
+    }
+    Assert.assertEquals(Collections.singletonMap("b", 2), copy);
+    assertAbc(original);
+  }
+
+  @Test
+  public void iteratorRemoveWithoutCopy() {
+    CopyOnWriteMap<String, Integer> map = abc();
+    Iterator<String> iterator = map.keySet().iterator();
+    Assert.assertThrows(IllegalStateException.class, iterator::remove);
+    iterator.next();
+    iterator.remove();
+    Assert.assertThrows(IllegalStateException.class, iterator::remove);
+    Assert.assertEquals(2, map.size());
+  }
+
+  @Test
+  public void entrySetRemoveAfterCopy() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> copy = original.copy();
+    Map.Entry<String, Integer> a = Collections.singletonMap("a", 1).entrySet().iterator().next();
+    Map.Entry<String, Integer> wrongValue =
+        Collections.singletonMap("b", 20).entrySet().iterator().next();
+    Assert.assertTrue(copy.entrySet().remove(a));
+    Assert.assertFalse(copy.entrySet().remove(wrongValue));
+    Assert.assertEquals(2, copy.size());
+    assertAbc(original);
+  }
+
+  @Test
+  public void entrySetValueAfterCopy() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> copy = original.copy();
+    for (Map.Entry<String, Integer> entry : copy.entrySet()) {
+      Assert.assertEquals(entry.getValue(), entry.setValue(entry.getValue() * 10));
+      Assert.assertEquals(entry.getValue(), copy.get(entry.getKey()));
+    }
+    Assert.assertEquals(10, (int) copy.get("a"));
+    Assert.assertEquals(20, (int) copy.get("b"));
+    Assert.assertEquals(30, (int) copy.get("c"));
+    assertAbc(original);
+  }
+
+  @Test
+  public void entrySetValueOfOriginalAfterCopy() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    // The entry is obtained before the copy, while the original does not share its entries.
+    Map.Entry<String, Integer> entry = original.entrySet().iterator().next();
+    CopyOnWriteMap<String, Integer> copy = original.copy();
+    entry.setValue(100);
+    Assert.assertEquals(100, (int) original.get(entry.getKey()));
+    assertAbc(copy);
+  }
+
+  @Test
+  public void copyOf() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+    Assert.assertTrue(CopyOnWriteMap.haveSameEntries(original, copy));
+    copy.put("a", 10);
+    Assert.assertFalse(CopyOnWriteMap.haveSameEntries(original, copy));
+    assertAbc(original);
+
+    Map<String, Integer> hashMap = new HashMap<>(original);
+    CopyOnWriteMap<String, Integer> fromHashMap = CopyOnWriteMap.copyOf(hashMap);
+    hashMap.put("d", 4);
+    assertAbc(fromHashMap);
+  }
+
+  @Test
+  public void copyInto() {
+    CopyOnWriteMap<String, Integer> from = abc();
+    CopyOnWriteMap<String, Integer> to = new CopyOnWriteMap<>();
+    Assert.assertTrue(CopyOnWriteMap.copyInto(from, to));
+    Assert.assertTrue(CopyOnWriteMap.haveSameEntries(from, to));
+    assertAbc(to);
+    to.put("d", 4);
+    from.remove("a");
+    Assert.assertEquals(4, to.size());
+    Assert.assertEquals(2, from.size());
+    Assert.assertTrue(to.containsKey("a"));
+    Assert.assertFalse(from.containsKey("d"));
+  }
+
+  @Test
+  public void copyIntoDoesNothingUnlessPossible() {
+    CopyOnWriteMap<String, Integer> from = abc();
+    CopyOnWriteMap<String, Integer> nonEmpty = new CopyOnWriteMap<>();
+    nonEmpty.put("z", 26);
+    Assert.assertFalse(CopyOnWriteMap.copyInto(from, nonEmpty));
+    Assert.assertEquals(Collections.singletonMap("z", 26), nonEmpty);
+
+    Map<String, Integer> hashMap = new HashMap<>();
+    Assert.assertFalse(CopyOnWriteMap.copyInto(from, hashMap));
+    Assert.assertTrue(hashMap.isEmpty());
+    CopyOnWriteMap<String, Integer> to = new CopyOnWriteMap<>();
+    Assert.assertFalse(CopyOnWriteMap.copyInto(new HashMap<>(from), to));
+    Assert.assertTrue(to.isEmpty());
+    Assert.assertFalse(CopyOnWriteMap.haveSameEntries(from, to));
+    from.put("d", 4);
+    Assert.assertEquals(4, from.size());
+  }
+
+  @Test
+  public void equalsAndHashCode() {
+    CopyOnWriteMap<String, Integer> original = abc();
+    CopyOnWriteMap<String, Integer> shared = original.copy();
+    CopyOnWriteMap<String, Integer> unshared = abc();
+    Map<String, Integer> hashMap = new HashMap<>(original);
+
+    Assert.assertTrue(CopyOnWriteMap.haveSameEntries(original, shared));
+    Assert.assertFalse(CopyOnWriteMap.haveSameEntries(original, unshared));
+    Assert.assertFalse(CopyOnWriteMap.haveSameEntries(original, hashMap));
+    for (Map<String, Integer> other : Arrays.asList(shared, unshared, hashMap)) {
+      Assert.assertEquals(original, other);
+      Assert.assertEquals(other, original);
+      Assert.assertEquals(original.hashCode(), other.hashCode());
+    }
+
+    shared.put("a", 10);
+    Assert.assertFalse(original.equals(shared));
+    Assert.assertFalse(shared.equals(original));
+    shared.put("a", 1);
+    Assert.assertEquals(original, shared);
+    Assert.assertEquals(original.hashCode(), shared.hashCode());
+    Assert.assertFalse(original.equals(null));
+  }
+}
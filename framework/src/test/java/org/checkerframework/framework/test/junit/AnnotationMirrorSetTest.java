@@ -0,0 +1,148 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.main.Option;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.Options;
+import java.util.Arrays;
+import java.util.Iterator;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.framework.testchecker.util.AnnoWithStringArg;
+import org.checkerframework.framework.testchecker.util.Critical;
+import org.checkerframework.framework.testchecker.util.Encrypted;
+import org.checkerframework.framework.testchecker.util.Odd;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationMirrorSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnnotationMirrorSetTest {
+
+  private final ProcessingEnvironment env;
+
+  /** {@code @Critical}, the first of the test annotations in the order of AnnotationMirrorSet. */
+  private final AnnotationMirror critical;
+
+  /** {@code @Encrypted}. */
+  private final AnnotationMirror encrypted;
+
+  /** {@code @Odd}, the last of the test annotations in the order of AnnotationMirrorSet. */
+  private final AnnotationMirror odd;
+
+  public AnnotationMirrorSetTest() {
+    Context context = new Context();
+    // Set source and target to 8
+    Options options = Options.instance(context);
+    options.put(Option.SOURCE, "8");
+    options.put(Option.TARGET, "8");
+
+    env = JavacProcessingEnvironment.instance(context);
+    JavaCompiler javac = JavaCompiler.instance(context);
+    // Even though source/target are set to 8, the modules in the JavaCompiler
+    // need to be initialized by setting the list of modules to nil.
+    javac.initModules(List.nil());
+    javac.enterDone();
+
+    critical = AnnotationBuilder.fromClass(env.getElementUtils(), Critical.class);
+    encrypted = AnnotationBuilder.fromClass(env.getElementUtils(), Encrypted.class);
+    odd = AnnotationBuilder.fromClass(env.getElementUtils(), Odd.class);
+  }
+
+  private AnnotationMirror withStringArg(String value) {
+    AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder.setValue("value", value);
+    return builder.build();
+  }
+
+  private static void assertElements(AnnotationMirrorSet set, AnnotationMirror... expected) {
+    Assert.assertEquals(expected.length, set.size());
+    Iterator<AnnotationMirror> iterator = set.iterator();
+    for (AnnotationMirror anno : expected) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertSame(anno, iterator.next());
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void iterationIsSorted() {
+    AnnotationMirrorSet set = new AnnotationMirrorSet();
+    set.add(odd);
+    set.add(critical);
+    set.add(encrypted);
+    assertElements(set, critical, encrypted, odd);
+    Assert.assertSame(critical, set.first());
+    Assert.assertSame(odd, set.last());
+    Assert.assertSame(critical, set.lower(encrypted));
+    Assert.assertSame(odd, set.higher(encrypted));
+  }
+
+  @Test
+  public void sortedByValues() {
+    AnnotationMirror a = withStringArg("a");
+    AnnotationMirror b = withStringArg("b");
+    AnnotationMirrorSet set = new AnnotationMirrorSet(Arrays.asList(b, a));
+    assertElements(set, a, b);
+    Assert.assertFalse(set.add(withStringArg("a")));
+    Assert.assertEquals(2, set.size());
+  }
+
+  @Test
+  public void equalsIgnoresInsertionOrder() {
+    AnnotationMirrorSet set1 = new AnnotationMirrorSet(Arrays.asList(odd, critical));
+    AnnotationMirrorSet set2 = new AnnotationMirrorSet(Arrays.asList(critical, odd));
+    Assert.assertEquals(set1, set2);
+    Assert.assertEquals(set1.hashCode(), set2.hashCode());
+  }
+
+  @Test
+  public void retainAll() {
+    AnnotationMirrorSet set = new AnnotationMirrorSet(Arrays.asList(critical, encrypted, odd));
+    Assert.assertTrue(set.retainAll(Arrays.asList(odd, critical)));
+    assertElements(set, critical, odd);
+    Assert.assertFalse(set.retainAll(Arrays.asList(critical, encrypted, odd)));
+    assertElements(set, critical, odd);
+    Assert.assertTrue(set.retainAll(Arrays.asList()));
+    Assert.assertTrue(set.isEmpty());
+  }
+
+  @Test
+  public void removeAll() {
+    AnnotationMirrorSet set = new AnnotationMirrorSet(Arrays.asList(critical, encrypted, odd));
+    Assert.assertTrue(set.removeAll(Arrays.asList(encrypted)));
+    assertElements(set, critical, odd);
+    // The result is false unless every element of the argument was removed.
+    Assert.assertFalse(set.removeAll(Arrays.asList(critical, encrypted)));
+    assertElements(set, odd);
+  }
+
+  @Test
+  public void unmodifiable() {
+    AnnotationMirrorSet set =
+        AnnotationMirrorSet.unmodifiableSet(Arrays.asList(critical, encrypted, odd));
+    Assert.assertThrows(UnsupportedOperationException.class, () -> set.add(withStringArg("a")));
+    Assert.assertThrows(UnsupportedOperationException.class, () -> set.remove(odd));
+    Assert.assertThrows(
+        UnsupportedOperationException.class, () -> set.retainAll(Arrays.asList(odd, critical)));
+    Assert.assertThrows(UnsupportedOperationException.class, set::clear);
+    Iterator<AnnotationMirror> iterator = set.iterator();
+    iterator.next();
+    Assert.assertThrows(UnsupportedOperationException.class, iterator::remove);
+    // Operations that would not change the set succeed, and the failed ones left it unchanged.
+    Assert.assertFalse(set.add(odd));
+    Assert.assertFalse(set.retainAll(Arrays.asList(critical, encrypted, odd)));
+    assertElements(set, critical, encrypted, odd);
+  }
+
+  @Test
+  public void copyOfUnmodifiableIsModifiable() {
+    AnnotationMirrorSet set = AnnotationMirrorSet.singleton(odd);
+    AnnotationMirrorSet copy = new AnnotationMirrorSet(set);
+    Assert.assertTrue(copy.add(critical));
+    assertElements(copy, critical, odd);
+    assertElements(set, odd);
+  }
+}
@@ -0,0 +1,31 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.testchecker.util.FlowTestChecker;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests flow-sensitive type refinement when only every third dataflow result is cached, so that
+ * most stores are recomputed from the nearest cached one.
+ */
+public class FlowCheckpointIntervalTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public FlowCheckpointIntervalTest(List<File> testFiles) {
+    super(
+        testFiles,
+        FlowTestChecker.class,
+        "flow",
+        "-AcheckPurityAnnotations",
+        "-AflowCheckpointInterval=3");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"flow", "all-systems"};
+  }
+}
@@ -0,0 +1,59 @@
+package org.checkerframework.framework.util;
+
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests that the caches of a {@link CacheBudget} share the entries of their kind. */
+public class CacheBudgetTest {
+
+  /**
+   * Puts the given number of distinct entries into the given cache.
+   *
+   * @param cache a cache
+   * @param count the number of entries to put
+   */
+  private static void fill(Map<Integer, Integer> cache, int count) {
+    for (int i = 0; i < count; i++) {
+      cache.put(i, i);
+    }
+  }
+
+  @Test
+  public void oneCacheHoldsTheBaseSize() {
+    CacheBudget budget = new CacheBudget();
+    Map<Integer, Integer> cache = budget.createCache("kind", 10);
+    fill(cache, 25);
+    Assert.assertEquals(10, cache.size());
+    // The least-recently-used entries were evicted.
+    Assert.assertTrue(cache.containsKey(24));
+    Assert.assertFalse(cache.containsKey(14));
+  }
+
+  @Test
+  public void cachesOfAKindShareTheBaseSize() {
+    CacheBudget budget = new CacheBudget();
+    Map<Integer, Integer> first = budget.createCache("kind", 10);
+    fill(first, 10);
+    Map<Integer, Integer> second = budget.createCache("kind", 10);
+    // Creating the second cache halves the limit of the first one.
+    Assert.assertEquals(5, first.size());
+    fill(second, 10);
+    Assert.assertEquals(5, second.size());
+
+    Map<Integer, Integer> otherKind = budget.createCache("other", 10);
+    fill(otherKind, 10);
+    Assert.assertEquals(10, otherKind.size());
+  }
+
+  @Test
+  public void everyCacheHoldsAnEntry() {
+    CacheBudget budget = new CacheBudget();
+    Map<Integer, Integer> first = budget.createCache("kind", 1);
+    Map<Integer, Integer> second = budget.createCache("kind", 1);
+    fill(first, 3);
+    fill(second, 3);
+    Assert.assertEquals(1, first.size());
+    Assert.assertEquals(1, second.size());
+  }
+}
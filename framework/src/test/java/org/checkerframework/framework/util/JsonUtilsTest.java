@@ -0,0 +1,26 @@
+package org.checkerframework.framework.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests {@link JsonUtils}. */
+public class JsonUtilsTest {
+
+  @Test
+  public void plainString() {
+    Assert.assertEquals("\"\"", JsonUtils.toJsonString(""));
+    Assert.assertEquals("\"Foo.bar(int)\"", JsonUtils.toJsonString("Foo.bar(int)"));
+    Assert.assertEquals("\"Gr\u00fc\u00dfe\"", JsonUtils.toJsonString("Gr\u00fc\u00dfe"));
+  }
+
+  @Test
+  public void quotesAndBackslashes() {
+    Assert.assertEquals("\"a\\\"b\\\\c\"", JsonUtils.toJsonString("a\"b\\c"));
+  }
+
+  @Test
+  public void controlCharacters() {
+    Assert.assertEquals("\"\\b\\f\\n\\r\\t\"", JsonUtils.toJsonString("\b\f\n\r\t"));
+    Assert.assertEquals("\"\\u0000\\u001f\u007f\"", JsonUtils.toJsonString("\u0000\u001f\u007f"));
+  }
+}
@@ -1,13 +1,16 @@
 package org.checkerframework.javacutil;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
@@ -50,6 +53,12 @@ import org.plumelib.util.StringsPlume;
  * Once an annotation is built, no further modification or calls to build can be made. Otherwise, a
  * {@link IllegalStateException} is thrown.
  *
+ * <p>Annotations built by this class are canonical: building an annotation with the same annotation
+ * type and the same element values, set in the same order, as a previously-built annotation that is
+ * still in use returns the previously-built annotation. Therefore, {@link
+ * AnnotationUtils#areSame(AnnotationMirror, AnnotationMirror)} and {@link
+ * AnnotationUtils#compareAnnotationMirrors} usually succeed on their {@code ==} test.
+ *
  * <p>All setter methods throw {@link IllegalArgumentException} if the specified element is not
  * found, or if the given value is not a subtype of the expected type.
  *
@@ -255,7 +264,7 @@ public class AnnotationBuilder {
       elementValues.put(annoElement, elementValue);
     }
 
-    AnnotationMirror result = new CheckerFrameworkAnnotationMirror(annoType, elementValues);
+    AnnotationMirror result = canonicalMirror(annoType, elementValues);
     return result;
   }
 
@@ -271,7 +280,105 @@ public class AnnotationBuilder {
   public AnnotationMirror build() {
     assertNotBuilt();
     wasBuilt = true;
-    return new CheckerFrameworkAnnotationMirror(annotationType, elementValues);
+    return canonicalMirror(annotationType, elementValues);
+  }
+
+  /**
+   * The canonical annotation mirrors that are in use. Each key is strongly referenced only by its
+   * canonical mirror, so an entry is removed once its mirror is no longer used. Annotation types
+   * and elements from different compilations are never equal, so compilations that run
+   * concurrently in the same JVM can share this table. Synchronize on this map before using it.
+   */
+  private static final Map<MirrorKey, WeakReference<CheckerFrameworkAnnotationMirror>>
+      canonicalMirrors = new WeakHashMap<>();
+
+  /**
+   * Returns the canonical annotation mirror with the given annotation type and element values,
+   * creating it if necessary.
+   *
+   * @param annotationType the annotation type
+   * @param elementValues the element values; must not be modified after this call
+   * @return the canonical annotation mirror with the given type and element values
+   */
+  private static CheckerFrameworkAnnotationMirror canonicalMirror(
+      DeclaredType annotationType, Map<ExecutableElement, AnnotationValue> elementValues) {
+    MirrorKey key = new MirrorKey(annotationType, elementValues);
+    synchronized (canonicalMirrors) {
+      WeakReference<CheckerFrameworkAnnotationMirror> ref = canonicalMirrors.get(key);
+      @Nullable CheckerFrameworkAnnotationMirror result = (ref == null) ? null : ref.get();
+      if (result == null) {
+        result = new CheckerFrameworkAnnotationMirror(annotationType, elementValues, key);
+        // Remove any stale entry, so that the new entry uses the key that `result` refers to.
+        canonicalMirrors.remove(key);
+        canonicalMirrors.put(key, new WeakReference<>(result));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The key of a canonical annotation mirror in {@link #canonicalMirrors}: the annotation type and
+   * the element values, in order. Annotation types and elements are compared by identity, and
+   * element values by {@link AnnotationUtils#sameAnnotationValue}.
+   */
+  private static class MirrorKey {
+
+    /** The annotation type. */
+    private final DeclaredType annotationType;
+
+    /** The element values. */
+    private final Map<ExecutableElement, AnnotationValue> elementValues;
+
+    /** The hash code of this, which is computed eagerly because it is always used. */
+    private final int hashCode;
+
+    /**
+     * Creates a MirrorKey.
+     *
+     * @param annotationType the annotation type
+     * @param elementValues the element values
+     */
+    MirrorKey(DeclaredType annotationType, Map<ExecutableElement, AnnotationValue> elementValues) {
+      this.annotationType = annotationType;
+      this.elementValues = elementValues;
+      int hash = System.identityHashCode(annotationType);
+      for (Map.Entry<ExecutableElement, AnnotationValue> entry : elementValues.entrySet()) {
+        hash = 31 * hash + System.identityHashCode(entry.getKey());
+        hash = 31 * hash + AnnotationUtils.annotationValueValueHashCode(entry.getValue());
+      }
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof MirrorKey)) {
+        return false;
+      }
+      MirrorKey other = (MirrorKey) obj;
+      if (hashCode != other.hashCode
+          || annotationType != other.annotationType
+          || elementValues.size() != other.elementValues.size()) {
+        return false;
+      }
+      Iterator<Map.Entry<ExecutableElement, AnnotationValue>> otherEntries =
+          other.elementValues.entrySet().iterator();
+      for (Map.Entry<ExecutableElement, AnnotationValue> entry : elementValues.entrySet()) {
+        Map.Entry<ExecutableElement, AnnotationValue> otherEntry = otherEntries.next();
+        if (entry.getKey() != otherEntry.getKey()
+            || !AnnotationUtils.sameAnnotationValue(entry.getValue(), otherEntry.getValue())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
   }
 
   /**
@@ -284,6 +391,7 @@ public class AnnotationBuilder {
    * @param ignorableElements the names of elements of {@code other} that can be safely dropped
    */
   public void copyElementValuesFromAnnotation(AnnotationMirror other, String... ignorableElements) {
+    assertNotBuilt();
     List<String> ignorableElementsList = Arrays.asList(ignorableElements);
     for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> eltValToCopy :
         other.getElementValues().entrySet()) {
@@ -306,6 +414,7 @@ public class AnnotationBuilder {
    */
   public void copyElementValuesFromAnnotation(
       AnnotationMirror valueHolder, Collection<ExecutableElement> ignorableElements) {
+    assertNotBuilt();
     for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
         valueHolder.getElementValues().entrySet()) {
       if (ignorableElements.contains(entry.getKey())) {
@@ -326,6 +435,7 @@ public class AnnotationBuilder {
    */
   public void copyRenameElementValuesFromAnnotation(
       AnnotationMirror valueHolder, Map<String, String> elementNameRenaming) {
+    assertNotBuilt();
 
     for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> eltValToCopy :
         valueHolder.getElementValues().entrySet()) {
@@ -681,19 +791,27 @@ public class AnnotationBuilder {
     // default visibility to allow access from within package.
     final @Interned @CanonicalName String annotationName;
 
+    /** The key of this in {@code canonicalMirrors}; referenced to keep that entry alive. */
+    @SuppressWarnings("UnusedVariable") // only needs to be reachable
+    private final MirrorKey canonicalKey;
+
     /**
      * Create a CheckerFrameworkAnnotationMirror.
      *
      * @param annotationType the annotation type
      * @param elementValues the element values
+     * @param canonicalKey the key of this in {@code canonicalMirrors}
      */
     @SuppressWarnings("signature:assignment") // needs JDK annotations
     CheckerFrameworkAnnotationMirror(
-        DeclaredType annotationType, Map<ExecutableElement, AnnotationValue> elementValues) {
+        DeclaredType annotationType,
+        Map<ExecutableElement, AnnotationValue> elementValues,
+        MirrorKey canonicalKey) {
       this.annotationType = annotationType;
       TypeElement elm = (TypeElement) annotationType.asElement();
       this.annotationName = elm.getQualifiedName().toString().intern();
       this.elementValues = elementValues;
+      this.canonicalKey = canonicalKey;
     }
 
     @Override
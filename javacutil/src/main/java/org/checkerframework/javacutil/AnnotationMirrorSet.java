@@ -1,11 +1,13 @@
 package org.checkerframework.javacutil;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NavigableSet;
-import java.util.TreeSet;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
 import javax.lang.model.element.AnnotationMirror;
 import org.checkerframework.checker.initialization.qual.UnknownInitialization;
 import org.checkerframework.checker.nullness.qual.KeyFor;
@@ -28,15 +30,34 @@ import org.plumelib.util.DeepCopyable;
  *
  * <p>AnnotationMirror is an interface and not all implementing classes provide a correct equals
  * method; therefore, the existing implementations of Set cannot be used.
+ *
+ * <p>The elements are stored in an array, sorted by {@link
+ * AnnotationUtils#compareAnnotationMirrors}. Every {@code AnnotatedTypeMirror} has a set of
+ * annotations, and nearly all of them contain at most one annotation per type hierarchy, so an
+ * array is much smaller than a tree-based set and is at least as fast to search.
  */
 // TODO: Could extend AbstractSet to eliminate the need to implement a few methods.
 public class AnnotationMirrorSet
     implements NavigableSet<@KeyFor("this") AnnotationMirror>, DeepCopyable<AnnotationMirrorSet> {
 
-  /** Backing set. */
-  // Not final because makeUnmodifiable() can reassign it.
-  private NavigableSet<@KeyFor("this") AnnotationMirror> shadowSet =
-      new TreeSet<>(AnnotationUtils::compareAnnotationMirrors);
+  /** The order of the elements of every AnnotationMirrorSet. */
+  private static final Comparator<AnnotationMirror> annotationMirrorComparator =
+      AnnotationUtils::compareAnnotationMirrors;
+
+  /** The backing array of a set that has never contained an element. */
+  private static final @Nullable AnnotationMirror[] NO_ELEMENTS = new AnnotationMirror[0];
+
+  /**
+   * The elements of this set, in the order given by {@link #annotationMirrorComparator}. Only the
+   * first {@link #size} entries are used; the remaining entries are null.
+   */
+  private @Nullable AnnotationMirror[] elements = NO_ELEMENTS;
+
+  /** The number of elements in this set. */
+  private int size = 0;
+
+  /** True if this set is unmodifiable. Is set by {@link #makeUnmodifiable()}. */
+  private boolean unmodifiable = false;
 
   /** The canonical unmodifiable empty set. */
   private static AnnotationMirrorSet emptySet = unmodifiableSet(Collections.emptySet());
@@ -64,24 +85,47 @@ public class AnnotationMirrorSet
    */
   @SuppressWarnings("this-escape") // `addAll()` is safe to call
   public AnnotationMirrorSet(Collection<? extends AnnotationMirror> annos) {
-    this.addAll(annos);
+    if (annos instanceof AnnotationMirrorSet) {
+      // The elements are already sorted and distinct.
+      AnnotationMirrorSet other = (AnnotationMirrorSet) annos;
+      this.elements = copyElements(other);
+      this.size = other.size;
+    } else {
+      this.addAll(annos);
+    }
   }
 
-  @SuppressWarnings("keyfor:argument") // transferring keys from one map to another
   @Override
   public AnnotationMirrorSet deepCopy() {
     AnnotationMirrorSet result = new AnnotationMirrorSet();
-    result.shadowSet.addAll(shadowSet);
+    result.elements = copyElements(this);
+    result.size = size;
     return result;
   }
 
+  /**
+   * Returns a copy of the used part of the backing array of the given set.
+   *
+   * @param set a set
+   * @return a copy of the first {@code set.size} entries of {@code set.elements}
+   */
+  private static @Nullable AnnotationMirror[] copyElements(AnnotationMirrorSet set) {
+    return set.size == 0 ? NO_ELEMENTS : Arrays.copyOf(set.elements, set.size);
+  }
+
   /**
    * Make this set unmodifiable.
    *
    * @return this set
    */
   public @This AnnotationMirrorSet makeUnmodifiable() {
-    shadowSet = Collections.unmodifiableNavigableSet(shadowSet);
+    if (!unmodifiable) {
+      unmodifiable = true;
+      // The set cannot grow any more, so release unused capacity.
+      if (elements.length != size) {
+        elements = Arrays.copyOf(elements, size);
+      }
+    }
     return this;
   }
 
@@ -92,11 +136,10 @@ public class AnnotationMirrorSet
    * @return a new unmodifiable {@link AnnotationMirrorSet} that contains only {@code value}
    */
   public static AnnotationMirrorSet singleton(AnnotationMirror value) {
-    // The implementation could be more efficient if Collections.singleton returned a
-    // NavigableSet.
     AnnotationMirrorSet result = new AnnotationMirrorSet();
-    result.add(value);
-    result.makeUnmodifiable();
+    result.elements = new @Nullable AnnotationMirror[] {value};
+    result.size = 1;
+    result.unmodifiable = true;
     return result;
   }
 
@@ -121,43 +164,177 @@ public class AnnotationMirrorSet
     return emptySet;
   }
 
+  // Helper methods for the backing array
+
+  /**
+   * Returns the element at the given index.
+   *
+   * @param index an index that is less than {@link #size}
+   * @return the element at {@code index}
+   */
+  @SuppressWarnings({
+    "nullness:return", // entries below `size` are non-null
+    "keyfor:return" // entries below `size` are elements of this set
+  })
+  private @KeyFor("this") AnnotationMirror get(
+      @UnknownInitialization(AnnotationMirrorSet.class) AnnotationMirrorSet this, int index) {
+    return elements[index];
+  }
+
+  /**
+   * Returns the index of the element that is the same as {@code anno}, according to {@link
+   * AnnotationUtils#areSame}, or -1 if there is none.
+   *
+   * @param anno an annotation
+   * @return the index of the element that is the same as {@code anno}, or -1
+   */
+  private int indexOfSame(
+      @UnknownInitialization(AnnotationMirrorSet.class) AnnotationMirrorSet this,
+      AnnotationMirror anno) {
+    for (int i = 0; i < size; i++) {
+      if (AnnotationUtils.areSame(get(i), anno)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Searches for {@code anno} using {@link #annotationMirrorComparator}, like {@link
+   * Arrays#binarySearch(Object[], int, int, Object, Comparator)}.
+   *
+   * @param anno an annotation
+   * @return the index of {@code anno}, if it is in this set; otherwise, {@code -(insertionPoint +
+   *     1)}
+   */
+  private int binarySearch(
+      @UnknownInitialization(AnnotationMirrorSet.class) AnnotationMirrorSet this,
+      AnnotationMirror anno) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = annotationMirrorComparator.compare(get(mid), anno);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Returns the element at the given index, or null if the index is out of bounds.
+   *
+   * @param index an index, possibly negative or greater than or equal to {@link #size}
+   * @return the element at {@code index}, or null
+   */
+  private @Nullable @KeyFor("this") AnnotationMirror getOrNull(int index) {
+    return (0 <= index && index < size) ? get(index) : null;
+  }
+
+  /**
+   * Removes the element at the given index.
+   *
+   * @param index an index that is less than {@link #size}
+   */
+  private void removeAt(int index) {
+    System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+    elements[--size] = null;
+  }
+
+  /**
+   * Throws an exception if this set is unmodifiable.
+   *
+   * @throws UnsupportedOperationException if this set is unmodifiable
+   */
+  private void checkModifiable(
+      @UnknownInitialization(AnnotationMirrorSet.class) AnnotationMirrorSet this) {
+    if (unmodifiable) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   // Set methods
 
   @Override
   public int size() {
-    return shadowSet.size();
+    return size;
   }
 
   @Override
   public boolean isEmpty() {
-    return shadowSet.isEmpty();
+    return size == 0;
   }
 
   @Override
   public boolean contains(
       @UnknownInitialization(AnnotationMirrorSet.class) AnnotationMirrorSet this,
       @Nullable Object o) {
-    return o instanceof AnnotationMirror
-        && AnnotationUtils.containsSame(shadowSet, (AnnotationMirror) o);
+    return o instanceof AnnotationMirror && indexOfSame((AnnotationMirror) o) != -1;
   }
 
+  @SuppressWarnings("keyfor:return") // within the iterator, "this" is the enclosing set
   @Override
   public Iterator<@KeyFor("this") AnnotationMirror> iterator() {
-    return shadowSet.iterator();
+    return new Iterator<@KeyFor("this") AnnotationMirror>() {
+      /** The index of the element to be returned by the next call to {@code next()}. */
+      private int nextIndex = 0;
+
+      /** The index of the element last returned by {@code next()}, or -1. */
+      private int lastReturned = -1;
+
+      @Override
+      public boolean hasNext() {
+        return nextIndex < size;
+      }
+
+      @Override
+      public @KeyFor("this") AnnotationMirror next() {
+        if (nextIndex >= size) {
+          throw new NoSuchElementException();
+        }
+        lastReturned = nextIndex++;
+        return get(lastReturned);
+      }
+
+      @Override
+      public void remove() {
+        if (lastReturned == -1) {
+          throw new IllegalStateException();
+        }
+        checkModifiable();
+        removeAt(lastReturned);
+        nextIndex = lastReturned;
+        lastReturned = -1;
+      }
+    };
   }
 
   @Override
   public Object[] toArray() {
-    return shadowSet.toArray();
+    return Arrays.copyOf(elements, size, Object[].class);
   }
 
-  @SuppressWarnings("nullness:toarray.nullable.elements.not.newarray") // delegation
+  @SuppressWarnings({
+    "unchecked", // `a` has the runtime type of the result
+    "nullness:toarray.nullable.elements.not.newarray" // like AbstractCollection.toArray
+  })
   @Override
   public <@KeyForBottom T> @Nullable T[] toArray(@PolyNull T[] a) {
-    return shadowSet.toArray(a);
+    if (a.length < size) {
+      return (T[]) Arrays.copyOf(elements, size, a.getClass());
+    }
+    System.arraycopy(elements, 0, a, 0, size);
+    if (a.length > size) {
+      a[size] = null;
+    }
+    return a;
   }
 
-  @SuppressWarnings("keyfor:argument") // delegation
   @Override
   public boolean add(
       @UnknownInitialization(AnnotationMirrorSet.class) AnnotationMirrorSet this,
@@ -165,15 +342,32 @@ public class AnnotationMirrorSet
     if (contains(annotationMirror)) {
       return false;
     }
-    shadowSet.add(annotationMirror);
+    checkModifiable();
+    int index = binarySearch(annotationMirror);
+    if (index >= 0) {
+      // The comparator considers `annotationMirror` equal to an element that is not the same
+      // annotation.  A TreeSet would not add it either.
+      return true;
+    }
+    int insertionPoint = -(index + 1);
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, size == 0 ? 1 : 2 * size);
+    }
+    System.arraycopy(elements, insertionPoint, elements, insertionPoint + 1, size - insertionPoint);
+    elements[insertionPoint] = annotationMirror;
+    size++;
     return true;
   }
 
   @Override
   public boolean remove(@Nullable Object o) {
     if (o instanceof AnnotationMirror) {
-      AnnotationMirror found = AnnotationUtils.getSame(shadowSet, (AnnotationMirror) o);
-      return found != null && shadowSet.remove(found);
+      int index = indexOfSame((AnnotationMirror) o);
+      if (index != -1) {
+        checkModifiable();
+        removeAt(index);
+        return true;
+      }
     }
     return false;
   }
@@ -203,18 +397,44 @@ public class AnnotationMirrorSet
 
   @Override
   public boolean retainAll(Collection<?> c) {
-    AnnotationMirrorSet newSet = new AnnotationMirrorSet();
-    for (Object o : c) {
-      if (contains(o)) {
-        assert o != null
-            : "@AssumeAssertion(nullness): after contains, the argument should have"
-                + " the element type of the set";
-        newSet.add((AnnotationMirror) o);
+    // Find the first element to remove before modifying the array, so that an unmodifiable set is
+    // left unchanged.
+    int firstRemoved = 0;
+    while (firstRemoved < size && containsSame(c, get(firstRemoved))) {
+      firstRemoved++;
+    }
+    if (firstRemoved == size) {
+      return false;
+    }
+    checkModifiable();
+    int newSize = firstRemoved;
+    for (int i = firstRemoved + 1; i < size; i++) {
+      AnnotationMirror anno = get(i);
+      if (containsSame(c, anno)) {
+        elements[newSize++] = anno;
       }
     }
-    if (newSet.size() != shadowSet.size()) {
-      shadowSet = newSet;
-      return true;
+    Arrays.fill(elements, newSize, size, null);
+    size = newSize;
+    return true;
+  }
+
+  /**
+   * Returns true if {@code c} contains an annotation that is the same as {@code anno}, according
+   * to {@link AnnotationUtils#areSame}.
+   *
+   * @param c a collection
+   * @param anno an annotation
+   * @return true if {@code c} contains an annotation that is the same as {@code anno}
+   */
+  private static boolean containsSame(Collection<?> c, AnnotationMirror anno) {
+    if (c instanceof AnnotationMirrorSet) {
+      return c.contains(anno);
+    }
+    for (Object o : c) {
+      if (o instanceof AnnotationMirror && AnnotationUtils.areSame(anno, (AnnotationMirror) o)) {
+        return true;
+      }
     }
     return false;
   }
@@ -232,12 +452,18 @@ public class AnnotationMirrorSet
 
   @Override
   public void clear() {
-    shadowSet.clear();
+    checkModifiable();
+    Arrays.fill(elements, 0, size, null);
+    size = 0;
   }
 
   @Override
   public String toString() {
-    return shadowSet.toString();
+    StringJoiner result = new StringJoiner(", ", "[", "]");
+    for (int i = 0; i < size; i++) {
+      result.add(String.valueOf(elements[i]));
+    }
+    return result.toString();
   }
 
   @Override
@@ -252,18 +478,23 @@ public class AnnotationMirrorSet
     if (this.size() != s.size()) {
       return false;
     }
-    return containsAll(s);
+    // Fast path: both sets are sorted in the same order, so usually equal sets have the same
+    // annotation at each index.
+    boolean sameInOrder = true;
+    for (int i = 0; i < size; i++) {
+      if (!AnnotationUtils.areSame(this.get(i), s.get(i))) {
+        sameInOrder = false;
+        break;
+      }
+    }
+    return sameInOrder || containsAll(s);
   }
 
   @Override
   public int hashCode() {
     int result = 0;
-    Iterator<AnnotationMirror> i = iterator();
-    while (i.hasNext()) {
-      AnnotationMirror am = i.next();
-      if (am != null) {
-        result += am.hashCode();
-      }
+    for (int i = 0; i < size; i++) {
+      result += get(i).hashCode();
     }
     return result;
   }
@@ -278,51 +509,69 @@ public class AnnotationMirrorSet
   })
   @Override
   public Comparator<? super AnnotationMirror> comparator() {
-    return shadowSet.comparator();
+    return annotationMirrorComparator;
   }
 
   @Override
   public @KeyFor("this") AnnotationMirror first() {
-    return shadowSet.first();
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    return get(0);
   }
 
   @Override
   public @KeyFor("this") AnnotationMirror last() {
-    return shadowSet.last();
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    return get(size - 1);
   }
 
-  @SuppressWarnings("keyfor:argument") // delegation
   @Override
   public @Nullable @KeyFor("this") AnnotationMirror lower(AnnotationMirror e) {
-    return shadowSet.lower(e);
+    int index = binarySearch(e);
+    return getOrNull(index >= 0 ? index - 1 : -(index + 1) - 1);
   }
 
-  @SuppressWarnings("keyfor:argument") // delegation
   @Override
   public @Nullable @KeyFor("this") AnnotationMirror floor(AnnotationMirror e) {
-    return shadowSet.floor(e);
+    int index = binarySearch(e);
+    return getOrNull(index >= 0 ? index : -(index + 1) - 1);
   }
 
-  @SuppressWarnings("keyfor:argument") // delegation
   @Override
   public @Nullable @KeyFor("this") AnnotationMirror ceiling(AnnotationMirror e) {
-    return shadowSet.ceiling(e);
+    int index = binarySearch(e);
+    return getOrNull(index >= 0 ? index : -(index + 1));
   }
 
-  @SuppressWarnings("keyfor:argument") // delegation
   @Override
   public @Nullable @KeyFor("this") AnnotationMirror higher(AnnotationMirror e) {
-    return shadowSet.higher(e);
+    int index = binarySearch(e);
+    return getOrNull(index >= 0 ? index + 1 : -(index + 1));
   }
 
   @Override
   public @Nullable @KeyFor("this") AnnotationMirror pollFirst() {
-    return shadowSet.pollFirst();
+    checkModifiable();
+    if (size == 0) {
+      return null;
+    }
+    @KeyFor("this") AnnotationMirror result = get(0);
+    removeAt(0);
+    return result;
   }
 
   @Override
   public @Nullable @KeyFor("this") AnnotationMirror pollLast() {
-    return shadowSet.pollLast();
+    checkModifiable();
+    if (size == 0) {
+      return null;
+    }
+    @KeyFor("this") AnnotationMirror result = get(size - 1);
+    removeAt(size - 1);
+    return result;
   }
 
   @Override
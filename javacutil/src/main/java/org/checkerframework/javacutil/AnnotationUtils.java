@@ -232,6 +232,9 @@ public class AnnotationUtils {
    */
   public static boolean areSame(
       Collection<? extends AnnotationMirror> c1, Collection<? extends AnnotationMirror> c2) {
+    if (c1 == c2) {
+      return true;
+    }
     if (c1.size() != c2.size()) {
       return false;
     }
@@ -240,10 +243,14 @@ public class AnnotationUtils {
     }
 
     // while loop depends on NavigableSet implementation.
-    AnnotationMirrorSet s1 = new AnnotationMirrorSet();
-    AnnotationMirrorSet s2 = new AnnotationMirrorSet();
-    s1.addAll(c1);
-    s2.addAll(c2);
+    AnnotationMirrorSet s1 =
+        (c1 instanceof AnnotationMirrorSet)
+            ? (AnnotationMirrorSet) c1
+            : new AnnotationMirrorSet(c1);
+    AnnotationMirrorSet s2 =
+        (c2 instanceof AnnotationMirrorSet)
+            ? (AnnotationMirrorSet) c2
+            : new AnnotationMirrorSet(c2);
     Iterator<AnnotationMirror> iter1 = s1.iterator();
     Iterator<AnnotationMirror> iter2 = s2.iterator();
 
@@ -396,6 +403,9 @@ public class AnnotationUtils {
    * @return an ordering over AnnotationMirrors based on their name and values
    */
   public static int compareAnnotationMirrors(AnnotationMirror a1, AnnotationMirror a2) {
+    if (a1 == a2) {
+      return 0;
+    }
     int nameComparison = compareByName(a1, a2);
     if (nameComparison != 0) {
       return nameComparison;
@@ -508,6 +518,57 @@ public class AnnotationUtils {
     return result;
   }
 
+  /**
+   * Returns a hash code for {@code am} that is consistent with {@link #areSame(AnnotationMirror,
+   * AnnotationMirror)}: annotations that are the same have the same hash code, even if one of them
+   * states a default value explicitly and the other one does not.
+   *
+   * @param am an annotation
+   * @return a hash code for {@code am} based on its name and element values
+   */
+  public static int annotationMirrorHashCode(AnnotationMirror am) {
+    int result = annotationName(am).hashCode();
+    List<ExecutableElement> elts =
+        ElementFilter.methodsIn(am.getAnnotationType().asElement().getEnclosedElements());
+    if (elts.isEmpty()) {
+      return result;
+    }
+    Map<? extends ExecutableElement, ? extends AnnotationValue> vals = am.getElementValues();
+    for (ExecutableElement meth : elts) {
+      AnnotationValue aval = vals.get(meth);
+      if (aval == null) {
+        aval = meth.getDefaultValue();
+      }
+      result = 31 * result + (aval == null ? 0 : annotationValueValueHashCode(aval.getValue()));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a hash code for a value returned by {@code AnnotationValue.getValue()} that is
+   * consistent with {@link #compareAnnotationValueValue}.
+   *
+   * @param val a value returned by {@code AnnotationValue.getValue()}
+   * @return a hash code for {@code val}
+   */
+  /*package-private*/ static int annotationValueValueHashCode(@Nullable Object val) {
+    if (val instanceof List<?>) {
+      int result = 1;
+      for (Object v : (List<?>) val) {
+        result = 31 * result + annotationValueValueHashCode(v);
+      }
+      return result;
+    } else if (val instanceof AnnotationMirror) {
+      return annotationMirrorHashCode((AnnotationMirror) val);
+    } else if (val instanceof AnnotationValue) {
+      return annotationValueValueHashCode(((AnnotationValue) val).getValue());
+    } else if (val instanceof Type.ClassType) {
+      // Type.ClassType does not override equals or hashCode.
+      return 0;
+    }
+    return Objects.hashCode(val);
+  }
+
   /**
    * Returns true if the given annotation has a @Inherited meta-annotation.
    *